@@ -0,0 +1,124 @@
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generator syntetycznych danych CSV dla benchmarków.
+ * Dane są powtarzalne dla tego samego ziarna. Część pól zawiera separator, cudzysłów
+ * lub znak nowej linii, więc musi być zapisana w cudzysłowie.
+ */
+public class CSVGenerator {
+    private static final String[] WORDS = {
+            "alfa", "beta", "gamma", "delta", "Kraków", "Gdańsk", "Łódź", "zielony", "czerwony", "niebieski",
+            "PL", "DE", "FR", "error", "warning", "info", "produkt", "usługa", "zamówienie", "faktura"
+    };
+
+    private final int rows;
+    private final int columns;
+    private final double quoteDensity;
+    private final String delimiter;
+    private final long seed;
+
+    /**
+     * Konstruktor generatora.
+     *
+     * @param rows         liczba wierszy danych (bez nagłówka)
+     * @param columns      liczba kolumn
+     * @param quoteDensity udział pól wymagających cudzysłowu, od 0 do 1
+     * @param delimiter    separator pól
+     * @param seed         ziarno generatora liczb losowych
+     */
+    public CSVGenerator(int rows, int columns, double quoteDensity, String delimiter, long seed) {
+        this.rows = rows;
+        this.columns = columns;
+        this.quoteDensity = quoteDensity;
+        this.delimiter = delimiter;
+        this.seed = seed;
+    }
+
+    /**
+     * Zwraca nagłówki kolumn: col1, col2, ...
+     *
+     * @return nagłówki kolumn
+     */
+    public String[] headers() {
+        String[] headers = new String[columns];
+        for (int c = 0; c < columns; c++) headers[c] = "col" + (c + 1);
+        return headers;
+    }
+
+    /**
+     * Generuje wiersze danych bez nagłówka.
+     *
+     * @return wiersze danych
+     */
+    public List<String[]> rows() {
+        Random random = new Random(seed);
+        List<String[]> data = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) {
+            String[] row = new String[columns];
+            for (int c = 0; c < columns; c++) row[c] = field(random, r, c);
+            data.add(row);
+        }
+        return data;
+    }
+
+    /**
+     * Zapisuje nagłówek i wiersze do pliku tymczasowego w kodowaniu UTF-8.
+     *
+     * @return utworzony plik, usuwany przy zakończeniu maszyny wirtualnej
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public File writeTempFile() throws IOException {
+        File file = File.createTempFile("csv-bench", ".csv");
+        file.deleteOnExit();
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writeRow(writer, headers());
+            for (String[] row : rows()) writeRow(writer, row);
+        }
+        return file;
+    }
+
+    /**
+     * Tworzy wartość pola. Typ wartości zależy od kolumny: liczby całkowite, liczby dziesiętne lub tekst.
+     */
+    private String field(Random random, int row, int col) {
+        if (random.nextDouble() < quoteDensity) {
+            return switch (random.nextInt(3)) {
+                case 0 -> WORDS[random.nextInt(WORDS.length)] + delimiter + " " + WORDS[random.nextInt(WORDS.length)];
+                case 1 -> "\"" + WORDS[random.nextInt(WORDS.length)] + "\" " + row;
+                default -> WORDS[random.nextInt(WORDS.length)] + "\n" + WORDS[random.nextInt(WORDS.length)];
+            };
+        }
+        return switch (col % 3) {
+            case 0 -> Integer.toString(row);
+            case 1 -> Integer.toString(random.nextInt(100000)) + "." + random.nextInt(100);
+            default -> WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+        };
+    }
+
+    /**
+     * Zapisuje wiersz, umieszczając w cudzysłowie pola z separatorem, cudzysłowem lub nową linią.
+     */
+    private void writeRow(BufferedWriter writer, String[] row) throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) writer.write(delimiter);
+            String value = row[i];
+            if (value.contains(delimiter) || value.contains("\"") || value.contains("\n")) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write('\n');
+    }
+}
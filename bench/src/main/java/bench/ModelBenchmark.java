@@ -0,0 +1,128 @@
+package bench;
+
+import model.CSVModel;
+import model.FilterType;
+import model.SortKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarki operacji na modelu: filtrowanie, sortowanie oraz dodawanie i usuwanie kolumn,
+ * dla przechowywania wierszowego i kolumnowego.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelBenchmark {
+    @Param("100000")
+    public int rows;
+
+    @Param("10")
+    public int columns;
+
+    @Param("0.1")
+    public double quoteDensity;
+
+    @Param({"false", "true"})
+    public boolean columnar;
+
+    /** Liczba wątków filtrowania; 0 oznacza wszystkie rdzenie, 1 filtrowanie sekwencyjne. */
+    @Param("0")
+    public int threads;
+
+    /**
+     * Pamięć podręczna wyników filtrowania. Domyślnie wyłączona, bo każde kolejne wywołanie tego samego filtra
+     * byłoby odczytem zapamiętanego wyniku zamiast przeszukania danych.
+     */
+    @Param("false")
+    public boolean filterCache;
+
+    /** Indeksy kolumn dla filtrów "Rowna sie" i "Rozpoczyna sie"; domyślnie wyłączone z tego samego powodu. */
+    @Param("false")
+    public boolean indexing;
+
+    private CSVModel model;
+    private int filterColumn;
+
+    /**
+     * Typ filtra, parametryzujący tylko benchmark filtrowania.
+     */
+    @State(Scope.Benchmark)
+    public static class Filter {
+        @Param({"Zawiera", "Rozpoczyna sie", "Konczy sie", "Rowna sie"})
+        public String type;
+    }
+
+    /**
+     * Kolumna sortowania, parametryzująca tylko benchmark sortowania: 1 zawiera liczby, 2 tekst.
+     */
+    @State(Scope.Benchmark)
+    public static class Sort {
+        @Param({"1", "2"})
+        public int column;
+    }
+
+    /**
+     * Buduje model z wygenerowanych wierszy.
+     */
+    @Setup
+    public void setUp() {
+        CSVGenerator generator = new CSVGenerator(rows, columns, quoteDensity, ",", 42);
+        model = new CSVModel();
+        model.setColumnarStorage(columnar);
+        model.setFilterThreads(threads);
+        if (!filterCache) model.setFilterCacheLimit(0);
+        model.setIndexing(indexing);
+        model.setHeaders(Arrays.asList(generator.headers()));
+        model.setData(generator.rows());
+        filterColumn = Math.min(2, columns - 1);
+    }
+
+    /**
+     * Filtrowanie jednej kolumny tekstowej. Dla "Rowna sie" słowem jest wartość ze środka danych.
+     */
+    @Benchmark
+    public int[] filter(Filter filter, Throughput throughput) {
+        String word = FilterType.fromLabel(filter.type) == FilterType.EQUALS ? model.getValueAt(rows / 2, filterColumn) : "a";
+        int[] result = model.filter(word, filterColumn, filter.type);
+        throughput.add(0, rows);
+        return result;
+    }
+
+    /**
+     * Sortowanie malejące wszystkich wierszy według jednej kolumny.
+     */
+    @Benchmark
+    public int[] sort(Sort sort, Throughput throughput) {
+        int[] result = model.sort(null, List.of(new SortKey(Math.min(sort.column, columns - 1), false)));
+        throughput.add(0, rows);
+        return result;
+    }
+
+    /**
+     * Dodanie i usunięcie kolumny, dzięki czemu model wraca do stanu początkowego.
+     */
+    @Benchmark
+    public int addRemoveColumn(Throughput throughput) {
+        model.addColumn("nowa");
+        model.removeColumn(model.getColumnCount() - 1);
+        throughput.add(0, rows);
+        return model.getColumnCount();
+    }
+}
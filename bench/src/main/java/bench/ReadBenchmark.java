@@ -0,0 +1,134 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import util.CSVUtils;
+import util.Compression;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarki odczytu CSV: pełny odczyt pliku, skanowanie rekordów bez tworzenia ciągów znaków
+ * oraz parsowanie pojedynczych linii przez {@link CSVUtils#parseCSVLine}.
+ * Parametr compression pozwala czytać ten sam plik skompresowany gzip lub LZ4;
+ * przepustowość jest wtedy liczona w bajtach danych po rozpakowaniu.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadBenchmark {
+    @Param("100000")
+    public int rows;
+
+    @Param("10")
+    public int columns;
+
+    @Param({"0.0", "0.1"})
+    public double quoteDensity;
+
+    @Param({",", ";", "\t"})
+    public String delimiter;
+
+    @Param("NONE")
+    public Compression compression;
+
+    private File plain;
+    private File file;
+    private long fileBytes;
+    private List<String> lines;
+
+    /**
+     * Generuje plik z danymi raz na cały przebieg benchmarku.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        plain = new CSVGenerator(rows, columns, quoteDensity, delimiter, 42).writeTempFile();
+        fileBytes = plain.length();
+        lines = Files.readAllLines(plain.toPath(), StandardCharsets.UTF_8);
+        file = plain;
+        if (compression != Compression.NONE) {
+            file = new File(plain.getPath() + compression.getExtension());
+            try (OutputStream out = compression.compress(new FileOutputStream(file))) {
+                Files.copy(plain.toPath(), out);
+            }
+        }
+    }
+
+    /**
+     * Usuwa wygenerowane pliki.
+     */
+    @TearDown
+    public void tearDown() {
+        plain.delete();
+        file.delete();
+    }
+
+    /**
+     * Odczyt całego pliku do listy wierszy, tak jak przy otwieraniu pliku w aplikacji.
+     */
+    @Benchmark
+    public List<String[]> readCSV(Throughput throughput) throws IOException {
+        List<String[]> data = CSVUtils.readCSV(file, delimiter);
+        throughput.add(fileBytes, data.size());
+        return data;
+    }
+
+    /**
+     * Odczyt wierszy porcjami, tak jak robi to zadanie wczytujące w tle.
+     */
+    @Benchmark
+    public void readCSVBatches(Throughput throughput, Blackhole bh) throws IOException {
+        long[] count = new long[1];
+        CSVUtils.readCSV(file, delimiter, batch -> {
+            count[0] += batch.size();
+            bh.consume(batch);
+        });
+        throughput.add(fileBytes, count[0]);
+    }
+
+    /**
+     * Skanowanie rekordów bez tworzenia ciągów znaków, tak jak w trybie strumieniowym.
+     */
+    @Benchmark
+    public void scanRecords(Throughput throughput, Blackhole bh) throws IOException {
+        long[] count = new long[1];
+        CSVUtils.scanRecords(file, delimiter, record -> {
+            count[0]++;
+            bh.consume(record.size());
+        });
+        throughput.add(fileBytes, count[0]);
+    }
+
+    /**
+     * Parsowanie linii wczytanych wcześniej do pamięci, bez kosztu I/O.
+     * Pola z nową linią są tu dzielone na kilka linii, co nie wpływa na porównywalność wyników.
+     */
+    @Benchmark
+    public void parseCSVLine(Throughput throughput, Blackhole bh) {
+        for (String line : lines) {
+            bh.consume(CSVUtils.parseCSVLine(line, delimiter));
+        }
+        throughput.add(fileBytes, lines.size());
+    }
+}
@@ -0,0 +1,40 @@
+package bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Liczniki przepustowości raportowane przez JMH obok liczby operacji.
+ * JMH dzieli je przez czas pomiaru, więc wyniki pojawiają się jako MB/s i wiersze/s.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+    /** Megabajty (10^6 bajtów) danych CSV przetworzonych w iteracji. */
+    public double megabytes;
+    /** Wiersze przetworzone w iteracji. */
+    public long rows;
+
+    /**
+     * Zeruje liczniki przed każdą iteracją.
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+        megabytes = 0;
+        rows = 0;
+    }
+
+    /**
+     * Dolicza jedną operację benchmarku.
+     *
+     * @param bytes liczba bajtów CSV przetworzonych w operacji
+     * @param count liczba wierszy przetworzonych w operacji
+     */
+    void add(long bytes, long count) {
+        megabytes += bytes / 1e6;
+        rows += count;
+    }
+}
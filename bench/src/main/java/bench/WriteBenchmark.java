@@ -0,0 +1,93 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import util.CSVUtils;
+import util.CSVWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarki zapisu CSV: zapis do pliku przez {@link CSVUtils#writeCSV} oraz samo kodowanie
+ * wierszy przez {@link CSVWriter} bez kosztu I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmark {
+    @Param("100000")
+    public int rows;
+
+    @Param("10")
+    public int columns;
+
+    @Param({"0.0", "0.1"})
+    public double quoteDensity;
+
+    @Param({",", ";", "\t"})
+    public String delimiter;
+
+    private List<String[]> data;
+    private File file;
+    private long fileBytes;
+
+    /**
+     * Generuje wiersze i mierzy rozmiar pliku wynikowego.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        data = new CSVGenerator(rows, columns, quoteDensity, delimiter, 42).rows();
+        file = File.createTempFile("csv-bench", ".csv");
+        file.deleteOnExit();
+        CSVUtils.writeCSV(file, data, delimiter);
+        fileBytes = file.length();
+    }
+
+    /**
+     * Usuwa plik wynikowy.
+     */
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Zapis wszystkich wierszy do pliku, tak jak przy zapisie z aplikacji.
+     */
+    @Benchmark
+    public void writeCSV(Throughput throughput) throws IOException {
+        CSVUtils.writeCSV(file, data, delimiter);
+        throughput.add(fileBytes, data.size());
+    }
+
+    /**
+     * Kodowanie wierszy przez {@link CSVWriter} do kanału, który niczego nie zapisuje.
+     */
+    @Benchmark
+    public void csvWriter(Throughput throughput) throws IOException {
+        try (CSVWriter writer = new CSVWriter(Channels.newChannel(OutputStream.nullOutputStream()), delimiter)) {
+            for (String[] row : data) {
+                writer.writeRow(row);
+            }
+        }
+        throughput.add(fileBytes, data.size());
+    }
+}
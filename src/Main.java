@@ -1,3 +1,4 @@
+import controller.BatchRunner;
 import view.MainFrame;
 
 /**
@@ -6,13 +7,25 @@ import view.MainFrame;
 public class Main {
     /**
      * Główny punkt wejścia aplikacji.
+     * Bez argumentów uruchamia interfejs graficzny, z argumentami tryb wsadowy bez AWT.
      *
      * @param args argumenty wiersza poleceń
      */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.setProperty("java.awt.headless", "true");
+            System.exit(BatchRunner.run(args, System.out, System.err));
+        }
+        startGui();
+    }
+
+    /**
+     * Uruchamia interfejs graficzny w wątku zdarzeń Swing.
+     */
+    private static void startGui() {
         javax.swing.SwingUtilities.invokeLater(() -> {
             MainFrame frame = new MainFrame();
             frame.getController().setMainFrame(frame);
         });
     }
-}
\ No newline at end of file
+}
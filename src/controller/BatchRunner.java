@@ -0,0 +1,381 @@
+package controller;
+
+import model.CSVModel;
+import model.FilterExpression;
+import model.FilterType;
+import model.SortKey;
+import model.SortKeyEncoder;
+import util.CSVRecord;
+import util.CSVTokenizer;
+import util.CSVUtils;
+import util.CSVWriter;
+import util.ExternalSort;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Tryb wsadowy uruchamiany z wiersza poleceń bez interfejsu graficznego.
+ * Wykonuje potok: wczytanie, filtrowanie, sortowanie, usuwanie lub wybór kolumn i zapis z wybranym separatorem.
+ * W trybie strumieniowym każdy rekord przechodzi przez potok osobno, więc plik nie jest wczytywany do pamięci;
+ * sortowanie jest wtedy zewnętrzne, z seriami zapisywanymi w plikach tymczasowych.
+ */
+public class BatchRunner {
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Uzycie: java -jar CSV.jar --input <plik> --output <plik> [opcje]",
+            "  --delimiter <sep>         separator pliku wejsciowego (domyslnie wykrywany)",
+            "  --output-delimiter <sep>  separator pliku wyjsciowego (domyslnie jak wejsciowy)",
+            "  --no-header               plik wejsciowy nie ma naglowkow",
+            "  --no-output-header        nie zapisuj naglowkow",
+            "  --filter <kol>:<typ>:<slowo>  typ: zawiera, rozpoczyna, konczy, rowna",
+            "  --where <wyrazenie>       np. \"kraj = PL AND (kwota > 1000 OR opis ~ '^pilne')\"",
+            "  --sort <kol>[:desc],...   sortuj wiersze wedlug kolumn (liczby numerycznie przed tekstem, puste na koncu)",
+            "  --sort-memory <MB>        limit pamieci sortowania w trybie strumieniowym (domyslnie 256)",
+            "  --temp-dir <katalog>      katalog plikow tymczasowych sortowania",
+            "  --select <kol>,<kol>      zachowaj tylko podane kolumny",
+            "  --drop <kol>,<kol>        usun podane kolumny",
+            "  --stream                  przetwarzaj rekord po rekordzie bez wczytywania pliku do pamieci",
+            "  --count                   wypisz liczbe pasujacych wierszy (--output jest wtedy opcjonalne)",
+            "  --threads <n>             liczba watkow filtrowania (domyslnie liczba rdzeni, 1 = bez rownoleglosci)",
+            "Kolumny mozna podac nazwa naglowka lub numerem (od 1). Separator \\t oznacza tabulator.",
+            "Pliki .gz i .lz4 sa rozpakowywane automatycznie, a wynik o takim rozszerzeniu jest kompresowany.");
+
+    private File input;
+    private File output;
+    private String delimiter;
+    private String outputDelimiter;
+    private boolean hasHeader = true;
+    private boolean outputHeader = true;
+    private boolean stream;
+    private boolean count;
+    private int threads;
+    private PrintStream out;
+    private final List<Filter> filters = new ArrayList<>();
+    private String where;
+    private List<String> sort;
+    private long sortMemory = ExternalSort.DEFAULT_MEMORY;
+    private File tempDir;
+    private List<String> select;
+    private List<String> drop;
+
+    /**
+     * Uruchamia tryb wsadowy.
+     *
+     * @param args argumenty wiersza poleceń
+     * @param out  strumień wyników, np. liczby pasujących wierszy
+     * @param err  strumień komunikatów o błędach
+     * @return kod wyjścia procesu
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        BatchRunner runner = new BatchRunner();
+        runner.out = out;
+        try {
+            runner.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            err.println("Blad: " + e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+        try {
+            runner.execute();
+            return 0;
+        } catch (Exception e) {
+            err.println("Blad: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Odczytuje opcje z argumentów wiersza poleceń.
+     */
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--no-header" -> hasHeader = false;
+                case "--no-output-header" -> outputHeader = false;
+                case "--stream" -> stream = true;
+                case "--count" -> count = true;
+                case "--input" -> input = new File(value(args, ++i, arg));
+                case "--output" -> output = new File(value(args, ++i, arg));
+                case "--delimiter" -> delimiter = unescape(value(args, ++i, arg));
+                case "--output-delimiter" -> outputDelimiter = unescape(value(args, ++i, arg));
+                case "--filter" -> filters.add(parseFilter(value(args, ++i, arg)));
+                case "--where" -> where = value(args, ++i, arg);
+                case "--threads" -> threads = parseThreads(value(args, ++i, arg));
+                case "--sort" -> sort = Arrays.asList(value(args, ++i, arg).split(","));
+                case "--sort-memory" -> sortMemory = parseMemory(value(args, ++i, arg));
+                case "--temp-dir" -> tempDir = new File(value(args, ++i, arg));
+                case "--select" -> select = Arrays.asList(value(args, ++i, arg).split(","));
+                case "--drop" -> drop = Arrays.asList(value(args, ++i, arg).split(","));
+                default -> throw new IllegalArgumentException("Nieznana opcja: " + arg);
+            }
+        }
+        if (input == null) throw new IllegalArgumentException("Wymagana jest opcja --input");
+        if (output == null && !count) throw new IllegalArgumentException("Wymagana jest opcja --output lub --count");
+    }
+
+    /**
+     * Wykonuje potok przetwarzania.
+     */
+    private void execute() throws Exception {
+        if (!input.isFile()) throw new Exception("Nie znaleziono pliku " + input);
+        if (delimiter == null) delimiter = CSVUtils.detectDelimiter(input);
+        if (outputDelimiter == null) outputDelimiter = delimiter;
+        if (stream || count) {
+            executeStreaming();
+            return;
+        }
+
+        CSVModel model = new CSVModel();
+        model.setColumnarStorage(input.length() >= CSVController.COLUMNAR_THRESHOLD);
+        model.setFilterThreads(threads);
+        boolean[] headerPending = {hasHeader};
+        CSVUtils.readCSV(input, delimiter, rows -> {
+            if (headerPending[0] && !rows.isEmpty()) {
+                model.setHeaders(Arrays.asList(rows.get(0)));
+                rows = rows.subList(1, rows.size());
+                headerPending[0] = false;
+            }
+            model.appendRows(rows);
+        });
+
+        for (Filter f : filters) {
+            model.setData(model.getRows(model.filter(f.word, columnIndex(model.getHeaders(), model.getColumnCount(), f.column), f.type.getLabel())));
+        }
+        if (where != null) {
+            model.setData(model.getRows(model.select(FilterExpression.parse(where, model.getHeaders()))));
+        }
+        if (sort != null) {
+            model.setData(model.getRows(model.sort(null, sortKeys(model.getHeaders(), model.getColumnCount()))));
+        }
+        // --select i --drop odnoszą się do kolumn pliku wejściowego, tak jak w trybie strumieniowym.
+        if (select != null || drop != null) {
+            BitSet kept = null;
+            if (select != null) {
+                kept = new BitSet();
+                for (String c : select) kept.set(columnIndex(model.getHeaders(), model.getColumnCount(), c));
+            }
+            BitSet removed = new BitSet();
+            if (drop != null) {
+                for (String c : drop) removed.set(columnIndex(model.getHeaders(), model.getColumnCount(), c));
+            }
+            for (int i = model.getColumnCount() - 1; i >= 0; i--) {
+                if (kept != null && !kept.get(i) || removed.get(i)) model.removeColumn(i);
+            }
+        }
+        CSVUtils.writeCSVAtomically(output, model.rowsForSaving(outputHeader), outputDelimiter);
+    }
+
+    /**
+     * Wykonuje potok rekord po rekordzie: czytnik, filtry, wybór kolumn i zapis.
+     * Pamięć zajmuje tylko bieżący rekord, niezależnie od rozmiaru pliku. Filtry porównują bajty pól
+     * bezpośrednio w buforze rekordu, więc ciągi znaków powstają tylko dla zapisywanych wierszy.
+     * Bez nagłówków kolumny wskazuje się numerami, a --select zachowuje dokładnie podane kolumny.
+     * Przy sortowaniu pasujące wiersze trafiają do sortowania zewnętrznego i są zapisywane po przeczytaniu pliku.
+     */
+    private void executeStreaming() throws Exception {
+        if (!CSVTokenizer.supports(delimiter)) throw new Exception("Tryb strumieniowy wymaga separatora ASCII");
+        if (tempDir != null && !tempDir.isDirectory()) throw new Exception("Nie znaleziono katalogu " + tempDir);
+        StreamState state = new StreamState();
+        if (!hasHeader) state.prepare(new ArrayList<>(), Integer.MAX_VALUE);
+        try (ExternalSort sorter = sort != null && output != null ? new ExternalSort(sortMemory, tempDir) : null) {
+            // Wynik trafia do pliku tymczasowego, więc --output może wskazywać plik wejściowy.
+            if (output != null) CSVUtils.writeCSVAtomically(output, outputDelimiter, writer -> stream(state, writer, sorter));
+            else stream(state, null, null);
+            if (count) out.println(state.matched);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Przepuszcza rekordy pliku wejściowego przez potok strumieniowy.
+     *
+     * @param writer zapis wyniku lub null, jeśli wiersze są tylko liczone
+     * @param sorter sortowanie zewnętrzne lub null
+     */
+    private void stream(StreamState state, CSVWriter writer, ExternalSort sorter) throws IOException {
+        CSVUtils.scanRecords(input, delimiter, record -> {
+            try {
+                if (state.filterColumns == null) {
+                    String[] header = record.toArray();
+                    state.prepare(Arrays.asList(header), header.length);
+                    if (writer != null && outputHeader) writer.writeRow(state.project(header));
+                } else if (state.accepts(record)) {
+                    String[] row = state.expression != null || writer != null ? record.toArray() : null;
+                    if (state.expression != null && !state.expression.matches(row)) return;
+                    state.matched++;
+                    if (sorter != null) sorter.add(state.encoder.apply(row), state.project(row));
+                    else if (writer != null) writer.writeRow(state.project(row));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (Exception e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        });
+        if (sorter != null) sorter.finish(writer::writeRow);
+    }
+
+    /**
+     * Indeksy kolumn rozwiązane dla potoku strumieniowego.
+     */
+    private class StreamState {
+        int[] filterColumns;
+        byte[][] words;
+        FilterExpression expression;
+        SortKeyEncoder encoder;
+        BitSet removed = new BitSet();
+        BitSet kept;
+        long matched;
+
+        /**
+         * Rozwiązuje nazwy kolumn na podstawie nagłówków.
+         */
+        void prepare(List<String> headers, int columnCount) throws Exception {
+            filterColumns = new int[filters.size()];
+            words = new byte[filters.size()][];
+            for (int i = 0; i < filters.size(); i++) {
+                filterColumns[i] = columnIndex(headers, columnCount, filters.get(i).column);
+                words[i] = filters.get(i).word.getBytes(StandardCharsets.UTF_8);
+            }
+            if (where != null) expression = FilterExpression.parse(where, headers);
+            if (sort != null) encoder = new SortKeyEncoder(sortKeys(headers, columnCount));
+            if (select != null) {
+                kept = new BitSet();
+                for (String c : select) kept.set(columnIndex(headers, columnCount, c));
+            }
+            if (drop != null) {
+                for (String c : drop) removed.set(columnIndex(headers, columnCount, c));
+            }
+        }
+
+        /**
+         * Sprawdza, czy rekord spełnia wszystkie filtry.
+         */
+        boolean accepts(CSVRecord record) {
+            for (int i = 0; i < filterColumns.length; i++) {
+                int col = filterColumns[i];
+                if (words[i].length == 0) continue;
+                if (col >= record.size() || !filters.get(i).type.matches(record, col, words[i])) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Zwraca wiersz ograniczony do wybranych kolumn.
+         */
+        String[] project(String[] row) {
+            if (kept == null && removed.isEmpty()) return row;
+            List<String> fields = new ArrayList<>(row.length);
+            for (int i = 0; i < row.length; i++) {
+                if ((kept == null || kept.get(i)) && !removed.get(i)) fields.add(row[i]);
+            }
+            return fields.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Zwraca indeks kolumny podanej nazwą nagłówka lub numerem od 1.
+     */
+    private static int columnIndex(List<String> headers, int columnCount, String column) throws Exception {
+        int index = headers.indexOf(column);
+        if (index >= 0) return index;
+        try {
+            index = Integer.parseInt(column.trim()) - 1;
+        } catch (NumberFormatException e) {
+            throw new Exception("Nieznana kolumna: " + column);
+        }
+        if (index < 0 || index >= columnCount) throw new Exception("Nieznana kolumna: " + column);
+        return index;
+    }
+
+    /**
+     * Rozwiązuje kolumny sortowania podane jako {@code <kol>} lub {@code <kol>:desc}.
+     */
+    private List<SortKey> sortKeys(List<String> headers, int columnCount) throws Exception {
+        List<SortKey> keys = new ArrayList<>();
+        for (String spec : sort) {
+            String column = spec;
+            boolean ascending = true;
+            int colon = spec.lastIndexOf(':');
+            if (colon >= 0) {
+                String direction = spec.substring(colon + 1).trim().toLowerCase();
+                if (direction.equals("asc") || direction.equals("desc")) {
+                    column = spec.substring(0, colon);
+                    ascending = direction.equals("asc");
+                }
+            }
+            keys.add(new SortKey(columnIndex(headers, columnCount, column), ascending));
+        }
+        return keys;
+    }
+
+    /**
+     * Rozbija opis filtra na kolumnę, typ filtra i słowo kluczowe.
+     */
+    private static Filter parseFilter(String spec) {
+        String[] parts = spec.split(":", 3);
+        if (parts.length < 3) throw new IllegalArgumentException("Filtr musi miec postac <kol>:<typ>:<slowo>");
+        FilterType type = FilterType.parse(parts[1]);
+        if (type == null) throw new IllegalArgumentException("Nieznany typ filtra: " + parts[1]);
+        return new Filter(parts[0], type, parts[2]);
+    }
+
+    /**
+     * Odczytuje liczbę wątków filtrowania.
+     */
+    private static int parseThreads(String value) {
+        int threads;
+        try {
+            threads = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Liczba watkow musi byc dodatnia: " + value);
+        }
+        if (threads < 1) throw new IllegalArgumentException("Liczba watkow musi byc dodatnia: " + value);
+        return threads;
+    }
+
+    /**
+     * Odczytuje limit pamięci sortowania podany w megabajtach.
+     */
+    private static long parseMemory(String value) {
+        long megabytes;
+        try {
+            megabytes = Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Limit pamieci musi byc dodatni: " + value);
+        }
+        if (megabytes < 1) throw new IllegalArgumentException("Limit pamieci musi byc dodatni: " + value);
+        return megabytes << 20;
+    }
+
+    /**
+     * Filtr podany w wierszu poleceń.
+     */
+    private record Filter(String column, FilterType type, String word) {
+    }
+
+    /**
+     * Zwraca wartość opcji lub zgłasza błąd, jeśli jej brakuje.
+     */
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) throw new IllegalArgumentException("Brak wartosci dla " + option);
+        return args[i];
+    }
+
+    /**
+     * Zamienia zapis \t na znak tabulacji.
+     */
+    private static String unescape(String delimiter) {
+        return "\\t".equals(delimiter) || "tab".equalsIgnoreCase(delimiter) ? "\t" : delimiter;
+    }
+}
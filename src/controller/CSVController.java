@@ -1,21 +1,39 @@
 package controller;
 
 import model.CSVModel;
-import util.CSVUtils;
+import model.FilterExpression;
+import model.SnapshotKey;
+import model.SortKey;
+import util.Compression;
 import view.MainFrame;
 import view.TablePanel;
 import javax.swing.*;
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 /**
  * Kontroler obsługujący operacje na plikach CSV.
  * Współpracuje z modelem i widokiem w celu zarządzania danymi CSV.
  */
 public class CSVController {
+    static final long COLUMNAR_THRESHOLD = 64L << 20;
+
     private CSVModel model;
     private TablePanel tablePanel;
     private MainFrame mainFrame;
+    private SwingWorker<Void, Void> loadWorker;
+    private boolean filtered;
+    private List<SortKey> sortKeys = List.of();
+    private FilterWorker filterWorker;
+    private SaveWorker saveWorker;
+    private final Deque<SaveWorker> pendingSaves = new ArrayDeque<>();
+    private final List<Runnable> afterSaving = new ArrayList<>();
+    private TextIndexWorker textIndexWorker;
+    private SortWorker sortWorker;
+    private int[] sortingRows;
+    private final SnapshotCache snapshots = SnapshotCache.defaultCache();
 
     /**
      * Konstruktor domyślny. Inicjalizuje model CSV.
@@ -31,6 +49,7 @@ public class CSVController {
      */
     public void setTablePanel(TablePanel panel) {
         tablePanel = panel;
+        tablePanel.updateTable(model);
     }
 
     /**
@@ -48,13 +67,15 @@ public class CSVController {
      * @param columns liczba kolumn dla nowego pliku CSV
      */
     public void createNewFile(int columns) {
+        cancelFilter();
+        sortKeys = List.of();
         List<String> headers = new ArrayList<>();
         for (int i = 0; i < columns; i++) {
             headers.add("Kolumna " + (i + 1));
         }
         model.setHeaders(headers);
         model.setData(new ArrayList<>());
-        tablePanel.updateTable(model.getData(), model.getHeaders());
+        showModel();
         updateStatus();
     }
 
@@ -64,8 +85,10 @@ public class CSVController {
      * @param name nazwa nowej kolumny
      */
     public void addColumn(String name) {
+        if (!checkEditable()) return;
+        cancelFilter();
         model.addColumn(name);
-        tablePanel.updateTable(model.getData(), model.getHeaders());
+        showModel();
         updateStatus();
     }
 
@@ -75,64 +98,326 @@ public class CSVController {
      * @param index indeks kolumny do usunięcia
      */
     public void removeColumn(int index) {
+        if (!checkEditable()) return;
+        cancelFilter();
         model.removeColumn(index);
-        tablePanel.updateTable(model.getData(), model.getHeaders());
+        List<SortKey> keys = new ArrayList<>();
+        for (SortKey key : sortKeys) {
+            if (key.column() < index) keys.add(key);
+            else if (key.column() > index) keys.add(new SortKey(key.column() - 1, key.ascending()));
+        }
+        boolean resort = filtered || keys.size() < sortKeys.size();
+        sortKeys = List.copyOf(keys);
+        if (resort) {
+            filtered = false;
+            display(null);
+        }
         updateStatus();
     }
 
     /**
-     * Wczytuje dane z pliku CSV.
+     * Wczytuje dane z pliku CSV w tle.
+     * Wiersze pojawiają się w tabeli w miarę wczytywania, a postęp jest pokazywany na pasku statusu.
+     * Duże pliki są wczytywane do kolumnowego magazynu danych, a po wczytaniu ich migawka jest zapisywana w tle;
+     * ponowne otwarcie niezmienionego pliku z tymi samymi opcjami mapuje migawkę zamiast parsować plik
+     * (patrz {@link SnapshotCache}).
+     * Po anulowaniu lub błędzie przywracane są poprzednie dane.
      *
-     * @param file      plik CSV do wczytania
-     * @param delimiter separator użyty w pliku CSV
-     * @param hasHeader określa, czy plik zawiera nagłówki
+     * @param file       plik CSV do wczytania
+     * @param delimiter  separator użyty w pliku CSV
+     * @param hasHeader  określa, czy plik zawiera nagłówki
+     * @param onFinished akcja wywoływana w wątku zdarzeń po zakończeniu wczytywania
      */
-    public void loadCSV(File file, String delimiter, boolean hasHeader) {
-        try {
-            if (file.length() == 0) throw new Exception("Plik jest pusty");
-            List<String[]> data = CSVUtils.readCSV(file, delimiter);
-            if (data.isEmpty()) throw new Exception("Brak danych w CSV");
-            if (hasHeader) model.setHeaders(Arrays.asList(data.remove(0)));
-            else model.setHeaders(new ArrayList<>());
-            model.setData(data);
-            tablePanel.updateTable(model.getData(), model.getHeaders());
+    public void loadCSV(File file, String delimiter, boolean hasHeader, Runnable onFinished) {
+        if (file.length() == 0) {
+            JOptionPane.showMessageDialog(null, "Blad ladowania CSV: Plik jest pusty");
+            return;
+        }
+        cancelLoad();
+        cancelFilter();
+        boolean large = file.length() >= COLUMNAR_THRESHOLD;
+        SnapshotKey key = SnapshotKey.of(file, delimiter, hasHeader);
+        CSVModel cached = large ? snapshots.load(key) : null;
+        if (cached != null) {
+            loadWorker = null;
+            if (mainFrame != null) mainFrame.hideLoadProgress();
+            model = cached;
+            filtered = false;
+            sortKeys = List.of();
+            tablePanel.updateTable(model);
             updateStatus();
-        } catch (Exception e) {
+            onFinished.run();
+            return;
+        }
+        CSVModel loaded = new CSVModel();
+        loaded.setColumnarStorage(large);
+        LoadListener listener = new LoadListener(model, loaded, file.length(), large ? key : null, onFinished);
+        loadWorker = new CSVLoadWorker(file, delimiter, hasHeader, loaded, listener);
+        listener.worker = loadWorker;
+        if (mainFrame != null) mainFrame.showLoadProgress(0, file.length(), 0);
+        loadWorker.execute();
+    }
+
+    /**
+     * Otwiera plik CSV w trybie indeksu, do przeglądania plików większych niż dostępna pamięć.
+     * W tle budowany jest indeks początków rekordów, a wiersze są parsowane dopiero wtedy,
+     * gdy pojawiają się w tabeli lub sięga po nie filtr (patrz {@link CSVModel#openIndexed}).
+     * Dane można filtrować, sortować i zapisywać, ale nie można ich zmieniać.
+     * Plik skompresowany jest wczytywany zwykłym trybem, ponieważ nie pozwala na odczyt od dowolnej pozycji.
+     *
+     * @param file       plik CSV do otwarcia
+     * @param delimiter  separator użyty w pliku CSV
+     * @param hasHeader  określa, czy plik zawiera nagłówki
+     * @param onFinished akcja wywoływana w wątku zdarzeń po zbudowaniu indeksu
+     */
+    public void openIndexed(File file, String delimiter, boolean hasHeader, Runnable onFinished) {
+        if (file.length() == 0) {
+            JOptionPane.showMessageDialog(null, "Blad ladowania CSV: Plik jest pusty");
+            return;
+        }
+        try {
+            if (Compression.detect(file) != Compression.NONE) {
+                loadCSV(file, delimiter, hasHeader, onFinished);
+                return;
+            }
+        } catch (IOException e) {
             JOptionPane.showMessageDialog(null, "Blad ladowania CSV: " + e.getMessage());
+            return;
         }
+        cancelLoad();
+        cancelFilter();
+        CSVModel loaded = new CSVModel();
+        long total = file.length();
+        LoadListener listener = new LoadListener(model, loaded, total, null, onFinished);
+        IndexWorker worker = new IndexWorker(file, delimiter, hasHeader, loaded, bytes -> {
+            if (loadWorker == listener.worker && mainFrame != null) mainFrame.showLoadProgress(bytes, total, -1);
+        }, listener);
+        loadWorker = worker;
+        listener.worker = worker;
+        if (mainFrame != null) mainFrame.showLoadProgress(0, total, -1);
+        worker.execute();
     }
 
     /**
-     * Zapisuje dane do pliku CSV.
+     * Anuluje trwające wczytywanie pliku, przywracając poprzednie dane.
+     */
+    public void cancelLoad() {
+        if (loadWorker != null) {
+            loadWorker.cancel(true);
+        }
+    }
+
+    /**
+     * Zapisuje dane do pliku CSV w tle.
+     * Zapisywana jest migawka danych z chwili wywołania, więc edycja może trwać podczas zapisu.
+     * Plik jest podmieniany dopiero po zapisaniu całej zawartości. Niezakończony zapis tego samego pliku
+     * jest przerywany, bo nowsza migawka go zastępuje, a zapis innego pliku czeka w kolejce na zakończenie bieżącego.
      *
-     * @param file         plik CSV do zapisu
-     * @param delimiter    separator do użycia w pliku CSV
+     * @param file          plik CSV do zapisu
+     * @param delimiter     separator do użycia w pliku CSV
      * @param includeHeader określa, czy zapisać nagłówki
      */
     public void saveCSV(File file, String delimiter, boolean includeHeader) {
         if (tablePanel != null) {
             tablePanel.stopEditing();
         }
+        SaveWorker save = new SaveWorker(model.snapshot(), file, delimiter, includeHeader, this::saveFinished);
+        pendingSaves.removeIf(pending -> pending.targets(file));
+        if (saveWorker != null && !saveWorker.isDone()) {
+            if (!saveWorker.targets(file)) {
+                pendingSaves.add(save);
+                updateStatus();
+                return;
+            }
+            saveWorker.cancel(true);
+        }
+        saveWorker = save;
+        saveWorker.execute();
+        updateStatus();
+    }
 
+    /**
+     * Rozpoczyna następny zapis z kolejki po zakończeniu bieżącego.
+     */
+    private void saveFinished() {
+        if ((saveWorker == null || saveWorker.isDone()) && !pendingSaves.isEmpty()) {
+            saveWorker = pendingSaves.poll();
+            saveWorker.execute();
+        }
         updateStatus();
-        try {
-            CSVUtils.writeCSV(file, model.getAllDataForSaving(includeHeader), delimiter);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(null, "Blad zapisu CSV: " + e.getMessage());
+        if (!isSaving() && !afterSaving.isEmpty()) {
+            List<Runnable> actions = new ArrayList<>(afterSaving);
+            afterSaving.clear();
+            actions.forEach(Runnable::run);
         }
     }
 
+    /**
+     * Wykonuje akcję w wątku zdarzeń po zakończeniu wszystkich zapisów, także oczekujących w kolejce,
+     * albo od razu, jeśli żaden zapis nie trwa. Pozwala np. zamknąć program bez przerywania zapisu
+     * i pozostawiania pliku tymczasowego obok pliku docelowego.
+     *
+     * @param action akcja do wykonania
+     */
+    public void whenSaved(Runnable action) {
+        if (isSaving()) afterSaving.add(action);
+        else action.run();
+    }
+
+    /**
+     * Sprawdza, czy trwa zapis pliku w tle.
+     *
+     * @return true, jeśli zapis nie został jeszcze zakończony lub czeka w kolejce
+     */
+    public boolean isSaving() {
+        return saveWorker != null && !saveWorker.isDone() || !pendingSaves.isEmpty();
+    }
+
+    /**
+     * Sprawdza, czy wyświetlany plik jest otwarty tylko do przeglądania (w trybie indeksu).
+     *
+     * @return true, jeśli danych nie można zmieniać
+     */
+    public boolean isReadOnly() {
+        return model.isReadOnly();
+    }
+
     /**
      * Filtruje dane w tabeli na podstawie podanych kryteriów.
      *
      * @param keyword słowo kluczowe do filtrowania
      * @param index   indeks kolumny do filtrowania
-     * @param type    typ filtra (np. "Zawiera", "Rozpoczyna sie")
+     * @param type    typ filtra (np. "Zawiera", "Rozpoczyna sie") lub {@link FilterExpression#LABEL},
+     *                gdy słowo kluczowe jest wyrażeniem obejmującym wiele kolumn
      */
     public void filterTable(String keyword, int index, String type) {
-        List<String[]> filtered = model.filter(keyword, index, type);
-        tablePanel.updateTable(filtered, model.getHeaders());
-        updateStatus();
+        cancelFilter();
+        int[] selection;
+        if (FilterExpression.LABEL.equals(type)) {
+            if (keyword == null || keyword.isBlank()) {
+                showAll();
+                return;
+            }
+            try {
+                selection = model.select(FilterExpression.parse(keyword, model.getHeaders()));
+            } catch (IllegalArgumentException e) {
+                JOptionPane.showMessageDialog(null, "Blad wyrazenia: " + e.getMessage());
+                return;
+            }
+        } else if (index < 0 || keyword == null || keyword.isEmpty()) {
+            showAll();
+            return;
+        } else {
+            selection = model.filter(keyword, index, type);
+        }
+        showFiltered(selection);
+    }
+
+    /**
+     * Filtruje dane w tle, np. podczas wpisywania słowa kluczowego.
+     * Trwające filtrowanie jest anulowane, a wynik pojawia się w tabeli po zakończeniu zadania.
+     * Słowo zawężające poprzednie (np. "abc" po "ab" dla "Zawiera") sprawdza tylko wiersze
+     * zapamiętanego w modelu poprzedniego wyniku. Niepełne wyrażenie jest pomijane bez komunikatu o błędzie.
+     *
+     * @param keyword słowo kluczowe do filtrowania
+     * @param index   indeks kolumny do filtrowania
+     * @param type    typ filtra lub {@link FilterExpression#LABEL}
+     */
+    public void filterTableInBackground(String keyword, int index, String type) {
+        cancelFilter();
+        if (FilterExpression.LABEL.equals(type)) {
+            if (keyword == null || keyword.isBlank()) {
+                showAll();
+                return;
+            }
+            FilterExpression expression;
+            try {
+                expression = FilterExpression.parse(keyword, model.getHeaders());
+            } catch (IllegalArgumentException e) {
+                return;
+            }
+            filterWorker = new FilterWorker(model, expression, this::showFiltered);
+        } else if (index < 0 || keyword == null || keyword.isEmpty()) {
+            showAll();
+            return;
+        } else {
+            filterWorker = new FilterWorker(model, keyword, index, type, this::showFiltered);
+        }
+        filterWorker.execute();
+    }
+
+    /**
+     * Sortuje wyświetlane wiersze według kolumn. Dane są sortowane w modelu w tle,
+     * a tabela odczytuje wiersze przez wynikową kolejność; wynik filtrowania pozostaje wyświetlony.
+     *
+     * @param keys klucze sortowania, od najważniejszego; pusta lista przywraca kolejność wierszy w pliku
+     */
+    public void sortTable(List<SortKey> keys) {
+        if (tablePanel == null) return;
+        tablePanel.stopEditing();
+        sortKeys = List.copyOf(keys);
+        int[] rows = null;
+        if (filtered) {
+            rows = tablePanel.getDisplayedRows();
+            Arrays.sort(rows);
+        }
+        display(rows);
+    }
+
+    /**
+     * Zwraca bieżące klucze sortowania.
+     *
+     * @return klucze sortowania, od najważniejszego
+     */
+    public List<SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    /**
+     * Anuluje filtrowanie trwające w tle. Wynik anulowanego zadania nie trafia do tabeli.
+     */
+    public void cancelFilter() {
+        if (filterWorker != null) {
+            filterWorker.cancel(false);
+            filterWorker = null;
+        }
+    }
+
+    /**
+     * Buduje lub usuwa indeks tekstu (trigramów) kolumny, przyspieszający filtry "Zawiera" i "Konczy sie".
+     * Indeks jest budowany w tle; po zbudowaniu pokazywana jest pamięć zajmowana przez indeksy tekstu
+     * i pozostałe indeksy kolumn.
+     *
+     * @param index indeks kolumny
+     */
+    public void toggleTextIndex(int index) {
+        if (index < 0 || !checkEditable()) return;
+        if (textIndexWorker != null) {
+            JOptionPane.showMessageDialog(null, "Trwa budowanie indeksu tekstu");
+        } else if (model.hasTextIndex(index)) {
+            model.dropTextIndex(index);
+            JOptionPane.showMessageDialog(null, "Usunieto indeks tekstu kolumny");
+        } else {
+            CSVModel indexed = model;
+            textIndexWorker = new TextIndexWorker(indexed, index, built -> textIndexBuilt(indexed, built));
+            textIndexWorker.execute();
+        }
+    }
+
+    /**
+     * Pokazuje wynik budowania indeksu tekstu, jeśli model nie został w międzyczasie zastąpiony.
+     */
+    private void textIndexBuilt(CSVModel indexed, Boolean built) {
+        textIndexWorker = null;
+        if (indexed != model || built == null) return;
+        long limit = model.getTextIndexLimit() >> 20;
+        if (built) {
+            long used = model.getTextIndexMemory() >> 20;
+            JOptionPane.showMessageDialog(null, "Zbudowano indeks tekstu kolumny. Pamiec indeksow tekstu: " + used + " MB (limit " + limit
+                    + " MB), pozostalych indeksow: " + (model.getIndexMemory() >> 20) + " MB (limit " + (model.getIndexLimit() >> 20) + " MB)");
+        } else {
+            JOptionPane.showMessageDialog(null, "Indeks tekstu przekroczylby limit pamieci (" + limit + " MB)");
+        }
     }
 
     /**
@@ -141,19 +426,25 @@ public class CSVController {
      * @param row dane wiersza do dodania
      */
     public void addRow(String[] row) {
+        if (!checkEditable()) return;
+        cancelFilter();
         model.addRow(row);
-        tablePanel.updateTable(model.getData(), model.getHeaders());
+        showModel();
         updateStatus();
     }
 
     /**
      * Usuwa wiersz o podanym indeksie.
+     * Wyświetlany wynik filtrowania jest zachowywany; usunięty wiersz znika z niego przez zdarzenie modelu.
      *
-     * @param index indeks wiersza do usunięcia
+     * @param index indeks wiersza modelu do usunięcia
      */
     public void deleteRow(int index) {
+        if (!checkEditable()) return;
+        cancelFilter();
         model.deleteRow(index);
-        tablePanel.updateTable(model.getData(), model.getHeaders());
+        // Trwające sortowanie wyniku filtrowania używa indeksów sprzed usunięcia, więc zaczyna się od nowa.
+        if (sortWorker != null && sortingRows != null) display(withoutRow(sortingRows, index));
         updateStatus();
     }
 
@@ -163,8 +454,11 @@ public class CSVController {
      * @param headers nowe nagłówki kolumn
      */
     public void updateHeaders(List<String> headers) {
+        cancelFilter();
         model.setHeaders(headers);
-        tablePanel.updateTable(model.getData(), model.getHeaders());
+        // Zmiana nagłówków przywraca w tabeli wszystkie wiersze w kolejności modelu.
+        filtered = false;
+        display(null);
         updateStatus();
     }
 
@@ -176,6 +470,8 @@ public class CSVController {
      * @param val nowa wartość komórki
      */
     public void updateCell(int row, int col, String val) {
+        if (!checkEditable()) return;
+        cancelFilter();
         try {
             model.updateCell(row, col, val);
         } catch (Exception e) {
@@ -210,6 +506,157 @@ public class CSVController {
         return model.getRowCount();
     }
 
+    /**
+     * Odbiorca zdarzeń wczytywania, który podmienia model wyświetlany w tabeli.
+     */
+    private class LoadListener implements CSVLoadWorker.Listener {
+        private final CSVModel previous;
+        private final CSVModel loaded;
+        private final long totalBytes;
+        private final SnapshotKey snapshotKey;
+        private final Runnable onFinished;
+        private SwingWorker<Void, Void> worker;
+
+        LoadListener(CSVModel previous, CSVModel loaded, long totalBytes, SnapshotKey snapshotKey,
+                     Runnable onFinished) {
+            this.previous = previous;
+            this.loaded = loaded;
+            this.totalBytes = totalBytes;
+            this.snapshotKey = snapshotKey;
+            this.onFinished = onFinished;
+        }
+
+        @Override
+        public void rowsLoaded(int first, int last, long bytesRead) {
+            if (loadWorker != worker) return;
+            cancelFilter();
+            if (model != loaded) {
+                model = loaded;
+                filtered = false;
+                sortKeys = List.of();
+                tablePanel.updateTable(model);
+            }
+            if (mainFrame != null) mainFrame.showLoadProgress(bytesRead, totalBytes, model.getRowCount());
+            updateStatus();
+        }
+
+        @Override
+        public void loadFinished(Exception error) {
+            if (loadWorker != worker) return;
+            loadWorker = null;
+            cancelFilter();
+            if (mainFrame != null) mainFrame.hideLoadProgress();
+            if (error != null) {
+                model = previous;
+                filtered = false;
+                sortKeys = List.of();
+                tablePanel.updateTable(model);
+                if (!(error instanceof CancellationException)) {
+                    JOptionPane.showMessageDialog(null, "Blad ladowania CSV: " + error.getMessage());
+                }
+            } else {
+                if (model != loaded) {
+                    model = loaded;
+                    filtered = false;
+                    sortKeys = List.of();
+                    tablePanel.updateTable(model);
+                }
+                if (snapshotKey != null) snapshots.store(loaded.snapshot(), snapshotKey);
+            }
+            updateStatus();
+            onFinished.run();
+        }
+    }
+
+    /**
+     * Sprawdza, czy dane można zmieniać. Dla pliku otwartego w trybie indeksu pokazuje komunikat.
+     *
+     * @return false, jeśli model jest tylko do odczytu
+     */
+    private boolean checkEditable() {
+        if (!model.isReadOnly()) return true;
+        JOptionPane.showMessageDialog(null, "Plik jest otwarty tylko do przegladania");
+        return false;
+    }
+
+    /**
+     * Przywraca w tabeli wszystkie dane modelu, jeśli wyświetlany jest wynik filtrowania.
+     * Gdy tabela pokazuje już model, zmiany docierają do niej przez zdarzenia modelu;
+     * nowe wiersze posortowanej tabeli trafiają na jej koniec.
+     */
+    private void showModel() {
+        if (filtered) {
+            filtered = false;
+            display(null);
+        }
+    }
+
+    /**
+     * Wyświetla w tabeli wynik filtrowania.
+     */
+    private void showFiltered(int[] selection) {
+        filterWorker = null;
+        filtered = true;
+        display(selection);
+        updateStatus();
+    }
+
+    /**
+     * Wyświetla w tabeli wszystkie dane modelu po filtrowaniu z pustym słowem kluczowym.
+     */
+    private void showAll() {
+        filtered = false;
+        display(null);
+        updateStatus();
+    }
+
+    /**
+     * Wyświetla wiersze w kolejności bieżących kluczy sortowania.
+     * Sortowanie działa w tle, a tabela jest aktualizowana po jego zakończeniu, jeśli w międzyczasie
+     * nie zmienił się model ani klucze sortowania; poprzednie sortowanie jest anulowane.
+     *
+     * @param rows rosnące indeksy wierszy wyniku filtrowania lub null dla wszystkich wierszy
+     */
+    private void display(int[] rows) {
+        if (sortWorker != null) {
+            sortWorker.cancel(false);
+            sortWorker = null;
+        }
+        if (sortKeys.isEmpty()) {
+            if (rows == null) tablePanel.updateTable(model);
+            else tablePanel.updateTable(model, rows);
+            return;
+        }
+        CSVModel sorted = model;
+        List<SortKey> keys = sortKeys;
+        sortingRows = rows;
+        sortWorker = new SortWorker(sorted, rows, keys, order -> {
+            sortWorker = null;
+            if (sorted != model || keys != sortKeys) return;
+            if (rows == null) tablePanel.updateTableOrder(model, order);
+            else tablePanel.updateTable(model, order);
+            updateStatus();
+        }, () -> {
+            sortWorker = null;
+            // Dane zmieniły się w trakcie sortowania, więc te same wiersze są sortowane od nowa.
+            if (sorted == model && keys == sortKeys) display(rows);
+        });
+        sortWorker.execute();
+    }
+
+    /**
+     * Usuwa wiersz z rosnących indeksów wierszy i przesuwa indeksy dalszych wierszy, tak jak usunięcie wiersza z modelu.
+     */
+    private static int[] withoutRow(int[] rows, int index) {
+        int[] kept = new int[rows.length];
+        int n = 0;
+        for (int row : rows) {
+            if (row < index) kept[n++] = row;
+            else if (row > index) kept[n++] = row - 1;
+        }
+        return Arrays.copyOf(kept, n);
+    }
+
     /**
      * Aktualizuje status aplikacji, np. liczbę rekordów.
      */
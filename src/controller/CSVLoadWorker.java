@@ -0,0 +1,121 @@
+package controller;
+
+import model.CSVModel;
+import util.CSVUtils;
+
+import javax.swing.*;
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Zadanie wczytujące plik CSV w tle.
+ * Parsowanie odbywa się poza wątkiem zdarzeń Swing, a kolejne porcje wierszy
+ * są dołączane do modelu w wątku zdarzeń, więc pierwsze wiersze są widoczne przed końcem wczytywania.
+ * Porcje są przekazywane przez {@link SwingUtilities#invokeLater}, dzięki czemu wszystkie trafiają
+ * do modelu przed wywołaniem {@link #done()}. W kolejce wątku zdarzeń czeka najwyżej kilka porcji:
+ * parsowanie wstrzymuje się, dopóki wątek zdarzeń ich nie dołączy, więc sparsowane wiersze nie gromadzą się
+ * w pamięci obok modelu.
+ */
+class CSVLoadWorker extends SwingWorker<Void, Void> {
+    private static final int MAX_PENDING_BATCHES = 4;
+
+    private final File file;
+    private final String delimiter;
+    private final CSVModel model;
+    private final Listener listener;
+    private final Semaphore pending = new Semaphore(MAX_PENDING_BATCHES);
+    private volatile long bytesRead;
+    private boolean headerPending;
+    private int rowsLoaded;
+
+    /**
+     * Odbiorca zdarzeń wczytywania wywoływany w wątku zdarzeń Swing.
+     */
+    interface Listener {
+        /**
+         * Wywoływana po dołączeniu porcji wierszy do modelu.
+         *
+         * @param first     indeks pierwszego dołączonego wiersza
+         * @param last      indeks ostatniego dołączonego wiersza
+         * @param bytesRead liczba przetworzonych bajtów pliku
+         */
+        void rowsLoaded(int first, int last, long bytesRead);
+
+        /**
+         * Wywoływana po zakończeniu, anulowaniu lub błędzie wczytywania.
+         *
+         * @param error błąd wczytywania lub null
+         */
+        void loadFinished(Exception error);
+    }
+
+    /**
+     * Konstruktor zadania.
+     *
+     * @param file      plik CSV do wczytania
+     * @param delimiter separator użyty w pliku CSV
+     * @param hasHeader określa, czy pierwszy wiersz zawiera nagłówki
+     * @param model     pusty model, do którego trafiają wiersze
+     * @param listener  odbiorca zdarzeń wczytywania
+     */
+    CSVLoadWorker(File file, String delimiter, boolean hasHeader, CSVModel model, Listener listener) {
+        this.file = file;
+        this.delimiter = delimiter;
+        this.headerPending = hasHeader;
+        this.model = model;
+        this.listener = listener;
+    }
+
+    @Override
+    protected Void doInBackground() throws Exception {
+        CSVUtils.readCSV(file, delimiter, rows -> {
+            if (isCancelled()) throw new CancellationException();
+            try {
+                pending.acquire();
+            } catch (InterruptedException e) {
+                throw new CancellationException();
+            }
+            SwingUtilities.invokeLater(() -> {
+                try {
+                    append(rows);
+                } finally {
+                    pending.release();
+                }
+            });
+        }, bytes -> bytesRead = bytes);
+        return null;
+    }
+
+    /**
+     * Dołącza porcję wierszy do modelu. Wywoływana w wątku zdarzeń Swing.
+     */
+    private void append(List<String[]> rows) {
+        if (isCancelled()) return;
+        if (headerPending && !rows.isEmpty()) {
+            model.setHeaders(Arrays.asList(rows.get(0)));
+            rows = rows.subList(1, rows.size());
+            headerPending = false;
+        }
+        int first = model.getRowCount();
+        model.appendRows(rows);
+        rowsLoaded += rows.size();
+        listener.rowsLoaded(first, model.getRowCount() - 1, bytesRead);
+    }
+
+    @Override
+    protected void done() {
+        Exception error = null;
+        try {
+            get();
+            if (rowsLoaded == 0 && !model.hasHeader()) error = new Exception("Brak danych w CSV");
+        } catch (CancellationException e) {
+            error = e;
+        } catch (Exception e) {
+            error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+        listener.loadFinished(error);
+    }
+}
@@ -0,0 +1,84 @@
+package controller;
+
+import model.CSVModel;
+import model.FilterExpression;
+
+import javax.swing.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Zadanie filtrujące dane w tle podczas wpisywania słowa kluczowego.
+ * Wiersze są sprawdzane poza wątkiem zdarzeń Swing, a wynik jest przekazywany
+ * w wątku zdarzeń tylko wtedy, gdy zadanie nie zostało w międzyczasie anulowane.
+ * W danej chwili filtruje najwyżej jedno zadanie, więc anulowane zadania nie konkurują z bieżącym.
+ * Zmiana danych modelu przerywa trwające zadanie (patrz {@link CSVModel}); jego wynik i tak byłby nieaktualny,
+ * więc przerwanie nie jest zgłaszane jako błąd.
+ */
+class FilterWorker extends SwingWorker<int[], Void> {
+    private static final Object LOCK = new Object();
+
+    private final CSVModel model;
+    private final String keyword;
+    private final int index;
+    private final String type;
+    private final FilterExpression expression;
+    private final Consumer<int[]> onResult;
+
+    /**
+     * Konstruktor zadania filtrującego jedną kolumnę.
+     *
+     * @param model    filtrowany model
+     * @param keyword  słowo kluczowe
+     * @param index    indeks kolumny
+     * @param type     typ filtra (np. "Zawiera")
+     * @param onResult odbiorca wyniku wywoływany w wątku zdarzeń
+     */
+    FilterWorker(CSVModel model, String keyword, int index, String type, Consumer<int[]> onResult) {
+        this.model = model;
+        this.keyword = keyword;
+        this.index = index;
+        this.type = type;
+        this.expression = null;
+        this.onResult = onResult;
+    }
+
+    /**
+     * Konstruktor zadania wybierającego wiersze spełniające wyrażenie.
+     *
+     * @param model      filtrowany model
+     * @param expression skompilowane wyrażenie
+     * @param onResult   odbiorca wyniku wywoływany w wątku zdarzeń
+     */
+    FilterWorker(CSVModel model, FilterExpression expression, Consumer<int[]> onResult) {
+        this.model = model;
+        this.keyword = null;
+        this.index = -1;
+        this.type = null;
+        this.expression = expression;
+        this.onResult = onResult;
+    }
+
+    @Override
+    protected int[] doInBackground() {
+        synchronized (LOCK) {
+            if (isCancelled()) throw new CancellationException();
+            if (expression != null) return model.select(expression, this::isCancelled);
+            return model.filter(keyword, index, type, this::isCancelled);
+        }
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled()) return;
+        try {
+            onResult.accept(get());
+        } catch (CancellationException | InterruptedException ignored) {
+            // Wynik zastąpiło nowsze zapytanie.
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException) return;
+            JOptionPane.showMessageDialog(null, "Blad filtrowania: " + e.getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package controller;
+
+import model.CSVModel;
+
+import javax.swing.*;
+import java.io.File;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
+
+/**
+ * Zadanie otwierające plik CSV w trybie indeksu w tle (patrz {@link CSVModel#openIndexed}).
+ * Model trafia do tabeli dopiero po zbudowaniu indeksu, więc w trakcie skanowania pokazywany jest tylko postęp.
+ */
+class IndexWorker extends SwingWorker<Void, Void> {
+    private final File file;
+    private final String delimiter;
+    private final boolean hasHeader;
+    private final CSVModel model;
+    private final LongConsumer progress;
+    private final CSVLoadWorker.Listener listener;
+    private final AtomicBoolean progressPending = new AtomicBoolean();
+    private volatile long bytesRead;
+
+    /**
+     * Konstruktor zadania.
+     *
+     * @param file      plik CSV do otwarcia
+     * @param delimiter separator użyty w pliku CSV
+     * @param hasHeader określa, czy pierwszy wiersz zawiera nagłówki
+     * @param model     pusty model, który otrzyma dane pliku
+     * @param progress  odbiorca liczby przeskanowanych bajtów, wywoływany w wątku zdarzeń
+     * @param listener  odbiorca zakończenia, wywoływany w wątku zdarzeń
+     */
+    IndexWorker(File file, String delimiter, boolean hasHeader, CSVModel model, LongConsumer progress,
+                CSVLoadWorker.Listener listener) {
+        this.file = file;
+        this.delimiter = delimiter;
+        this.hasHeader = hasHeader;
+        this.model = model;
+        this.progress = progress;
+        this.listener = listener;
+    }
+
+    @Override
+    protected Void doInBackground() throws Exception {
+        model.openIndexed(file, delimiter, hasHeader, this::scanned, this::isCancelled);
+        return null;
+    }
+
+    /**
+     * Przekazuje postęp do wątku zdarzeń, nie kolejkując kolejnego powiadomienia przed obsłużeniem poprzedniego.
+     */
+    private void scanned(long bytes) {
+        bytesRead = bytes;
+        if (progressPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                progressPending.set(false);
+                if (!isDone()) progress.accept(bytesRead);
+            });
+        }
+    }
+
+    @Override
+    protected void done() {
+        Exception error = null;
+        try {
+            get();
+            if (model.getRowCount() == 0 && !model.hasHeader()) error = new Exception("Brak danych w CSV");
+        } catch (CancellationException e) {
+            error = e;
+        } catch (Exception e) {
+            error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+        listener.loadFinished(error);
+    }
+}
@@ -0,0 +1,68 @@
+package controller;
+
+import model.CSVModel;
+import util.CSVUtils;
+
+import javax.swing.*;
+import java.io.File;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Zadanie zapisujące plik CSV w tle.
+ * Zapis korzysta z migawki modelu, więc dane można edytować w trakcie zapisu, a plik zawiera stan z chwili jego rozpoczęcia.
+ * Plik jest zastępowany dopiero po zapisaniu całej nowej zawartości, więc przerwany zapis nie uszkadza poprzedniej wersji.
+ * Zadanie jest anulowane tylko wtedy, gdy nowszy zapis tego samego pliku czyni je zbędnym.
+ */
+class SaveWorker extends SwingWorker<Void, Void> {
+    private final CSVModel snapshot;
+    private final File file;
+    private final String delimiter;
+    private final boolean includeHeader;
+    private final Runnable onFinished;
+
+    /**
+     * Konstruktor zadania.
+     *
+     * @param snapshot      migawka zapisywanego modelu
+     * @param file          plik CSV do zapisu
+     * @param delimiter     separator do użycia w pliku CSV
+     * @param includeHeader określa, czy zapisać nagłówki
+     * @param onFinished    akcja wywoływana w wątku zdarzeń po zakończeniu zapisu
+     */
+    SaveWorker(CSVModel snapshot, File file, String delimiter, boolean includeHeader, Runnable onFinished) {
+        this.snapshot = snapshot;
+        this.file = file;
+        this.delimiter = delimiter;
+        this.includeHeader = includeHeader;
+        this.onFinished = onFinished;
+    }
+
+    @Override
+    protected Void doInBackground() throws Exception {
+        CSVUtils.writeCSVAtomically(file, snapshot.rowsForSaving(includeHeader), delimiter);
+        return null;
+    }
+
+    /**
+     * Sprawdza, czy zadanie zapisuje podany plik.
+     *
+     * @param other plik do porównania
+     * @return true, jeśli ścieżki wskazują ten sam plik
+     */
+    boolean targets(File other) {
+        return file.getAbsoluteFile().toPath().normalize().equals(other.getAbsoluteFile().toPath().normalize());
+    }
+
+    @Override
+    protected void done() {
+        try {
+            get();
+        } catch (CancellationException | InterruptedException ignored) {
+            // Zadanie zastąpił nowszy zapis tego samego pliku, więc poprzednia wersja pliku pozostaje do jego zakończenia.
+        } catch (ExecutionException e) {
+            JOptionPane.showMessageDialog(null, "Blad zapisu CSV: " + e.getCause().getMessage());
+        }
+        onFinished.run();
+    }
+}
@@ -0,0 +1,159 @@
+package controller;
+
+import model.CSVModel;
+import model.SnapshotKey;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Katalog migawek wczytanych plików CSV (patrz {@link CSVModel#writeSnapshot(File, SnapshotKey)}).
+ * Migawka dużego pliku jest zapisywana w tle po jego wczytaniu, a ponowne otwarcie niezmienionego pliku
+ * mapuje migawkę zamiast parsować CSV. Migawka zmienionego pliku jest ignorowana i zastępowana przy następnym
+ * wczytaniu. Nowa migawka jest zapisywana do pliku tymczasowego i podmieniana, więc plik używany przez otwarty
+ * model nigdy nie jest zmieniany.
+ * Łączny rozmiar migawek jest ograniczony: po zapisie nowej migawki usuwane są najdawniej używane,
+ * a otwarcie migawki odnawia jej czas modyfikacji, który służy jako czas ostatniego użycia.
+ */
+class SnapshotCache {
+    /** Domyślny limit łącznego rozmiaru migawek w bajtach. */
+    static final long DEFAULT_LIMIT = 4L << 30;
+    /** Wiek, po którym plik tymczasowy przerwanego zapisu jest uznawany za porzucony. */
+    private static final long STALE_TEMP_AGE = 24L * 60 * 60 * 1000;
+
+    private final File directory;
+    private final long limit;
+
+    /**
+     * Konstruktor katalogu migawek z domyślnym limitem rozmiaru.
+     *
+     * @param directory katalog na pliki migawek; tworzony przy pierwszym zapisie
+     */
+    SnapshotCache(File directory) {
+        this(directory, DEFAULT_LIMIT);
+    }
+
+    /**
+     * Konstruktor katalogu migawek.
+     *
+     * @param directory katalog na pliki migawek; tworzony przy pierwszym zapisie
+     * @param limit     limit łącznego rozmiaru migawek w bajtach; najnowsza migawka jest zachowywana nawet ponad limit
+     */
+    SnapshotCache(File directory, long limit) {
+        this.directory = directory;
+        this.limit = limit;
+    }
+
+    /**
+     * Zwraca domyślny katalog migawek w katalogu domowym użytkownika.
+     *
+     * @return katalog migawek
+     */
+    static SnapshotCache defaultCache() {
+        return new SnapshotCache(new File(System.getProperty("user.home"), ".csv-data-wrangler/snapshots"));
+    }
+
+    /**
+     * Otwiera migawkę pliku, jeśli istnieje i odpowiada jego bieżącemu stanowi.
+     * Uszkodzona migawka jest usuwana.
+     *
+     * @param key opis pliku CSV i opcji wczytywania
+     * @return model z danymi migawki lub null
+     */
+    CSVModel load(SnapshotKey key) {
+        File file = fileFor(key);
+        if (!file.isFile()) return null;
+        try {
+            CSVModel model = CSVModel.readSnapshot(file, key);
+            if (model != null) file.setLastModified(System.currentTimeMillis());
+            return model;
+        } catch (IOException | RuntimeException e) {
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Zapisuje migawkę w wątku w tle. Błąd zapisu jest pomijany: plik zostanie po prostu sparsowany ponownie.
+     *
+     * @param snapshot migawka modelu (patrz {@link CSVModel#snapshot()})
+     * @param key      opis pliku CSV i opcji wczytywania z chwili rozpoczęcia wczytywania
+     */
+    void store(CSVModel snapshot, SnapshotKey key) {
+        Thread thread = new Thread(() -> write(snapshot, key), "csv-snapshot");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Zapisuje migawkę do pliku tymczasowego i podmienia nim poprzednią migawkę.
+     */
+    private void write(CSVModel snapshot, SnapshotKey key) {
+        File target = fileFor(key);
+        File temp = null;
+        try {
+            Files.createDirectories(directory.toPath());
+            temp = File.createTempFile("." + target.getName() + ".", ".tmp", directory);
+            snapshot.writeSnapshot(temp, key);
+            try {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (temp != null) temp.delete();
+            return;
+        }
+        prune(target);
+    }
+
+    /**
+     * Usuwa najdawniej używane migawki, aż ich łączny rozmiar zmieści się w limicie, oraz porzucone pliki tymczasowe.
+     * Migawka otwartego modelu może zostać usunięta: systemy, które na to pozwalają, zachowują jej zmapowaną zawartość,
+     * a na pozostałych usunięcie się nie udaje i plik czeka do następnego zapisu.
+     *
+     * @param keep migawka, której nie wolno usunąć
+     */
+    void prune(File keep) {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        long now = System.currentTimeMillis();
+        List<File> snapshots = new ArrayList<>();
+        for (File file : files) {
+            if (file.getName().endsWith(".snap")) snapshots.add(file);
+            else if (file.getName().endsWith(".tmp") && now - file.lastModified() > STALE_TEMP_AGE) file.delete();
+        }
+        snapshots.sort(Comparator.comparingLong(File::lastModified).reversed());
+        long total = keep.length();
+        for (File file : snapshots) {
+            if (file.equals(keep)) continue;
+            long size = file.length();
+            total += size;
+            if (total > limit && file.delete()) total -= size;
+        }
+    }
+
+    /**
+     * Zwraca plik migawki dla ścieżki pliku CSV: nazwą jest skrót ścieżki.
+     */
+    private File fileFor(SnapshotKey key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(key.path().getBytes(StandardCharsets.UTF_8));
+            return new File(directory, HexFormat.of().formatHex(hash, 0, 16) + ".snap");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
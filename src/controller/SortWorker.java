@@ -0,0 +1,62 @@
+package controller;
+
+import model.CSVModel;
+import model.SortKey;
+
+import javax.swing.*;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Zadanie sortujące wyświetlane wiersze w tle (patrz {@link CSVModel#sort(int[], List, java.util.function.BooleanSupplier)}).
+ * Wynik jest przekazywany w wątku zdarzeń tylko wtedy, gdy zadanie nie zostało w międzyczasie anulowane.
+ * Zmiana danych przerywa sortowanie, bo jego wynik byłby nieaktualny; zadanie zgłasza wtedy przerwanie
+ * zamiast wyniku, żeby można było posortować dane ponownie.
+ */
+class SortWorker extends SwingWorker<int[], Void> {
+    private final CSVModel model;
+    private final int[] rows;
+    private final List<SortKey> keys;
+    private final Consumer<int[]> onResult;
+    private final Runnable onInterrupted;
+
+    /**
+     * Konstruktor zadania.
+     *
+     * @param model         sortowany model
+     * @param rows          indeksy sortowanych wierszy lub null, aby posortować wszystkie wiersze
+     * @param keys          klucze sortowania, od najważniejszego
+     * @param onResult      odbiorca indeksów wierszy w nowej kolejności, wywoływany w wątku zdarzeń
+     * @param onInterrupted akcja wywoływana w wątku zdarzeń, gdy sortowanie przerwała zmiana danych
+     */
+    SortWorker(CSVModel model, int[] rows, List<SortKey> keys, Consumer<int[]> onResult, Runnable onInterrupted) {
+        this.model = model;
+        this.rows = rows;
+        this.keys = keys;
+        this.onResult = onResult;
+        this.onInterrupted = onInterrupted;
+    }
+
+    @Override
+    protected int[] doInBackground() {
+        return model.sort(rows, keys, this::isCancelled);
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled()) return;
+        try {
+            onResult.accept(get());
+        } catch (CancellationException | InterruptedException ignored) {
+            // Wynik zastąpiło nowsze sortowanie.
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException) {
+                onInterrupted.run();
+            } else {
+                JOptionPane.showMessageDialog(null, "Blad sortowania: " + e.getCause().getMessage());
+            }
+        }
+    }
+}
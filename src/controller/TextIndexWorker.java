@@ -0,0 +1,54 @@
+package controller;
+
+import model.CSVModel;
+
+import javax.swing.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Zadanie budujące w tle indeks trigramów kolumny (patrz {@link CSVModel#createTextIndex(int, java.util.function.BooleanSupplier)}).
+ * Tabela działa w trakcie budowy, a zmiana danych przerywa budowę, bo indeks opisywałby nieaktualne dane.
+ */
+class TextIndexWorker extends SwingWorker<Boolean, Void> {
+    private final CSVModel model;
+    private final int col;
+    private final Consumer<Boolean> onFinished;
+
+    /**
+     * Konstruktor zadania.
+     *
+     * @param model      model, którego kolumna jest indeksowana
+     * @param col        indeks kolumny
+     * @param onFinished odbiorca wyniku wywoływany w wątku zdarzeń: true po zbudowaniu indeksu, false po przekroczeniu
+     *                   limitu pamięci, null po przerwaniu lub błędzie (zgłoszonym już komunikatem)
+     */
+    TextIndexWorker(CSVModel model, int col, Consumer<Boolean> onFinished) {
+        this.model = model;
+        this.col = col;
+        this.onFinished = onFinished;
+    }
+
+    @Override
+    protected Boolean doInBackground() {
+        return model.createTextIndex(col, this::isCancelled);
+    }
+
+    @Override
+    protected void done() {
+        Boolean built = null;
+        try {
+            built = get();
+        } catch (CancellationException | InterruptedException ignored) {
+            // Budowę anulowano, bo indeks nie jest już potrzebny.
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException) {
+                JOptionPane.showMessageDialog(null, "Zmiana danych przerwala budowanie indeksu tekstu");
+            } else {
+                JOptionPane.showMessageDialog(null, "Blad budowania indeksu tekstu: " + e.getCause().getMessage());
+            }
+        }
+        onFinished.accept(built);
+    }
+}
@@ -1,15 +1,53 @@
 package model;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
 
 /**
  * Model reprezentujący dane CSV.
  * Przechowuje dane i nagłówki pliku CSV.
+ * Filtrowanie z możliwością anulowania może działać poza wątkiem zdarzeń. Odczyt danych, nagłówków i indeksów kolumn
+ * odbywa się wtedy pod blokadą modelu, a każda zmiana danych lub nagłówków najpierw przerywa trwający odczyt
+ * (przy najbliższym sprawdzeniu anulowania) i czeka na jego zakończenie, więc filtr w tle nigdy nie widzi
+ * danych w trakcie zmiany ani nie zapisuje indeksu zbudowanego z nieaktualnych danych.
  */
 public class CSVModel {
-    private List<String[]> data = new ArrayList<>();
+    private static final BooleanSupplier NEVER_CANCELLED = () -> false;
+
+    private RowStore data = new ListRowStore();
     private List<String> headers = new ArrayList<>();
     private boolean hasHeader = false;
+    private boolean columnar = false;
+    private boolean indexing = true;
+    private final ColumnIndexes indexes = new ColumnIndexes();
+    private final ParallelFilter parallelFilter = new ParallelFilter();
+    private final FilterCache filterCache = new FilterCache();
+    private final List<CSVModelListener> listeners = new ArrayList<>();
+    private final ReentrantLock access = new ReentrantLock();
+    private final AtomicLong changes = new AtomicLong();
+
+    /**
+     * Rejestruje odbiorcę zmian w modelu.
+     *
+     * @param listener odbiorca zmian
+     */
+    public void addModelListener(CSVModelListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Wyrejestrowuje odbiorcę zmian w modelu.
+     *
+     * @param listener odbiorca zmian
+     */
+    public void removeModelListener(CSVModelListener listener) {
+        listeners.remove(listener);
+    }
 
     /**
      * Ustawia dane modelu CSV.
@@ -17,7 +55,303 @@ public class CSVModel {
      * @param newData nowe dane do ustawienia
      */
     public void setData(List<String[]> newData) {
-        data = newData;
+        RowStore store = columnar ? ColumnarRowStore.of(newData) : new ListRowStore(newData);
+        change(() -> {
+            data = store;
+            indexes.clear();
+            filterCache.clear();
+        });
+        for (CSVModelListener l : listeners) l.structureChanged();
+    }
+
+    /**
+     * Otwiera plik CSV w trybie indeksu, do przeglądania plików większych niż dostępna pamięć.
+     * Jeden przebieg przez plik buduje rzadki indeks początków rekordów, a wiersze są parsowane dopiero wtedy,
+     * gdy sięga po nie tabela, filtr lub zapis (patrz {@link IndexedRowStore}). Dane są tylko do odczytu
+     * (patrz {@link #isReadOnly()}), a indeksy kolumn nie są budowane. Nowe dane ustawione przez
+     * {@link #setData(List)} kończą tryb indeksu.
+     *
+     * @param file      plik CSV bez kompresji
+     * @param delimiter separator użyty w pliku (pierwszy znak, musi być znakiem ASCII)
+     * @param hasHeader określa, czy pierwszy rekord jest nagłówkiem
+     * @param progress  odbiorca liczby przeskanowanych bajtów
+     * @param cancelled warunek przerwania budowania indeksu
+     * @throws IOException jeśli wystąpi błąd I/O
+     * @throws java.util.concurrent.CancellationException jeśli budowanie indeksu zostało przerwane
+     */
+    public void openIndexed(File file, String delimiter, boolean hasHeader, LongConsumer progress,
+                            BooleanSupplier cancelled) throws IOException {
+        IndexedRowStore store = IndexedRowStore.open(file, delimiter, hasHeader, progress, cancelled);
+        String[] header = store.header();
+        List<String> names = header == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(header));
+        change(() -> {
+            data = store;
+            headers = names;
+            this.hasHeader = !names.isEmpty();
+            indexes.clear();
+            filterCache.clear();
+        });
+        for (CSVModelListener l : listeners) l.structureChanged();
+    }
+
+    /**
+     * Sprawdza, czy dane są tylko do odczytu, bo plik jest otwarty w trybie indeksu.
+     *
+     * @return true, jeśli dane nie mogą być zmieniane
+     */
+    public boolean isReadOnly() {
+        return data instanceof IndexedRowStore;
+    }
+
+    /**
+     * Dołącza wiersze na końcu danych modelu.
+     *
+     * @param rows wiersze do dołączenia
+     */
+    public void appendRows(List<String[]> rows) {
+        if (rows.isEmpty()) return;
+        int first = data.size();
+        change(() -> {
+            indexes.clear();
+            filterCache.clear();
+            for (String[] row : rows) {
+                data.add(row);
+            }
+        });
+        fireRowsInserted(first, data.size() - 1);
+    }
+
+    /**
+     * Włącza lub wyłącza kolumnowy magazyn danych kodowany słownikowo.
+     * Bieżące dane są przenoszone do nowego magazynu.
+     *
+     * @param enabled true, aby przechowywać dane kolumnowo
+     */
+    public void setColumnarStorage(boolean enabled) {
+        if (enabled == columnar) return;
+        columnar = enabled;
+        setData(getData());
+    }
+
+    /**
+     * Włącza lub wyłącza indeksy kolumn używane przez filtry "Rowna sie" i "Rozpoczyna sie".
+     * Indeks kolumny jest budowany przy pierwszym filtrowaniu tej kolumny, jeśli mieści się w limicie pamięci
+     * (patrz {@link #setIndexLimit(long)}), i aktualizowany przy dodawaniu, usuwaniu i edycji wierszy.
+     * Wyłączenie zwalnia zbudowane indeksy.
+     *
+     * @param enabled true, aby używać indeksów
+     */
+    public void setIndexing(boolean enabled) {
+        indexing = enabled;
+        if (!enabled) change(indexes::clear);
+    }
+
+    /**
+     * Sprawdza, czy filtry korzystają z indeksów kolumn.
+     *
+     * @return true, jeśli indeksy są włączone
+     */
+    public boolean isIndexing() {
+        return indexing;
+    }
+
+    /**
+     * Zwraca szacowaną pamięć zajmowaną przez indeksy filtrów "Rowna sie" i "Rozpoczyna sie".
+     *
+     * @return liczba bajtów
+     */
+    public long getIndexMemory() {
+        access.lock();
+        try {
+            return indexes.indexMemory();
+        } finally {
+            access.unlock();
+        }
+    }
+
+    /**
+     * Ustawia łączny limit pamięci indeksów filtrów "Rowna sie" i "Rozpoczyna sie" (domyślnie 256 MB).
+     * Indeks, który by się w nim nie zmieścił, nie jest budowany, a kolumna jest filtrowana bez indeksu.
+     * Zbudowane indeksy, które przekraczają limit, są usuwane, zaczynając od największego.
+     *
+     * @param bytes limit w bajtach
+     */
+    public void setIndexLimit(long bytes) {
+        change(() -> indexes.setIndexLimit(bytes));
+    }
+
+    /**
+     * Zwraca łączny limit pamięci indeksów filtrów "Rowna sie" i "Rozpoczyna sie".
+     *
+     * @return limit w bajtach
+     */
+    public long getIndexLimit() {
+        return indexes.indexLimit();
+    }
+
+    /**
+     * Buduje indeks trigramów kolumny, przyspieszający filtry "Zawiera" i "Konczy sie".
+     * Indeks jest aktualizowany przy edycji danych i usuwany po zastąpieniu danych
+     * lub przekroczeniu limitu pamięci (patrz {@link #setTextIndexLimit(long)}).
+     *
+     * @param col indeks kolumny
+     * @return true, jeśli indeks zmieścił się w limicie pamięci
+     */
+    public boolean createTextIndex(int col) {
+        return createTextIndex(col, NEVER_CANCELLED);
+    }
+
+    /**
+     * Buduje indeks trigramów kolumny z możliwością anulowania, np. poza wątkiem zdarzeń.
+     * Tak jak filtrowanie w tle, budowa jest przerywana przez zmianę danych (patrz {@link CSVModel}).
+     *
+     * @param col       indeks kolumny
+     * @param cancelled zwraca true, gdy indeks nie jest już potrzebny
+     * @return true, jeśli indeks zmieścił się w limicie pamięci
+     * @throws java.util.concurrent.CancellationException jeśli budowa została anulowana lub przerwana zmianą danych
+     */
+    public boolean createTextIndex(int col, BooleanSupplier cancelled) {
+        access.lock();
+        try {
+            if (!usesIndexes() || col < 0 || col >= getColumnCount()) return false;
+            return indexes.createTextIndex(data, col, interrupted(cancelled));
+        } finally {
+            access.unlock();
+        }
+    }
+
+    /**
+     * Usuwa indeks trigramów kolumny.
+     *
+     * @param col indeks kolumny
+     */
+    public void dropTextIndex(int col) {
+        change(() -> indexes.dropTextIndex(col));
+    }
+
+    /**
+     * Sprawdza, czy kolumna ma indeks trigramów.
+     *
+     * @param col indeks kolumny
+     * @return true, jeśli indeks istnieje
+     */
+    public boolean hasTextIndex(int col) {
+        access.lock();
+        try {
+            return indexes.hasTextIndex(col);
+        } finally {
+            access.unlock();
+        }
+    }
+
+    /**
+     * Zwraca szacowaną pamięć zajmowaną przez indeksy trigramów.
+     *
+     * @return liczba bajtów
+     */
+    public long getTextIndexMemory() {
+        access.lock();
+        try {
+            return indexes.textMemory();
+        } finally {
+            access.unlock();
+        }
+    }
+
+    /**
+     * Ustawia łączny limit pamięci indeksów trigramów (domyślnie 256 MB).
+     * Indeksy, które się w nim nie mieszczą, są usuwane, zaczynając od największego.
+     *
+     * @param bytes limit w bajtach
+     */
+    public void setTextIndexLimit(long bytes) {
+        change(() -> indexes.setTextLimit(bytes));
+    }
+
+    /**
+     * Zwraca łączny limit pamięci indeksów trigramów.
+     *
+     * @return limit w bajtach
+     */
+    public long getTextIndexLimit() {
+        return indexes.textLimit();
+    }
+
+    /**
+     * Ustawia liczbę wątków używanych przez filtry dla dużych danych.
+     * Wartość 0 (domyślna) oznacza wspólną pulę fork-join z wątkiem na każdy rdzeń,
+     * a 1 filtrowanie w bieżącym wątku.
+     *
+     * @param threads liczba wątków
+     * @throws IllegalArgumentException jeśli liczba wątków jest ujemna
+     */
+    public void setFilterThreads(int threads) {
+        change(() -> parallelFilter.setThreads(threads));
+    }
+
+    /**
+     * Zwraca liczbę wątków używanych przez filtry dla dużych danych.
+     *
+     * @return liczba wątków
+     */
+    public int getFilterThreads() {
+        return parallelFilter.threads();
+    }
+
+    /**
+     * Ustawia liczbę sprawdzanych wierszy, od której filtry działają równolegle (domyślnie 200 000).
+     * Mniejsze zbiory wierszy są sprawdzane w bieżącym wątku, bo podział pracy nie zwróciłby swojego kosztu.
+     *
+     * @param rows próg liczby wierszy
+     */
+    public void setParallelFilterThreshold(int rows) {
+        parallelFilter.setThreshold(rows);
+    }
+
+    /**
+     * Zwraca liczbę sprawdzanych wierszy, od której filtry działają równolegle.
+     *
+     * @return próg liczby wierszy
+     */
+    public int getParallelFilterThreshold() {
+        return parallelFilter.threshold();
+    }
+
+    /**
+     * Ustawia limit pamięci zapamiętanych wyników filtrów (domyślnie 64 MB).
+     * Po jego przekroczeniu usuwane są najdawniej używane wyniki; wartość 0 wyłącza zapamiętywanie.
+     *
+     * @param bytes limit w bajtach
+     */
+    public void setFilterCacheLimit(long bytes) {
+        filterCache.setLimit(bytes);
+    }
+
+    /**
+     * Zwraca limit pamięci zapamiętanych wyników filtrów.
+     *
+     * @return limit w bajtach
+     */
+    public long getFilterCacheLimit() {
+        return filterCache.limit();
+    }
+
+    /**
+     * Zwraca szacowaną pamięć zajmowaną przez zapamiętane wyniki filtrów.
+     *
+     * @return liczba bajtów
+     */
+    public long getFilterCacheMemory() {
+        return filterCache.memory();
+    }
+
+    /**
+     * Sprawdza, czy dane są przechowywane kolumnowo.
+     *
+     * @return true, jeśli używany jest magazyn kolumnowy
+     */
+    public boolean isColumnarStorage() {
+        return columnar;
     }
 
     /**
@@ -26,7 +360,22 @@ public class CSVModel {
      * @return lista danych jako tablice ciągów znaków
      */
     public List<String[]> getData() {
-        return new ArrayList<>(data);
+        List<String[]> copy = new ArrayList<>(data.size());
+        for (int i = 0; i < data.size(); i++) {
+            copy.add(data.getRow(i));
+        }
+        return copy;
+    }
+
+    /**
+     * Zwraca wartość komórki bez kopiowania danych.
+     *
+     * @param row indeks wiersza
+     * @param col indeks kolumny
+     * @return wartość komórki lub null, jeśli kolumna leży poza wierszem
+     */
+    public String getValueAt(int row, int col) {
+        return data.get(row, col);
     }
 
     /**
@@ -40,17 +389,102 @@ public class CSVModel {
         if (includeHeader && hasHeader && !headers.isEmpty()) {
             all.add(headers.toArray(new String[0]));
         }
-        all.addAll(data);
+        all.addAll(getData());
         return all;
     }
 
+    /**
+     * Zwraca wiersze do zapisu, opcjonalnie poprzedzone nagłówkami, bez kopiowania całych danych.
+     * Wiersze są odczytywane z magazynu w trakcie iteracji, więc dane nie powinny się w tym czasie zmieniać.
+     *
+     * @param includeHeader określa, czy zacząć od nagłówków
+     * @return iterator kolejnych wierszy
+     */
+    public Iterator<String[]> rowsForSaving(boolean includeHeader) {
+        String[] header = includeHeader && hasHeader && !headers.isEmpty() ? headers.toArray(new String[0]) : null;
+        RowStore store = data;
+        return new Iterator<>() {
+            private int row = header != null ? -1 : 0;
+
+            @Override
+            public boolean hasNext() {
+                return row < store.size();
+            }
+
+            @Override
+            public String[] next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return row++ < 0 ? header : store.getRow(row - 1);
+            }
+        };
+    }
+
+    /**
+     * Zwraca migawkę danych i nagłówków, np. do zapisu w tle, podczas którego model może być dalej zmieniany.
+     * Utworzenie migawki nie kopiuje danych; magazyn kopiuje wiersz lub kolumnę dopiero przy pierwszej zmianie.
+     * Migawkę można czytać z innego wątku, ale nie należy jej zmieniać.
+     *
+     * @return model z niezmieniającą się kopią danych
+     */
+    public CSVModel snapshot() {
+        CSVModel copy = new CSVModel();
+        copy.data = data.snapshot();
+        copy.headers = new ArrayList<>(headers);
+        copy.hasHeader = hasHeader;
+        copy.columnar = columnar;
+        copy.indexing = false;
+        return copy;
+    }
+
+    /**
+     * Zapisuje dane i nagłówki w binarnym pliku migawki, który {@link #readSnapshot(File, SnapshotKey)}
+     * otwiera bez parsowania CSV. Kolumny są zapisywane w układzie magazynu kolumnowego (słowniki, liczby, teksty).
+     * Dane nie mogą się zmieniać w trakcie zapisu, więc w tle należy zapisywać {@link #snapshot()}.
+     *
+     * @param file plik migawki
+     * @param key  opis pliku CSV, z którego pochodzą dane
+     * @throws IOException jeśli wystąpi błąd zapisu
+     */
+    public void writeSnapshot(File file, SnapshotKey key) throws IOException {
+        ColumnarRowStore store = data instanceof ColumnarRowStore columns ? columns : ColumnarRowStore.of(getData());
+        SnapshotFile.write(file, key, headers, hasHeader, store);
+    }
+
+    /**
+     * Otwiera model z pliku migawki zapisanego przez {@link #writeSnapshot(File, SnapshotKey)}.
+     * Plik jest mapowany w pamięci, a wartości są czytane dopiero przy dostępie do wierszy,
+     * więc otwarcie trwa tyle samo niezależnie od rozmiaru danych. Kolumna jest kopiowana do pamięci
+     * przy pierwszej zmianie, a dodanie lub usunięcie wiersza kopiuje wszystkie kolumny.
+     * Plik migawki nie może być zmieniany, dopóki model jest używany; można go zastąpić nowym plikiem.
+     *
+     * @param file plik migawki
+     * @param key  opis bieżącego stanu pliku CSV
+     * @return model z danymi migawki lub null, jeśli migawka powstała z innego stanu pliku lub z innymi opcjami
+     * @throws IOException jeśli plik nie jest poprawną migawką lub wystąpi błąd odczytu
+     */
+    public static CSVModel readSnapshot(File file, SnapshotKey key) throws IOException {
+        SnapshotFile.Contents contents = SnapshotFile.read(file, key);
+        if (contents == null) return null;
+        CSVModel model = new CSVModel();
+        model.data = contents.data();
+        model.headers = new ArrayList<>(contents.headers());
+        model.hasHeader = contents.hasHeader();
+        model.columnar = true;
+        return model;
+    }
+
     /**
      * Dodaje nowy wiersz do danych.
      *
      * @param row dane wiersza do dodania
      */
     public void addRow(String[] row) {
-        data.add(row);
+        change(() -> {
+            data.add(row);
+            indexes.rowAdded(data, data.size() - 1);
+            filterCache.clear();
+        });
+        fireRowsInserted(data.size() - 1, data.size() - 1);
     }
 
     /**
@@ -60,7 +494,12 @@ public class CSVModel {
      */
     public void deleteRow(int index) {
         if (index >= 0 && index < data.size()) {
-            data.remove(index);
+            change(() -> {
+                indexes.rowDeleted(data, index);
+                filterCache.clear();
+                data.remove(index);
+            });
+            for (CSVModelListener l : listeners) l.rowsDeleted(index, index);
         }
     }
 
@@ -72,15 +511,19 @@ public class CSVModel {
      * @param value nowa wartość komórki
      */
     public void updateCell(int row, int col, String value) {
-        while (data.size() <= row) {
-            data.add(new String[getColumnCount()]);
-        }
-        String[] r = data.get(row);
-        if (r.length <= col) {
-            r = Arrays.copyOf(r, col + 1);
-            data.set(row, r);
-        }
-        r[col] = value;
+        int first = data.size();
+        int columns = getColumnCount();
+        change(() -> {
+            while (data.size() <= row) {
+                data.add(new String[columns]);
+                indexes.rowAdded(data, data.size() - 1);
+            }
+            indexes.cellChanged(data, row, col, value);
+            filterCache.clear();
+            data.set(row, col, value);
+        });
+        if (data.size() > first) fireRowsInserted(first, data.size() - 1);
+        for (CSVModelListener l : listeners) l.cellUpdated(row, col);
     }
 
     /**
@@ -89,12 +532,12 @@ public class CSVModel {
      * @param name nazwa nowej kolumny
      */
     public void addColumn(String name) {
-        headers.add(name);
-        for (int i = 0; i < data.size(); i++) {
-            String[] row = data.get(i);
-            String[] newRow = Arrays.copyOf(row, row.length + 1);
-            data.set(i, newRow);
-        }
+        change(() -> {
+            headers.add(name);
+            data.addColumn();
+        });
+        int index = getColumnCount() - 1;
+        for (CSVModelListener l : listeners) l.columnAdded(index);
     }
 
     /**
@@ -104,16 +547,13 @@ public class CSVModel {
      */
     public void removeColumn(int index) {
         if (index < 0 || index >= getColumnCount()) return;
-        if (index < headers.size()) headers.remove(index);
-        for (int i = 0; i < data.size(); i++) {
-            String[] row = data.get(i);
-            if (index < row.length) {
-                String[] newRow = new String[row.length - 1];
-                System.arraycopy(row, 0, newRow, 0, index);
-                System.arraycopy(row, index + 1, newRow, index, row.length - index - 1);
-                data.set(i, newRow);
-            }
-        }
+        change(() -> {
+            if (index < headers.size()) headers.remove(index);
+            data.removeColumn(index);
+            indexes.columnRemoved(index);
+            filterCache.clear();
+        });
+        for (CSVModelListener l : listeners) l.columnRemoved(index);
     }
 
     /**
@@ -122,32 +562,145 @@ public class CSVModel {
      * @param h lista nagłówków
      */
     public void setHeaders(List<String> h) {
-        headers = new ArrayList<>(h);
-        hasHeader = !headers.isEmpty();
+        List<String> copy = new ArrayList<>(h);
+        change(() -> {
+            headers = copy;
+            hasHeader = !copy.isEmpty();
+        });
+        for (CSVModelListener l : listeners) l.structureChanged();
     }
 
     /**
      * Filtruje dane na podstawie podanych kryteriów.
+     * Filtry "Rowna sie" i "Rozpoczyna sie" korzystają z indeksu kolumny, jeśli indeksy są włączone,
+     * a "Zawiera" i "Konczy sie" z indeksu trigramów, jeśli został zbudowany dla kolumny.
+     * Przy co najmniej {@link #getParallelFilterThreshold()} sprawdzanych wierszach
+     * zakresy wierszy są sprawdzane równolegle (patrz {@link #setFilterThreads(int)}).
+     * Ostatnie wyniki są zapamiętywane do chwili zmiany danych (patrz {@link #setFilterCacheLimit(long)}),
+     * a zapytanie zawężające zapamiętany wynik, np. "Zawiera erro" po "Zawiera err", sprawdza tylko jego wiersze.
+     * Wynikiem są indeksy wierszy, więc dane nie są kopiowane; wiersze można odczytać
+     * przez {@link #getValueAt(int, int)} lub {@link #getRows(int[])}.
      *
      * @param word  słowo kluczowe do filtrowania
      * @param index indeks kolumny do filtrowania
      * @param type  typ filtra (np. "Zawiera", "Rozpoczyna sie")
-     * @return lista przefiltrowanych danych
-     */
-    public List<String[]> filter(String word, int index, String type) {
-        if (index < 0 || word == null || word.isEmpty()) return new ArrayList<>(data);
-        List<String[]> result = new ArrayList<>();
-        for (String[] row : data) {
-            if (index < row.length) {
-                String val = row[index];
-                boolean ok = false;
-                if (type.equals("Zawiera")) ok = val.contains(word);
-                else if (type.equals("Rozpoczyna sie")) ok = val.startsWith(word);
-                else if (type.equals("Konczy sie")) ok = val.endsWith(word);
-                else if (type.equals("Rowna sie")) ok = val.equals(word);
-                if (ok) result.add(row);
-            }
+     * @return rosnące indeksy pasujących wierszy (tablica może być współdzielona z pamięcią wyników
+     *         i nie należy jej zmieniać); wszystkie wiersze, jeśli słowo jest puste
+     */
+    public int[] filter(String word, int index, String type) {
+        return filter(word, index, type, NEVER_CANCELLED);
+    }
+
+    /**
+     * Filtruje dane na podstawie podanych kryteriów, z możliwością anulowania.
+     * Metoda może być wywoływana poza wątkiem zdarzeń: zmiana danych w trakcie filtrowania przerywa je
+     * wyjątkiem {@link java.util.concurrent.CancellationException} i czeka na jego zakończenie.
+     *
+     * @param word      słowo kluczowe do filtrowania
+     * @param index     indeks kolumny do filtrowania
+     * @param type      typ filtra (np. "Zawiera", "Rozpoczyna sie")
+     * @param cancelled zwraca true, gdy wynik nie jest już potrzebny
+     * @return rosnące indeksy pasujących wierszy
+     * @throws java.util.concurrent.CancellationException jeśli filtrowanie zostało anulowane lub przerwane zmianą danych
+     */
+    public int[] filter(String word, int index, String type, BooleanSupplier cancelled) {
+        FilterType filterType = FilterType.fromLabel(type);
+        access.lock();
+        try {
+            if (index < 0 || word == null || word.isEmpty()) return allRows();
+            if (filterType == null) return new int[0];
+            int[] cached = filterCache.get(index, filterType, word);
+            if (cached != null) return cached;
+            BooleanSupplier stop = interrupted(cancelled);
+            long version = filterCache.version();
+            int[] candidates = usesIndexes() ? indexes.candidates(data, filterType, index, word, stop) : null;
+            int[] wider = filterCache.narrowest(index, filterType, word);
+            if (wider != null) candidates = candidates == null ? wider : intersect(candidates, wider);
+            RowStore store = data;
+            int[] result = parallelFilter.select(candidates, store.size(), () -> row -> {
+                String val = store.get(row, index);
+                return val != null && filterType.matches(val, word);
+            }, stop);
+            filterCache.put(index, filterType, word, result, version);
+            return result;
+        } finally {
+            access.unlock();
+        }
+    }
+
+    /**
+     * Wybiera wiersze spełniające wyrażenie filtrujące w jednym przebiegu po danych.
+     *
+     * @param expression skompilowane wyrażenie
+     * @return rosnące indeksy pasujących wierszy
+     */
+    public int[] select(FilterExpression expression) {
+        return select(expression, NEVER_CANCELLED);
+    }
+
+    /**
+     * Wybiera wiersze spełniające wyrażenie filtrujące, z możliwością anulowania.
+     * Metoda może być wywoływana poza wątkiem zdarzeń, tak jak {@link #filter(String, int, String, BooleanSupplier)}.
+     *
+     * @param expression skompilowane wyrażenie
+     * @param cancelled  zwraca true, gdy wynik nie jest już potrzebny
+     * @return rosnące indeksy pasujących wierszy
+     * @throws java.util.concurrent.CancellationException jeśli wybór został anulowany lub przerwany zmianą danych
+     */
+    public int[] select(FilterExpression expression, BooleanSupplier cancelled) {
+        access.lock();
+        try {
+            return expression.select(data, usesIndexes() ? indexes : null, parallelFilter, interrupted(cancelled));
+        } finally {
+            access.unlock();
         }
+    }
+
+    /**
+     * Sortuje wiersze według kolumn. Liczby są porównywane jako liczby, a tekst według reguł bieżącego języka;
+     * w kolumnie mieszanej liczby poprzedzają tekst (przy sortowaniu malejącym tekst poprzedza liczby),
+     * a puste komórki (bez wartości lub z pustym tekstem) trafiają na koniec.
+     * Wiersze równe według wszystkich kluczy zachowują kolejność wejściową.
+     * Duże zbiory są sortowane równolegle w puli wątków filtrujących.
+     *
+     * @param rows indeksy sortowanych wierszy lub null, aby posortować wszystkie wiersze
+     * @param keys klucze sortowania, od najważniejszego
+     * @return indeksy wierszy w nowej kolejności
+     */
+    public int[] sort(int[] rows, List<SortKey> keys) {
+        return sort(rows, keys, NEVER_CANCELLED);
+    }
+
+    /**
+     * Sortuje wiersze według kolumn z możliwością anulowania, np. poza wątkiem zdarzeń.
+     * Tak jak filtrowanie w tle, sortowanie jest przerywane przez zmianę danych (patrz {@link CSVModel}).
+     *
+     * @param rows      indeksy sortowanych wierszy lub null, aby posortować wszystkie wiersze
+     * @param keys      klucze sortowania, od najważniejszego
+     * @param cancelled zwraca true, gdy wynik nie jest już potrzebny
+     * @return indeksy wierszy w nowej kolejności
+     * @throws java.util.concurrent.CancellationException jeśli sortowanie zostało anulowane lub przerwane zmianą danych
+     */
+    public int[] sort(int[] rows, List<SortKey> keys, BooleanSupplier cancelled) {
+        access.lock();
+        try {
+            int[] sorted = rows == null ? allRows() : rows;
+            if (keys.isEmpty()) return sorted.clone();
+            return RowSort.sort(data, sorted, keys, parallelFilter.pool(), parallelFilter.threshold(), interrupted(cancelled));
+        } finally {
+            access.unlock();
+        }
+    }
+
+    /**
+     * Zwraca wiersze o podanych indeksach.
+     *
+     * @param rows indeksy wierszy
+     * @return lista wierszy
+     */
+    public List<String[]> getRows(int[] rows) {
+        List<String[]> result = new ArrayList<>(rows.length);
+        for (int row : rows) result.add(data.getRow(row));
         return result;
     }
 
@@ -176,11 +729,7 @@ public class CSVModel {
      */
     public int getColumnCount() {
         if (!headers.isEmpty()) return headers.size();
-        int max = 0;
-        for (String[] row : data) {
-            if (row.length > max) max = row.length;
-        }
-        return max;
+        return data.columnCount();
     }
 
     /**
@@ -191,4 +740,69 @@ public class CSVModel {
     public boolean hasHeader() {
         return hasHeader;
     }
-}
\ No newline at end of file
+
+    /**
+     * Sprawdza, czy filtry mogą korzystać z indeksów kolumn. Indeksy nie są budowane w trybie indeksu pliku,
+     * ponieważ wymagałyby odczytania całych kolumn do pamięci.
+     */
+    private boolean usesIndexes() {
+        return indexing && !isReadOnly();
+    }
+
+    /**
+     * Zmienia dane pod blokadą modelu. Trwający odczyt w tle jest najpierw przerywany
+     * (patrz {@link #interrupted(BooleanSupplier)}), a zmiana czeka na zwolnienie przez niego blokady.
+     */
+    private void change(Runnable change) {
+        changes.incrementAndGet();
+        access.lock();
+        try {
+            change.run();
+        } finally {
+            access.unlock();
+        }
+    }
+
+    /**
+     * Zwraca warunek przerwania odczytu wykonywanego pod blokadą modelu: anulowanie przez wywołującego
+     * albo zmianę danych, która czeka na blokadę.
+     */
+    private BooleanSupplier interrupted(BooleanSupplier cancelled) {
+        long start = changes.get();
+        return () -> cancelled.getAsBoolean() || changes.get() != start;
+    }
+
+    /**
+     * Zwraca część wspólną dwóch rosnących list indeksów.
+     */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Zwraca indeksy wszystkich wierszy.
+     */
+    private int[] allRows() {
+        int[] rows = new int[data.size()];
+        for (int i = 0; i < rows.length; i++) rows[i] = i;
+        return rows;
+    }
+
+    /**
+     * Powiadamia odbiorców o wstawionych wierszach.
+     */
+    private void fireRowsInserted(int first, int last) {
+        for (CSVModelListener l : listeners) l.rowsInserted(first, last);
+    }
+}
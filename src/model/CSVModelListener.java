@@ -0,0 +1,50 @@
+package model;
+
+/**
+ * Odbiorca zmian w modelu CSV.
+ * Zdarzenia opisują tylko zmieniony fragment danych, więc widok nie musi przebudowywać się w całości.
+ */
+public interface CSVModelListener {
+    /**
+     * Wywoływana po wstawieniu wierszy.
+     *
+     * @param first indeks pierwszego wstawionego wiersza
+     * @param last  indeks ostatniego wstawionego wiersza
+     */
+    void rowsInserted(int first, int last);
+
+    /**
+     * Wywoływana po usunięciu wierszy.
+     *
+     * @param first indeks pierwszego usuniętego wiersza (sprzed usunięcia)
+     * @param last  indeks ostatniego usuniętego wiersza (sprzed usunięcia)
+     */
+    void rowsDeleted(int first, int last);
+
+    /**
+     * Wywoływana po zmianie wartości komórki.
+     *
+     * @param row indeks wiersza
+     * @param col indeks kolumny
+     */
+    void cellUpdated(int row, int col);
+
+    /**
+     * Wywoływana po dodaniu kolumny.
+     *
+     * @param index indeks nowej kolumny
+     */
+    void columnAdded(int index);
+
+    /**
+     * Wywoływana po usunięciu kolumny.
+     *
+     * @param index indeks usuniętej kolumny
+     */
+    void columnRemoved(int index);
+
+    /**
+     * Wywoływana po zmianie nagłówków lub zastąpieniu wszystkich danych.
+     */
+    void structureChanged();
+}
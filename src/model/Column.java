@@ -0,0 +1,74 @@
+package model;
+
+/**
+ * Kolumna magazynu kolumnowego.
+ * Operacja zapisu może zwrócić inną implementację kolumny, jeśli bieżąca przestała być opłacalna.
+ */
+abstract class Column implements Cloneable {
+    /**
+     * Zwraca wartość w wierszu.
+     *
+     * @param row indeks wiersza
+     * @return wartość lub null
+     */
+    abstract String get(int row);
+
+    /**
+     * Zwraca wartość w wierszu jako liczbę.
+     * Kolumny liczbowe zwracają zapisaną liczbę bez parsowania tekstu.
+     *
+     * @param row indeks wiersza
+     * @return wartość liczbowa lub NaN, jeśli komórka jest pusta albo nie jest liczbą
+     */
+    double getNumber(int row) {
+        String value = get(row);
+        return value == null ? Double.NaN : FilterExpression.parseNumber(value);
+    }
+
+    /**
+     * Zapisuje wartość w wierszu.
+     *
+     * @param row   indeks wiersza
+     * @param value nowa wartość lub null
+     * @return kolumna, która powinna zastąpić bieżącą
+     */
+    abstract Column set(int row, String value);
+
+    /**
+     * Powiększa kolumnę do podanej pojemności.
+     *
+     * @param capacity nowa pojemność
+     */
+    abstract void grow(int capacity);
+
+    /**
+     * Zwraca niezależną kopię kolumny. Podklasy kopiują swoje tablice.
+     *
+     * @return kopia kolumny
+     */
+    Column copy() {
+        try {
+            return (Column) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Zwraca kolumnę, którą można zmieniać: tę samą albo jej kopię w pamięci, jeśli kolumna jest tylko do odczytu
+     * (patrz {@link MappedColumn}).
+     *
+     * @return kolumna do zmiany
+     */
+    Column modifiable() {
+        return this;
+    }
+
+    /**
+     * Usuwa wartość, przesuwając kolejne wiersze o jeden w górę.
+     *
+     * @param row  indeks usuwanego wiersza
+     * @param size liczba wierszy przed usunięciem
+     */
+    abstract void remove(int row, int size);
+}
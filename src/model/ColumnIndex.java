@@ -0,0 +1,52 @@
+package model;
+
+/**
+ * Indeks jednej kolumny przyspieszający filtrowanie.
+ * Indeks nie przechowuje wartości pustych (null), tak jak filtr ich nie dopasowuje.
+ * Po każdej zmianie danych model wywołuje odpowiednią metodę aktualizującą.
+ */
+abstract class ColumnIndex {
+    /** Co ile wierszy budowa indeksu sprawdza, czy nie została przerwana (maska bitowa numeru wiersza). */
+    static final int CANCEL_CHECK_MASK = 4095;
+
+    /**
+     * Zwraca wiersze, które mogą pasować do słowa kluczowego.
+     * Wynik może zawierać wiersze niepasujące, dlatego model sprawdza każdy z nich filtrem.
+     *
+     * @param word słowo kluczowe
+     * @return rosnące indeksy kandydatów lub null, jeśli indeks nie zawęża wyszukiwania dla tego słowa
+     */
+    abstract int[] find(String word);
+
+    /**
+     * Zwraca szacowaną pamięć zajmowaną przez indeks.
+     *
+     * @return liczba bajtów
+     */
+    abstract long memory();
+
+    /**
+     * Dodaje wiersz na końcu danych.
+     *
+     * @param row   indeks nowego wiersza (równy dotychczasowej liczbie wierszy)
+     * @param value wartość kolumny w nowym wierszu
+     */
+    abstract void rowAdded(int row, String value);
+
+    /**
+     * Usuwa wiersz, przesuwając kolejne wiersze o jeden w górę.
+     *
+     * @param row   indeks usuniętego wiersza
+     * @param value wartość kolumny w usuniętym wierszu
+     */
+    abstract void rowDeleted(int row, String value);
+
+    /**
+     * Zmienia wartość kolumny w wierszu.
+     *
+     * @param row      indeks wiersza
+     * @param oldValue poprzednia wartość
+     * @param value    nowa wartość
+     */
+    abstract void valueChanged(int row, String oldValue, String value);
+}
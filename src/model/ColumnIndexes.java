@@ -0,0 +1,316 @@
+package model;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Zbiór indeksów kolumn modelu CSV.
+ * Indeksy dla "Rowna sie" i "Rozpoczyna sie" są budowane przy pierwszym filtrowaniu danej kolumny,
+ * a indeksy trigramów dla "Zawiera" i "Konczy sie" tylko na żądanie; oba rodzaje mają osobne limity pamięci.
+ * Indeks, który nie mieści się w limicie, nie jest budowany, a indeks, który przekroczy limit po zmianach danych,
+ * jest usuwany. Kolumna bez indeksu z powodu limitu jest filtrowana bez indeksu do chwili zastąpienia danych.
+ * Metody aktualizujące muszą być wywoływane przed zmianą magazynu wierszy,
+ * bo odczytują z niego dotychczasowe wartości. Klasa nie jest synchronizowana: model wywołuje jej metody
+ * pod swoją blokadą, więc indeks budowany w tle powstaje z danych, które w tym czasie się nie zmieniają.
+ */
+class ColumnIndexes {
+    /** Domyślny limit pamięci indeksów "Rowna sie" i "Rozpoczyna sie" w bajtach. */
+    static final long DEFAULT_INDEX_LIMIT = 256L << 20;
+
+    /** Oznacza kolumnę, której indeks nie zmieścił się w limicie pamięci, żeby nie budować go przy każdym filtrze. */
+    private static final ColumnIndex TOO_LARGE = new ColumnIndex() {
+        @Override
+        int[] find(String word) {
+            return null;
+        }
+
+        @Override
+        long memory() {
+            return 0;
+        }
+
+        @Override
+        void rowAdded(int row, String value) {
+        }
+
+        @Override
+        void rowDeleted(int row, String value) {
+        }
+
+        @Override
+        void valueChanged(int row, String oldValue, String value) {
+        }
+    };
+
+    private final Map<FilterType, Map<Integer, ColumnIndex>> indexes = new EnumMap<>(FilterType.class);
+    private final Map<Integer, TrigramIndex> textIndexes = new HashMap<>();
+    private long indexLimit = DEFAULT_INDEX_LIMIT;
+    private long textLimit = 256L << 20;
+    private long textMemory;
+
+    /**
+     * Zwraca wiersze, które mogą pasować do filtra, korzystając z indeksu kolumny.
+     *
+     * @param data      magazyn wierszy
+     * @param type      typ filtra
+     * @param col       indeks kolumny
+     * @param word      słowo kluczowe
+     * @param cancelled zwraca true, gdy wynik nie jest już potrzebny; sprawdzany podczas budowy indeksu
+     * @return rosnące indeksy kandydatów lub null, jeśli kolumna nie ma indeksu zawężającego wyszukiwanie
+     * @throws java.util.concurrent.CancellationException jeśli budowa indeksu została przerwana
+     */
+    int[] candidates(RowStore data, FilterType type, int col, String word, BooleanSupplier cancelled) {
+        if (type == FilterType.CONTAINS || type == FilterType.ENDS_WITH) {
+            TrigramIndex text = textIndexes.get(col);
+            if (text == null) return null;
+            return type == FilterType.CONTAINS ? text.find(word) : text.findSuffix(word);
+        }
+        return get(data, type, col, cancelled).find(word);
+    }
+
+    /**
+     * Buduje indeks trigramów kolumny.
+     *
+     * @param data      magazyn wierszy
+     * @param col       indeks kolumny
+     * @param cancelled zwraca true, gdy indeks nie jest już potrzebny
+     * @return true, jeśli indeks zmieścił się w limicie pamięci
+     * @throws java.util.concurrent.CancellationException jeśli budowa została przerwana
+     */
+    boolean createTextIndex(RowStore data, int col, BooleanSupplier cancelled) {
+        dropTextIndex(col);
+        TrigramIndex index = TrigramIndex.build(data, col, textLimit - textMemory, cancelled);
+        if (index == null) return false;
+        textIndexes.put(col, index);
+        textMemory += index.memory();
+        return true;
+    }
+
+    /**
+     * Usuwa indeks trigramów kolumny.
+     *
+     * @param col indeks kolumny
+     */
+    void dropTextIndex(int col) {
+        TrigramIndex index = textIndexes.remove(col);
+        if (index != null) textMemory -= index.memory();
+    }
+
+    /**
+     * Sprawdza, czy kolumna ma indeks trigramów.
+     *
+     * @param col indeks kolumny
+     * @return true, jeśli indeks istnieje
+     */
+    boolean hasTextIndex(int col) {
+        return textIndexes.containsKey(col);
+    }
+
+    /**
+     * Zwraca szacowaną pamięć wszystkich indeksów trigramów, sumowaną przy każdej zmianie indeksów.
+     *
+     * @return liczba bajtów
+     */
+    long textMemory() {
+        return textMemory;
+    }
+
+    /**
+     * Ustawia limit pamięci indeksów trigramów, usuwając indeksy, które się w nim nie mieszczą.
+     *
+     * @param bytes limit w bajtach
+     */
+    void setTextLimit(long bytes) {
+        textLimit = bytes;
+        enforceTextLimit();
+    }
+
+    /**
+     * Zwraca limit pamięci indeksów trigramów.
+     *
+     * @return limit w bajtach
+     */
+    long textLimit() {
+        return textLimit;
+    }
+
+    /**
+     * Zwraca szacowaną pamięć indeksów "Rowna sie" i "Rozpoczyna sie".
+     *
+     * @return liczba bajtów
+     */
+    long indexMemory() {
+        long total = 0;
+        for (Map<Integer, ColumnIndex> byColumn : indexes.values()) {
+            for (ColumnIndex index : byColumn.values()) total += index.memory();
+        }
+        return total;
+    }
+
+    /**
+     * Ustawia limit pamięci indeksów "Rowna sie" i "Rozpoczyna sie", usuwając indeksy, które się w nim nie mieszczą.
+     * Kolumny, których indeksy wcześniej nie zmieściły się w limicie, mogą je zbudować ponownie.
+     *
+     * @param bytes limit w bajtach
+     */
+    void setIndexLimit(long bytes) {
+        indexLimit = bytes;
+        for (Map<Integer, ColumnIndex> byColumn : indexes.values()) byColumn.values().remove(TOO_LARGE);
+        enforceIndexLimit();
+    }
+
+    /**
+     * Zwraca limit pamięci indeksów "Rowna sie" i "Rozpoczyna sie".
+     *
+     * @return limit w bajtach
+     */
+    long indexLimit() {
+        return indexLimit;
+    }
+
+    /**
+     * Zwraca indeks kolumny dla typu filtra, budując go przy pierwszym użyciu w ramach pozostałej części limitu pamięci.
+     */
+    private ColumnIndex get(RowStore data, FilterType type, int col, BooleanSupplier cancelled) {
+        Map<Integer, ColumnIndex> byColumn = indexes.computeIfAbsent(type, t -> new HashMap<>());
+        ColumnIndex index = byColumn.get(col);
+        if (index == null) {
+            long budget = indexLimit - indexMemory();
+            index = type == FilterType.EQUALS
+                    ? HashIndex.build(data, col, budget, cancelled)
+                    : PrefixIndex.build(data, col, budget, cancelled);
+            if (index == null) index = TOO_LARGE;
+            byColumn.put(col, index);
+        }
+        return index;
+    }
+
+    /**
+     * Dopisuje do indeksów wiersz dodany na końcu magazynu.
+     *
+     * @param data magazyn wierszy, już zawierający nowy wiersz
+     * @param row  indeks nowego wiersza
+     */
+    void rowAdded(RowStore data, int row) {
+        for (Map<Integer, ColumnIndex> byColumn : indexes.values()) {
+            byColumn.forEach((col, index) -> index.rowAdded(row, data.get(row, col)));
+        }
+        textIndexes.forEach((col, index) -> {
+            long before = index.memory();
+            index.rowAdded(row, data.get(row, col));
+            textMemory += index.memory() - before;
+        });
+        enforceIndexLimit();
+        enforceTextLimit();
+    }
+
+    /**
+     * Usuwa wiersz z indeksów. Wywoływana przed usunięciem wiersza z magazynu.
+     *
+     * @param data magazyn wierszy
+     * @param row  indeks usuwanego wiersza
+     */
+    void rowDeleted(RowStore data, int row) {
+        for (Map<Integer, ColumnIndex> byColumn : indexes.values()) {
+            byColumn.forEach((col, index) -> index.rowDeleted(row, data.get(row, col)));
+        }
+        textIndexes.forEach((col, index) -> {
+            long before = index.memory();
+            index.rowDeleted(row, data.get(row, col));
+            textMemory += index.memory() - before;
+        });
+    }
+
+    /**
+     * Aktualizuje indeksy kolumny po zmianie komórki. Wywoływana przed zapisem do magazynu.
+     *
+     * @param data  magazyn wierszy
+     * @param row   indeks wiersza
+     * @param col   indeks kolumny
+     * @param value nowa wartość
+     */
+    void cellChanged(RowStore data, int row, int col, String value) {
+        String oldValue = data.get(row, col);
+        for (Map<Integer, ColumnIndex> byColumn : indexes.values()) {
+            ColumnIndex index = byColumn.get(col);
+            if (index != null) index.valueChanged(row, oldValue, value);
+        }
+        enforceIndexLimit();
+        TrigramIndex text = textIndexes.get(col);
+        if (text != null) {
+            long before = text.memory();
+            text.valueChanged(row, oldValue, value);
+            textMemory += text.memory() - before;
+            enforceTextLimit();
+        }
+    }
+
+    /**
+     * Usuwa indeksy kolumny i przenumerowuje indeksy kolejnych kolumn.
+     *
+     * @param col indeks usuniętej kolumny
+     */
+    void columnRemoved(int col) {
+        for (Map<Integer, ColumnIndex> byColumn : indexes.values()) {
+            shift(byColumn, col);
+        }
+        dropTextIndex(col);
+        shift(textIndexes, col);
+    }
+
+    /**
+     * Usuwa indeks usuniętej kolumny i zmniejsza o jeden numery kolejnych kolumn.
+     */
+    private static <T extends ColumnIndex> void shift(Map<Integer, T> byColumn, int col) {
+        Map<Integer, T> shifted = new HashMap<>();
+        byColumn.forEach((c, index) -> {
+            if (c != col) shifted.put(c > col ? c - 1 : c, index);
+        });
+        byColumn.clear();
+        byColumn.putAll(shifted);
+    }
+
+    /**
+     * Usuwa największe indeksy "Rowna sie" i "Rozpoczyna sie", dopóki ich łączna pamięć przekracza limit.
+     * Kolumny usuniętych indeksów są oznaczane, więc indeksy nie są od razu budowane ponownie.
+     */
+    private void enforceIndexLimit() {
+        for (long memory = indexMemory(); memory > 0 && memory > indexLimit; ) {
+            Map<Integer, ColumnIndex> largestColumns = null;
+            Integer largest = null;
+            for (Map<Integer, ColumnIndex> byColumn : indexes.values()) {
+                for (Map.Entry<Integer, ColumnIndex> e : byColumn.entrySet()) {
+                    if (largest == null || e.getValue().memory() > largestColumns.get(largest).memory()) {
+                        largestColumns = byColumn;
+                        largest = e.getKey();
+                    }
+                }
+            }
+            memory -= largestColumns.put(largest, TOO_LARGE).memory();
+        }
+    }
+
+    /**
+     * Usuwa indeksy trigramów, zaczynając od największego, dopóki ich łączna pamięć przekracza limit.
+     */
+    private void enforceTextLimit() {
+        while (!textIndexes.isEmpty() && textMemory > textLimit) {
+            Integer largest = null;
+            for (Map.Entry<Integer, TrigramIndex> e : textIndexes.entrySet()) {
+                if (largest == null || e.getValue().memory() > textIndexes.get(largest).memory()) largest = e.getKey();
+            }
+            dropTextIndex(largest);
+        }
+    }
+
+    /**
+     * Usuwa wszystkie indeksy.
+     */
+    void clear() {
+        indexes.clear();
+        textIndexes.clear();
+        textMemory = 0;
+    }
+}
@@ -0,0 +1,250 @@
+package model;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Kolumnowy magazyn wierszy.
+ * Każda kolumna jest osobną tablicą; powtarzające się wartości są przechowywane raz
+ * i wskazywane kodami typu int (patrz {@link DictionaryColumn}).
+ * Kolumny o dużej liczbie różnych wartości liczbowych są przechowywane jako tablice
+ * typu long lub double (patrz {@link NumericColumn}).
+ * Kolumny są współdzielone z migawkami danych, dopóki nie trzeba ich zmienić; wtedy zmieniana jest kopia.
+ * Gdy żadna migawka nie jest już używana, kolumny przestają być kopiowane.
+ * Kolumny wczytane z pliku migawki (patrz {@link SnapshotFile}) są tylko do odczytu
+ * i są kopiowane do pamięci przy pierwszej zmianie.
+ */
+public class ColumnarRowStore implements RowStore {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private Column[] columns = new Column[0];
+    private int columnSlots;
+    private int size;
+    private int capacity = INITIAL_CAPACITY;
+    private int[] widths;
+    private final Set<Column> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<WeakReference<ColumnarRowStore>> snapshots = new ArrayList<>();
+
+    /**
+     * Tworzy magazyn kolumnowy z listy wierszy.
+     *
+     * @param rows wiersze do skopiowania
+     * @return nowy magazyn
+     */
+    public static ColumnarRowStore of(List<String[]> rows) {
+        ColumnarRowStore store = new ColumnarRowStore();
+        store.ensureCapacity(rows.size());
+        for (String[] row : rows) store.add(row);
+        return store;
+    }
+
+    /**
+     * Tworzy magazyn z gotowych kolumn, np. wczytanych z pliku migawki.
+     *
+     * @param columns kolumny o pojemności co najmniej size
+     * @param size    liczba wierszy
+     * @param widths  długości wierszy lub null, jeśli każdy wiersz ma wszystkie kolumny
+     * @return nowy magazyn
+     */
+    static ColumnarRowStore of(Column[] columns, int size, int[] widths) {
+        ColumnarRowStore store = new ColumnarRowStore();
+        store.columns = columns;
+        store.columnSlots = columns.length;
+        store.size = size;
+        store.capacity = size;
+        store.widths = widths;
+        return store;
+    }
+
+    /**
+     * Zwraca liczbę kolumn w magazynie, także tych, których nie ma w żadnym wierszu.
+     *
+     * @return liczba kolumn
+     */
+    int columnSlots() {
+        return columnSlots;
+    }
+
+    /**
+     * Zwraca kolumnę do odczytu.
+     *
+     * @param col indeks kolumny
+     * @return kolumna
+     */
+    Column column(int col) {
+        return columns[col];
+    }
+
+    /**
+     * Sprawdza, czy wiersze mają różne długości zapisane osobno.
+     *
+     * @return false, jeśli każdy wiersz ma wszystkie kolumny
+     */
+    boolean hasWidths() {
+        return widths != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int columnCount() {
+        if (widths == null) return size == 0 ? 0 : columnSlots;
+        int max = 0;
+        for (int i = 0; i < size; i++) {
+            if (widths[i] > max) max = widths[i];
+        }
+        return max;
+    }
+
+    @Override
+    public int width(int row) {
+        return widths == null ? columnSlots : widths[row];
+    }
+
+    @Override
+    public String get(int row, int col) {
+        return col < width(row) ? columns[col].get(row) : null;
+    }
+
+    @Override
+    public double getNumber(int row, int col) {
+        return col < width(row) ? columns[col].getNumber(row) : Double.NaN;
+    }
+
+    @Override
+    public String[] getRow(int row) {
+        String[] r = new String[width(row)];
+        for (int c = 0; c < r.length; c++) {
+            r[c] = columns[c].get(row);
+        }
+        return r;
+    }
+
+    @Override
+    public void set(int row, int col, String value) {
+        if (col >= columnSlots) ensureColumns(col + 1);
+        if (col >= width(row)) setWidth(row, col + 1);
+        columns[col] = writable(col).set(row, value);
+    }
+
+    @Override
+    public void add(String[] row) {
+        ensureCapacity(size + 1);
+        if (row.length > columnSlots) ensureColumns(row.length);
+        int r = size++;
+        setWidth(r, row.length);
+        for (int c = 0; c < row.length; c++) {
+            if (row[c] != null) columns[c] = writable(c).set(r, row[c]);
+        }
+    }
+
+    @Override
+    public void remove(int row) {
+        for (int c = 0; c < columnSlots; c++) {
+            writable(c).remove(row, size);
+        }
+        if (widths != null) System.arraycopy(widths, row + 1, widths, row, size - row - 1);
+        size--;
+    }
+
+    @Override
+    public void addColumn() {
+        appendColumns(columnSlots + 1);
+        if (widths != null) {
+            for (int i = 0; i < size; i++) widths[i]++;
+        }
+    }
+
+    @Override
+    public void removeColumn(int col) {
+        if (col >= columnSlots) return;
+        if (widths != null) {
+            for (int i = 0; i < size; i++) {
+                if (col < widths[i]) widths[i]--;
+            }
+        }
+        shared.remove(columns[col]);
+        System.arraycopy(columns, col + 1, columns, col, columnSlots - col - 1);
+        columns[--columnSlots] = null;
+    }
+
+    @Override
+    public RowStore snapshot() {
+        ColumnarRowStore copy = new ColumnarRowStore();
+        copy.columns = Arrays.copyOf(columns, columnSlots);
+        copy.columnSlots = columnSlots;
+        copy.size = size;
+        copy.capacity = capacity;
+        if (widths != null) copy.widths = widths.clone();
+        for (int c = 0; c < columnSlots; c++) shared.add(columns[c]);
+        snapshots.add(new WeakReference<>(copy));
+        return copy;
+    }
+
+    /**
+     * Zwraca kolumnę do zmiany, zastępując ją kopią, jeśli jest współdzielona z używaną migawką
+     * albo jest tylko do odczytu.
+     */
+    private Column writable(int col) {
+        if (!shared.isEmpty() && shared.remove(columns[col])) {
+            snapshots.removeIf(s -> s.get() == null);
+            if (snapshots.isEmpty()) shared.clear();
+            else columns[col] = columns[col].copy();
+        }
+        return columns[col] = columns[col].modifiable();
+    }
+
+    /**
+     * Zapewnia miejsce na podaną liczbę wierszy we wszystkich kolumnach.
+     */
+    private void ensureCapacity(int rows) {
+        if (rows <= capacity) return;
+        capacity = Math.max(rows, capacity + (capacity >> 1));
+        for (int c = 0; c < columnSlots; c++) writable(c).grow(capacity);
+        if (widths != null) widths = Arrays.copyOf(widths, capacity);
+    }
+
+    /**
+     * Dodaje puste kolumny do podanej liczby. Istniejące wiersze zachowują swoją długość.
+     */
+    private void ensureColumns(int count) {
+        if (size > 0 && widths == null) materializeWidths();
+        appendColumns(count);
+    }
+
+    /**
+     * Dodaje puste kolumny do podanej liczby bez zmiany zapisanych długości wierszy.
+     */
+    private void appendColumns(int count) {
+        if (columns.length < count) columns = Arrays.copyOf(columns, Math.max(count, columns.length * 2));
+        for (int c = columnSlots; c < count; c++) columns[c] = new DictionaryColumn(capacity);
+        columnSlots = count;
+    }
+
+    /**
+     * Ustawia długość wiersza, zapisując długości osobno dopiero wtedy, gdy wiersze przestają być równe.
+     */
+    private void setWidth(int row, int width) {
+        if (widths == null) {
+            if (width == columnSlots) return;
+            materializeWidths();
+        }
+        widths[row] = width;
+    }
+
+    /**
+     * Tworzy tablicę długości wierszy wypełnioną bieżącą liczbą kolumn.
+     */
+    private void materializeWidths() {
+        widths = new int[capacity];
+        Arrays.fill(widths, columnSlots);
+    }
+}
@@ -0,0 +1,151 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Kolumna kodowana słownikowo.
+ * Każda unikalna wartość jest przechowywana raz, a wiersze odwołują się do niej kodem typu int.
+ * Gdy unikalnych wartości jest więcej niż połowa zapisów, kolumna zamienia się w {@link StringColumn},
+ * a jeśli wszystkie dotychczasowe wartości są liczbami, w {@link LongColumn} lub {@link DoubleColumn}.
+ * Słownik pełni wtedy rolę próbki, na podstawie której wybierany jest typ; kolejne zapisy
+ * sprawdzają go dalej i w razie potrzeby zamieniają kolumnę na ogólniejszą.
+ */
+class DictionaryColumn extends Column {
+    private static final int MIN_DICTIONARY_CHECK = 4096;
+
+    private int[] codes;
+    private String[] dictionary = new String[16];
+    private int dictionarySize;
+    private int[] slots = new int[32];
+    private long writes;
+
+    /**
+     * Konstruktor kolumny.
+     *
+     * @param capacity początkowa pojemność
+     */
+    DictionaryColumn(int capacity) {
+        codes = new int[capacity];
+        Arrays.fill(codes, -1);
+    }
+
+    @Override
+    String get(int row) {
+        int code = codes[row];
+        return code < 0 ? null : dictionary[code];
+    }
+
+    @Override
+    Column set(int row, String value) {
+        writes++;
+        codes[row] = value == null ? -1 : codeOf(value);
+        if (dictionarySize > MIN_DICTIONARY_CHECK && dictionarySize * 2L > writes) {
+            return toPlainColumn();
+        }
+        return this;
+    }
+
+    @Override
+    void grow(int capacity) {
+        int old = codes.length;
+        codes = Arrays.copyOf(codes, capacity);
+        Arrays.fill(codes, old, capacity, -1);
+    }
+
+    @Override
+    Column copy() {
+        DictionaryColumn copy = (DictionaryColumn) super.copy();
+        copy.codes = codes.clone();
+        copy.dictionary = dictionary.clone();
+        copy.slots = slots.clone();
+        return copy;
+    }
+
+    @Override
+    void remove(int row, int size) {
+        System.arraycopy(codes, row + 1, codes, row, size - row - 1);
+        codes[size - 1] = -1;
+    }
+
+    /**
+     * Zwraca kod wartości w wierszu.
+     *
+     * @param row indeks wiersza
+     * @return indeks wartości w słowniku lub -1 dla pustej komórki
+     */
+    int code(int row) {
+        return codes[row];
+    }
+
+    /**
+     * Zwraca liczbę wartości w słowniku.
+     *
+     * @return liczba unikalnych wartości
+     */
+    int dictionarySize() {
+        return dictionarySize;
+    }
+
+    /**
+     * Zwraca wartość ze słownika.
+     *
+     * @param code indeks wartości w słowniku
+     * @return wartość
+     */
+    String dictionaryValue(int code) {
+        return dictionary[code];
+    }
+
+    /**
+     * Zwraca kod wartości, dodając ją do słownika, jeśli jeszcze jej tam nie ma.
+     * Słownik używa adresowania otwartego, aby nie tworzyć obiektów dla wpisów.
+     */
+    private int codeOf(String value) {
+        int mask = slots.length - 1;
+        int i = spread(value.hashCode()) & mask;
+        while (slots[i] != 0) {
+            int code = slots[i] - 1;
+            if (dictionary[code].equals(value)) return code;
+            i = (i + 1) & mask;
+        }
+        if (dictionarySize == dictionary.length) dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+        int code = dictionarySize++;
+        dictionary[code] = value;
+        slots[i] = code + 1;
+        if (dictionarySize * 2 > slots.length) rehash();
+        return code;
+    }
+
+    /**
+     * Podwaja tablicę słownika haszującego.
+     */
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int code = 0; code < dictionarySize; code++) {
+            int i = spread(dictionary[code].hashCode()) & mask;
+            while (slots[i] != 0) i = (i + 1) & mask;
+            slots[i] = code + 1;
+        }
+    }
+
+    /**
+     * Miesza bity skrótu, aby ograniczyć kolizje w tablicy o rozmiarze potęgi dwójki.
+     */
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Tworzy kolumnę bez słownika z tymi samymi wartościami: liczbową, jeśli wszystkie wartości są liczbami.
+     */
+    private Column toPlainColumn() {
+        Column column = NumericColumn.infer(dictionary, dictionarySize, codes.length);
+        if (column == null) column = new StringColumn(codes.length);
+        for (int row = 0; row < codes.length; row++) {
+            if (codes[row] >= 0) column = column.set(row, dictionary[codes[row]]);
+        }
+        return column;
+    }
+}
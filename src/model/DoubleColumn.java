@@ -0,0 +1,143 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Kolumna liczb zmiennoprzecinkowych przechowywanych w tablicy typu double.
+ * Separator dziesiętny (kropka lub przecinek) jest wspólny dla całej kolumny;
+ * zapis tekstu, który nie jest liczbą z tym separatorem, zamienia kolumnę na {@link StringColumn}.
+ */
+class DoubleColumn extends NumericColumn {
+    private static final double MAX_INTEGRAL = 1e15;
+
+    private final char separator;
+    private double[] values;
+
+    /**
+     * Konstruktor pustej kolumny.
+     *
+     * @param capacity  początkowa pojemność
+     * @param separator separator dziesiętny wartości
+     */
+    DoubleColumn(int capacity, char separator) {
+        super(capacity);
+        this.separator = separator;
+        values = new double[capacity];
+    }
+
+    /**
+     * Sprawdza, czy tekst jest liczbą dziesiętną z podanym separatorem i opcjonalnym wykładnikiem.
+     *
+     * @param value     tekst wartości
+     * @param separator separator dziesiętny
+     * @return true, jeśli tekst można zapisać w kolumnie z tym separatorem
+     */
+    static boolean parses(String value, char separator) {
+        int length = value.length();
+        int i = length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+') ? 1 : 0;
+        int digits = 0;
+        while (i < length && isDigit(value.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < length && value.charAt(i) == separator) {
+            i++;
+            while (i < length && isDigit(value.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) return false;
+        if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) i++;
+            int exponent = i;
+            while (i < length && isDigit(value.charAt(i))) i++;
+            if (i == exponent) return false;
+        }
+        return i == length;
+    }
+
+    @Override
+    boolean store(int row, String value) {
+        if (!parses(value, separator)) return false;
+        values[row] = Double.parseDouble(separator == '.' ? value : value.replace(separator, '.'));
+        return true;
+    }
+
+    @Override
+    boolean reproduces(int row, String value) {
+        return format(row).equals(value);
+    }
+
+    /**
+     * Zwraca tekst liczby z podanym separatorem dziesiętnym; liczby całkowite są zapisywane bez części ułamkowej.
+     *
+     * @param value     liczba
+     * @param separator separator dziesiętny
+     * @return tekst liczby
+     */
+    static String format(double value, char separator) {
+        if (value == Math.rint(value) && Math.abs(value) < MAX_INTEGRAL) return Long.toString((long) value);
+        String text = Double.toString(value);
+        return separator == '.' ? text : text.replace('.', separator);
+    }
+
+    /**
+     * Zwraca separator dziesiętny kolumny.
+     *
+     * @return kropka lub przecinek
+     */
+    char separator() {
+        return separator;
+    }
+
+    @Override
+    String format(int row) {
+        return format(values[row], separator);
+    }
+
+    @Override
+    double number(int row) {
+        return values[row];
+    }
+
+    @Override
+    long bits(int row) {
+        return Double.doubleToRawLongBits(values[row]);
+    }
+
+    @Override
+    Column widen(String value) {
+        return new StringColumn(values.length);
+    }
+
+    @Override
+    Column copy() {
+        DoubleColumn copy = (DoubleColumn) super.copy();
+        copy.values = values.clone();
+        return copy;
+    }
+
+    @Override
+    void growValues(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    void removeValue(int row, int size) {
+        System.arraycopy(values, row + 1, values, row, size - row - 1);
+    }
+
+    @Override
+    int capacity() {
+        return values.length;
+    }
+
+    /**
+     * Sprawdza, czy znak jest cyfrą dziesiętną.
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
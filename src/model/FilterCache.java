@@ -0,0 +1,149 @@
+package model;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pamięć podręczna ostatnich wyników filtrów kolumn, usuwająca najdawniej używane wyniki.
+ * Oprócz wyniku identycznego zapytania potrafi wskazać wynik szerszego zapytania,
+ * np. "Zawiera err" dla "Zawiera erro", spośród którego wystarczy wybrać wiersze nowego wyniku.
+ * Każda zmiana danych unieważnia wszystkie wyniki. Metody mogą być wywoływane z wielu wątków.
+ */
+class FilterCache {
+    /** Domyślny limit pamięci wyników w bajtach. */
+    static final long DEFAULT_LIMIT = 64L << 20;
+    /** Szacowany koszt wpisu bez tablicy wierszy: klucz, słowo i węzeł mapy. */
+    private static final long ENTRY_BYTES = 128;
+
+    private final Map<Key, int[]> results = new LinkedHashMap<>(16, 0.75f, true);
+    private long limit = DEFAULT_LIMIT;
+    private long memory;
+    private long version;
+
+    /**
+     * Klucz wyniku: kolumna, typ filtra i słowo kluczowe.
+     */
+    private record Key(int col, FilterType type, String word) {
+    }
+
+    /**
+     * Zwraca wynik identycznego zapytania.
+     *
+     * @param col  indeks kolumny
+     * @param type typ filtra
+     * @param word słowo kluczowe
+     * @return rosnące indeksy wierszy lub null, jeśli wyniku nie ma w pamięci
+     */
+    synchronized int[] get(int col, FilterType type, String word) {
+        return results.get(new Key(col, type, word));
+    }
+
+    /**
+     * Zwraca najmniejszy zapamiętany wynik, w którym musi się zawierać wynik zapytania.
+     * Słowo zawierające, rozpoczynające lub kończące się poprzednim słowem spełnia filtr tego samego typu
+     * z poprzednim słowem, więc wiersze pasujące do nowego słowa pasowały też do poprzedniego.
+     *
+     * @param col  indeks kolumny
+     * @param type typ filtra
+     * @param word słowo kluczowe
+     * @return rosnące indeksy wierszy lub null, jeśli żaden wynik nie zawęża zapytania
+     */
+    synchronized int[] narrowest(int col, FilterType type, String word) {
+        Key best = null;
+        int[] rows = null;
+        for (Map.Entry<Key, int[]> e : results.entrySet()) {
+            Key key = e.getKey();
+            if (key.col != col || key.type != type || !type.matches(word, key.word)) continue;
+            if (rows == null || e.getValue().length < rows.length) {
+                best = key;
+                rows = e.getValue();
+            }
+        }
+        // Odczyt przenosi wynik na koniec kolejności, więc nie zostanie usunięty jako najdawniej używany.
+        if (best != null) results.get(best);
+        return rows;
+    }
+
+    /**
+     * Zwraca wersję danych, do której odnoszą się wyniki. Wynik wyznaczony dla starszej wersji nie jest zapamiętywany.
+     *
+     * @return numer wersji
+     */
+    synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Zapamiętuje wynik zapytania, usuwając najdawniej używane wyniki ponad limit pamięci.
+     *
+     * @param col     indeks kolumny
+     * @param type    typ filtra
+     * @param word    słowo kluczowe
+     * @param rows    rosnące indeksy pasujących wierszy
+     * @param version wersja danych z chwili rozpoczęcia filtrowania
+     */
+    synchronized void put(int col, FilterType type, String word, int[] rows, long version) {
+        long size = size(rows);
+        if (version != this.version || size > limit) return;
+        int[] previous = results.put(new Key(col, type, word), rows);
+        if (previous != null) memory -= size(previous);
+        memory += size;
+        trim();
+    }
+
+    /**
+     * Usuwa wszystkie wyniki po zmianie danych.
+     */
+    synchronized void clear() {
+        results.clear();
+        memory = 0;
+        version++;
+    }
+
+    /**
+     * Ustawia limit pamięci wyników.
+     *
+     * @param bytes limit w bajtach
+     */
+    synchronized void setLimit(long bytes) {
+        limit = bytes;
+        trim();
+    }
+
+    /**
+     * Zwraca limit pamięci wyników.
+     *
+     * @return limit w bajtach
+     */
+    synchronized long limit() {
+        return limit;
+    }
+
+    /**
+     * Zwraca szacowaną pamięć zajmowaną przez wyniki.
+     *
+     * @return liczba bajtów
+     */
+    synchronized long memory() {
+        return memory;
+    }
+
+    /**
+     * Usuwa najdawniej używane wyniki, dopóki pamięć przekracza limit.
+     */
+    private void trim() {
+        Iterator<int[]> it = results.values().iterator();
+        while (memory > limit && it.hasNext()) {
+            memory -= size(it.next());
+            it.remove();
+        }
+    }
+
+    /**
+     * Zwraca szacowany rozmiar wpisu z wynikiem.
+     */
+    private static long size(int[] rows) {
+        return ENTRY_BYTES + (long) rows.length * Integer.BYTES;
+    }
+}
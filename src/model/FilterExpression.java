@@ -0,0 +1,584 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Wyrażenie filtrujące obejmujące wiele kolumn.
+ * Wyrażenie jest kompilowane raz do drzewa predykatów i sprawdzane dla każdego wiersza w jednym przebiegu.
+ *
+ * <p>Składnia: {@code kolumna operator wartość}, łączone przez {@code AND}, {@code OR}, {@code NOT}
+ * (lub {@code &&}, {@code ||}, {@code !}) i nawiasy. Kolumnę podaje się nazwą nagłówka lub numerem od 1;
+ * nazwy i wartości ze spacjami ujmuje się w cudzysłów. Operatory:
+ * <ul>
+ *     <li>{@code = !=} – równość (liczbowa, jeśli obie strony są liczbami),</li>
+ *     <li>{@code < <= > >=} – porównanie liczbowe,</li>
+ *     <li>{@code ~ !~} – wyrażenie regularne (dopasowanie fragmentu),</li>
+ *     <li>{@code zawiera rozpoczyna konczy rowna} – filtry tekstowe jak w {@link FilterType}.</li>
+ * </ul>
+ * Przykład: {@code kraj = PL AND (kwota > 1000 OR opis ~ "^pilne") AND NOT status zawiera anul}.
+ * Puste komórki nie spełniają żadnego predykatu.
+ */
+public class FilterExpression {
+    /** Etykieta typu filtra wyrażeniowego w interfejsie. */
+    public static final String LABEL = "Wyrazenie";
+
+    private static final int SAMPLE_ROWS = 1024;
+
+    private final Node root;
+
+    private FilterExpression(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Kompiluje wyrażenie.
+     *
+     * @param text    treść wyrażenia
+     * @param headers nagłówki kolumn, używane do rozpoznawania nazw kolumn
+     * @return skompilowane wyrażenie
+     * @throws IllegalArgumentException jeśli wyrażenie jest niepoprawne
+     */
+    public static FilterExpression parse(String text, List<String> headers) {
+        Parser parser = new Parser(tokenize(text), headers);
+        Node root = parser.parseOr();
+        if (parser.pos < parser.tokens.size()) {
+            throw new IllegalArgumentException("Nieoczekiwany element: " + parser.tokens.get(parser.pos).text);
+        }
+        return new FilterExpression(root);
+    }
+
+    /**
+     * Sprawdza, czy wiersz spełnia wyrażenie.
+     *
+     * @param row pola wiersza
+     * @return true, jeśli wiersz pasuje
+     */
+    public boolean matches(String[] row) {
+        return root.test(col -> col < row.length ? row[col] : null);
+    }
+
+    /**
+     * Wybiera pasujące wiersze magazynu.
+     * Predykaty są najpierw porządkowane według selektywności zmierzonej na próbce wierszy,
+     * a jeśli koniunkcja zawiera predykat obsługiwany przez indeks kolumny, sprawdzani są tylko jego kandydaci.
+     *
+     * @param data      magazyn wierszy
+     * @param indexes   indeksy kolumn lub null, jeśli nie należy ich używać
+     * @param scan      wybór wierszy, równoległy dla dużej liczby sprawdzanych wierszy
+     * @param cancelled zwraca true, gdy wynik nie jest już potrzebny
+     * @return rosnące indeksy pasujących wierszy
+     */
+    int[] select(RowStore data, ColumnIndexes indexes, ParallelFilter scan, BooleanSupplier cancelled) {
+        StoreCells sample = new StoreCells(data);
+        root.resetSample();
+        int step = Math.max(1, data.size() / SAMPLE_ROWS);
+        for (int i = 0; i < data.size(); i += step) {
+            sample.row = i;
+            root.sample(sample);
+        }
+        root.reorder();
+
+        int[] candidates = indexes == null ? null : root.candidates(data, indexes, cancelled);
+        return scan.select(candidates, data.size(), () -> {
+            StoreCells cells = new StoreCells(data);
+            return row -> {
+                cells.row = row;
+                return root.test(cells);
+            };
+        }, cancelled);
+    }
+
+    /**
+     * Dostęp do komórek sprawdzanego wiersza.
+     */
+    private interface Cells {
+        String get(int col);
+
+        default double number(int col) {
+            String value = get(col);
+            return value == null ? Double.NaN : parseNumber(value);
+        }
+    }
+
+    /**
+     * Komórki wiersza magazynu; ten sam obiekt jest używany dla kolejnych wierszy.
+     */
+    private static class StoreCells implements Cells {
+        private final RowStore data;
+        private int row;
+
+        StoreCells(RowStore data) {
+            this.data = data;
+        }
+
+        @Override
+        public String get(int col) {
+            return data.get(row, col);
+        }
+
+        @Override
+        public double number(int col) {
+            return data.getNumber(row, col);
+        }
+    }
+
+    /**
+     * Węzeł drzewa predykatów.
+     */
+    private abstract static class Node {
+        int sampled;
+        int passed;
+
+        abstract boolean test(Cells cells);
+
+        /**
+         * Względny koszt sprawdzenia węzła dla jednego wiersza.
+         */
+        abstract double cost();
+
+        /**
+         * Sprawdza węzeł na wierszu próbki, zliczając wyniki.
+         */
+        boolean sample(Cells cells) {
+            boolean result = test(cells);
+            sampled++;
+            if (result) passed++;
+            return result;
+        }
+
+        /**
+         * Zeruje statystyki próbki przed kolejnym wyborem wierszy.
+         */
+        void resetSample() {
+            sampled = 0;
+            passed = 0;
+        }
+
+        /**
+         * Zwraca szacowany udział pasujących wierszy.
+         */
+        double selectivity() {
+            return sampled == 0 ? 0.5 : (passed + 0.5) / (sampled + 1.0);
+        }
+
+        /**
+         * Porządkuje węzły podrzędne tak, by najtańsze i najbardziej rozstrzygające były sprawdzane najpierw.
+         */
+        void reorder() {
+        }
+
+        /**
+         * Zwraca kandydatów z indeksu kolumny lub null, jeśli węzeł nie może ich wskazać.
+         */
+        int[] candidates(RowStore data, ColumnIndexes indexes, BooleanSupplier cancelled) {
+            return null;
+        }
+    }
+
+    /**
+     * Koniunkcja lub alternatywa węzłów.
+     */
+    private static class Junction extends Node {
+        private final boolean and;
+        private final List<Node> children;
+
+        Junction(boolean and, List<Node> children) {
+            this.and = and;
+            this.children = children;
+        }
+
+        @Override
+        boolean test(Cells cells) {
+            for (Node child : children) {
+                if (child.test(cells) != and) return !and;
+            }
+            return and;
+        }
+
+        @Override
+        boolean sample(Cells cells) {
+            // Próbka obejmuje wszystkie węzły, niezależnie od skracania obliczeń.
+            boolean result = and;
+            for (Node child : children) {
+                if (child.sample(cells) != and) result = !and;
+            }
+            sampled++;
+            if (result) passed++;
+            return result;
+        }
+
+        @Override
+        void resetSample() {
+            super.resetSample();
+            for (Node child : children) child.resetSample();
+        }
+
+        @Override
+        double cost() {
+            double total = 0;
+            for (Node child : children) total += child.cost();
+            return total;
+        }
+
+        @Override
+        void reorder() {
+            for (Node child : children) child.reorder();
+            // Oczekiwany koszt jest najmniejszy, gdy węzły są ułożone rosnąco według kosztu
+            // podzielonego przez prawdopodobieństwo przerwania obliczeń.
+            children.sort(Comparator.comparingDouble(c -> c.cost() / Math.max(1e-6, and ? 1 - c.selectivity() : c.selectivity())));
+        }
+
+        @Override
+        int[] candidates(RowStore data, ColumnIndexes indexes, BooleanSupplier cancelled) {
+            if (!and) return null;
+            int[] best = null;
+            for (Node child : children) {
+                int[] c = child.candidates(data, indexes, cancelled);
+                if (c != null && (best == null || c.length < best.length)) best = c;
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Zaprzeczenie węzła.
+     */
+    private static class Not extends Node {
+        private final Node child;
+
+        Not(Node child) {
+            this.child = child;
+        }
+
+        @Override
+        boolean test(Cells cells) {
+            return !child.test(cells);
+        }
+
+        @Override
+        boolean sample(Cells cells) {
+            boolean result = !child.sample(cells);
+            sampled++;
+            if (result) passed++;
+            return result;
+        }
+
+        @Override
+        void resetSample() {
+            super.resetSample();
+            child.resetSample();
+        }
+
+        @Override
+        double cost() {
+            return child.cost();
+        }
+
+        @Override
+        void reorder() {
+            child.reorder();
+        }
+    }
+
+    /**
+     * Predykat filtra tekstowego na jednej kolumnie.
+     */
+    private static class TextPredicate extends Node {
+        private final int col;
+        private final FilterType type;
+        private final String word;
+
+        TextPredicate(int col, FilterType type, String word) {
+            this.col = col;
+            this.type = type;
+            this.word = word;
+        }
+
+        @Override
+        boolean test(Cells cells) {
+            String value = cells.get(col);
+            return value != null && type.matches(value, word);
+        }
+
+        @Override
+        double cost() {
+            return type == FilterType.CONTAINS ? 2 : 1;
+        }
+
+        @Override
+        int[] candidates(RowStore data, ColumnIndexes indexes, BooleanSupplier cancelled) {
+            return word.isEmpty() ? null : indexes.candidates(data, type, col, word, cancelled);
+        }
+    }
+
+    /**
+     * Predykat porównania: równość tekstowa lub liczbowa oraz porównania liczbowe.
+     */
+    private static class Comparison extends Node {
+        private final int col;
+        private final String op;
+        private final String word;
+        private final double number;
+
+        Comparison(int col, String op, String word) {
+            this.col = col;
+            this.op = op;
+            this.word = word;
+            this.number = parseNumber(word);
+            if (Double.isNaN(number) && !op.equals("=") && !op.equals("!=")) {
+                throw new IllegalArgumentException("Operator " + op + " wymaga liczby: " + word);
+            }
+        }
+
+        @Override
+        boolean test(Cells cells) {
+            if (op.equals("=") || op.equals("!=")) {
+                boolean equal;
+                if (Double.isNaN(number)) {
+                    String value = cells.get(col);
+                    if (value == null) return false;
+                    equal = value.equals(word);
+                } else {
+                    // Tekst równy liczbie też jest liczbą, więc wystarczy porównać wartości liczbowe.
+                    double v = cells.number(col);
+                    if (Double.isNaN(v) && cells.get(col) == null) return false;
+                    equal = v == number;
+                }
+                return equal == op.equals("=");
+            }
+            double v = cells.number(col);
+            if (Double.isNaN(v)) return false;
+            return switch (op) {
+                case "<" -> v < number;
+                case "<=" -> v <= number;
+                case ">" -> v > number;
+                default -> v >= number;
+            };
+        }
+
+        @Override
+        double cost() {
+            return op.equals("=") ? 1 : 3;
+        }
+
+        @Override
+        int[] candidates(RowStore data, ColumnIndexes indexes, BooleanSupplier cancelled) {
+            // Indeks porównuje tekst, więc nadaje się tylko do równości z wartością, która nie jest liczbą.
+            if (!op.equals("=") || !Double.isNaN(number)) return null;
+            return indexes.candidates(data, FilterType.EQUALS, col, word, cancelled);
+        }
+    }
+
+    /**
+     * Predykat wyrażenia regularnego, dopasowujący fragment wartości.
+     */
+    private static class RegexPredicate extends Node {
+        private final int col;
+        private final Pattern pattern;
+        private final boolean negate;
+
+        RegexPredicate(int col, Pattern pattern, boolean negate) {
+            this.col = col;
+            this.pattern = pattern;
+            this.negate = negate;
+        }
+
+        @Override
+        boolean test(Cells cells) {
+            String value = cells.get(col);
+            return value != null && pattern.matcher(value).find() != negate;
+        }
+
+        @Override
+        double cost() {
+            return 10;
+        }
+    }
+
+    /**
+     * Parsuje liczbę, akceptując przecinek dziesiętny. Zwraca NaN dla wartości, które nie są liczbami,
+     * bez zgłaszania wyjątku dla każdej komórki tekstowej.
+     */
+    static double parseNumber(String text) {
+        String s = text.trim();
+        if (s.isEmpty()) return Double.NaN;
+        boolean digit = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') digit = true;
+            else if ("+-.,eE".indexOf(c) < 0) return Double.NaN;
+        }
+        if (!digit) return Double.NaN;
+        if (s.indexOf(',') >= 0) {
+            if (s.indexOf('.') >= 0) return Double.NaN;
+            s = s.replace(',', '.');
+        }
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Element wyrażenia: słowo, tekst w cudzysłowie lub symbol.
+     */
+    private record Token(String text, boolean quoted) {
+        boolean is(String symbol) {
+            return !quoted && text.equalsIgnoreCase(symbol);
+        }
+    }
+
+    /**
+     * Dzieli wyrażenie na elementy.
+     */
+    private static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"' || c == '\'') {
+                StringBuilder sb = new StringBuilder();
+                int j = i + 1;
+                while (true) {
+                    if (j >= text.length()) throw new IllegalArgumentException("Niezamkniety cudzyslow");
+                    char d = text.charAt(j);
+                    if (d == c) {
+                        if (j + 1 < text.length() && text.charAt(j + 1) == c) {
+                            sb.append(c);
+                            j += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    sb.append(d);
+                    j++;
+                }
+                tokens.add(new Token(sb.toString(), true));
+                i = j + 1;
+            } else if ("()".indexOf(c) >= 0) {
+                tokens.add(new Token(String.valueOf(c), false));
+                i++;
+            } else if ("=!<>~&|".indexOf(c) >= 0) {
+                int j = i + 1;
+                while (j < text.length() && "=!<>~&|".indexOf(text.charAt(j)) >= 0 && j - i < 2) j++;
+                tokens.add(new Token(text.substring(i, j), false));
+                i = j;
+            } else {
+                int j = i;
+                while (j < text.length() && !Character.isWhitespace(text.charAt(j)) && "()\"'=!<>~&|".indexOf(text.charAt(j)) < 0) j++;
+                tokens.add(new Token(text.substring(i, j), false));
+                i = j;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Parser zstępujący: OR ma najniższy priorytet, potem AND, potem NOT.
+     */
+    private static class Parser {
+        private final List<Token> tokens;
+        private final List<String> headers;
+        private int pos;
+
+        Parser(List<Token> tokens, List<String> headers) {
+            this.tokens = tokens;
+            this.headers = headers;
+        }
+
+        Node parseOr() {
+            List<Node> nodes = new ArrayList<>();
+            nodes.add(parseAnd());
+            while (accept("OR") || accept("||")) nodes.add(parseAnd());
+            return nodes.size() == 1 ? nodes.get(0) : new Junction(false, nodes);
+        }
+
+        Node parseAnd() {
+            List<Node> nodes = new ArrayList<>();
+            nodes.add(parseNot());
+            while (accept("AND") || accept("&&")) nodes.add(parseNot());
+            return nodes.size() == 1 ? nodes.get(0) : new Junction(true, nodes);
+        }
+
+        Node parseNot() {
+            if (accept("NOT") || accept("!")) return new Not(parseNot());
+            if (accept("(")) {
+                Node node = parseOr();
+                if (!accept(")")) throw new IllegalArgumentException("Brak nawiasu zamykajacego");
+                return node;
+            }
+            return parsePredicate();
+        }
+
+        Node parsePredicate() {
+            int col = column(next("Oczekiwano nazwy kolumny"));
+            Token op = next("Oczekiwano operatora");
+            String value = next("Oczekiwano wartosci po " + op.text).text;
+            if (op.quoted) throw new IllegalArgumentException("Oczekiwano operatora zamiast " + op.text);
+            switch (op.text) {
+                case "=", "!=", "<", "<=", ">", ">=" -> {
+                    return new Comparison(col, op.text, value);
+                }
+                case "<>" -> {
+                    return new Comparison(col, "!=", value);
+                }
+                case "~", "!~" -> {
+                    try {
+                        return new RegexPredicate(col, Pattern.compile(value), op.text.equals("!~"));
+                    } catch (PatternSyntaxException e) {
+                        throw new IllegalArgumentException("Niepoprawne wyrazenie regularne: " + value);
+                    }
+                }
+                default -> {
+                    FilterType type = FilterType.parse(op.text);
+                    if (type == null) throw new IllegalArgumentException("Nieznany operator: " + op.text);
+                    return new TextPredicate(col, type, value);
+                }
+            }
+        }
+
+        /**
+         * Zwraca indeks kolumny podanej nazwą nagłówka lub numerem od 1.
+         */
+        private int column(Token token) {
+            int index = headers.indexOf(token.text);
+            if (index < 0) {
+                for (int i = 0; i < headers.size() && index < 0; i++) {
+                    if (headers.get(i).toLowerCase(Locale.ROOT).equals(token.text.toLowerCase(Locale.ROOT))) index = i;
+                }
+            }
+            if (index >= 0) return index;
+            try {
+                index = Integer.parseInt(token.text.trim()) - 1;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Nieznana kolumna: " + token.text);
+            }
+            if (index < 0 || !headers.isEmpty() && index >= headers.size()) {
+                throw new IllegalArgumentException("Nieznana kolumna: " + token.text);
+            }
+            return index;
+        }
+
+        private boolean accept(String symbol) {
+            if (pos < tokens.size() && tokens.get(pos).is(symbol)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private Token next(String error) {
+            if (pos >= tokens.size()) throw new IllegalArgumentException(error);
+            return tokens.get(pos++);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package model;
+
+import util.CSVRecord;
+
+/**
+ * Typy filtrów dostępne w interfejsie i w trybie wsadowym.
+ */
+public enum FilterType {
+    CONTAINS("Zawiera", "zawiera", "contains"),
+    STARTS_WITH("Rozpoczyna sie", "rozpoczyna", "starts"),
+    ENDS_WITH("Konczy sie", "konczy", "ends"),
+    EQUALS("Rowna sie", "rowna", "equals");
+
+    private final String label;
+    private final String[] aliases;
+
+    FilterType(String label, String... aliases) {
+        this.label = label;
+        this.aliases = aliases;
+    }
+
+    /**
+     * Zwraca nazwę filtra wyświetlaną w interfejsie.
+     *
+     * @return etykieta filtra
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Sprawdza, czy wartość spełnia filtr.
+     *
+     * @param value wartość komórki
+     * @param word  słowo kluczowe
+     * @return true, jeśli wartość pasuje do słowa kluczowego
+     */
+    public boolean matches(String value, String word) {
+        return switch (this) {
+            case CONTAINS -> value.contains(word);
+            case STARTS_WITH -> value.startsWith(word);
+            case ENDS_WITH -> value.endsWith(word);
+            case EQUALS -> value.equals(word);
+        };
+    }
+
+    /**
+     * Sprawdza, czy pole rekordu spełnia filtr, bez tworzenia ciągu znaków.
+     *
+     * @param record rekord CSV
+     * @param field  indeks pola (musi być mniejszy od liczby pól rekordu)
+     * @param word   słowo kluczowe w kodowaniu UTF-8
+     * @return true, jeśli pole pasuje do słowa kluczowego
+     */
+    public boolean matches(CSVRecord record, int field, byte[] word) {
+        return switch (this) {
+            case CONTAINS -> record.contains(field, word);
+            case STARTS_WITH -> record.startsWith(field, word);
+            case ENDS_WITH -> record.endsWith(field, word);
+            case EQUALS -> record.equalsBytes(field, word);
+        };
+    }
+
+    /**
+     * Zwraca typ filtra o podanej etykiecie.
+     *
+     * @param label etykieta filtra, np. "Zawiera"
+     * @return typ filtra lub null, jeśli etykieta jest nieznana
+     */
+    public static FilterType fromLabel(String label) {
+        for (FilterType t : values()) {
+            if (t.label.equals(label)) return t;
+        }
+        return null;
+    }
+
+    /**
+     * Zwraca typ filtra na podstawie etykiety lub jej skrótu, bez rozróżniania wielkości liter.
+     *
+     * @param name etykieta lub skrót, np. "rowna" albo "equals"
+     * @return typ filtra lub null, jeśli nazwa jest nieznana
+     */
+    public static FilterType parse(String name) {
+        for (FilterType t : values()) {
+            if (t.label.equalsIgnoreCase(name)) return t;
+            for (String alias : t.aliases) {
+                if (alias.equalsIgnoreCase(name)) return t;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Zwraca etykiety wszystkich filtrów w kolejności wyświetlania.
+     *
+     * @return etykiety filtrów
+     */
+    public static String[] labels() {
+        FilterType[] types = values();
+        String[] labels = new String[types.length];
+        for (int i = 0; i < types.length; i++) labels[i] = types[i].label;
+        return labels;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
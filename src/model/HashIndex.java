@@ -0,0 +1,93 @@
+package model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Indeks haszujący dla filtra "Rowna sie".
+ * Każdej wartości kolumny przypisuje rosnącą listę wierszy, w których występuje.
+ */
+class HashIndex extends ColumnIndex {
+    private static final int[] EMPTY = new int[0];
+    /** Szacowany koszt wartości bez jej znaków i wierszy: węzeł i pozycja mapy, tekst i lista z nagłówkami tablic. */
+    private static final long ENTRY_BYTES = 120;
+
+    private final Map<String, IntList> rows = new HashMap<>();
+    private long memory;
+
+    private HashIndex() {
+    }
+
+    /**
+     * Buduje indeks kolumny, przerywając budowę po przekroczeniu limitu pamięci.
+     *
+     * @param data      magazyn wierszy
+     * @param col       indeks kolumny
+     * @param limit     limit pamięci w bajtach
+     * @param cancelled zwraca true, gdy indeks nie jest już potrzebny
+     * @return indeks lub null, jeśli przekroczyłby limit
+     * @throws CancellationException jeśli budowa została przerwana
+     */
+    static HashIndex build(RowStore data, int col, long limit, BooleanSupplier cancelled) {
+        HashIndex index = new HashIndex();
+        for (int i = 0; i < data.size(); i++) {
+            if ((i & CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) throw new CancellationException();
+            index.rowAdded(i, data.get(i, col));
+            if (index.memory > limit) return null;
+        }
+        return index;
+    }
+
+    @Override
+    long memory() {
+        return memory;
+    }
+
+    @Override
+    int[] find(String word) {
+        IntList list = rows.get(word);
+        return list == null ? EMPTY : list.toArray();
+    }
+
+    @Override
+    void rowAdded(int row, String value) {
+        if (value == null) return;
+        IntList list = rows.get(value);
+        if (list == null) {
+            list = new IntList(1);
+            rows.put(value, list);
+            memory += ENTRY_BYTES + value.length() + Integer.BYTES;
+        }
+        int capacity = list.capacity();
+        list.insert(row);
+        memory += (long) (list.capacity() - capacity) * Integer.BYTES;
+    }
+
+    @Override
+    void rowDeleted(int row, String value) {
+        remove(row, value);
+        for (IntList list : rows.values()) list.shiftAbove(row);
+    }
+
+    @Override
+    void valueChanged(int row, String oldValue, String value) {
+        remove(row, oldValue);
+        rowAdded(row, value);
+    }
+
+    /**
+     * Usuwa wiersz z listy wartości, usuwając pustą listę.
+     */
+    private void remove(int row, String value) {
+        if (value == null) return;
+        IntList list = rows.get(value);
+        if (list == null) return;
+        list.remove(row);
+        if (list.size() == 0) {
+            rows.remove(value);
+            memory -= ENTRY_BYTES + value.length() + (long) list.capacity() * Integer.BYTES;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package model;
+
+import util.CSVRecord;
+import util.CSVTokenizer;
+import util.MappedCSVReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * Magazyn tylko do odczytu, który parsuje wiersze pliku CSV dopiero przy dostępie do nich.
+ * Przy otwarciu jeden przebieg przez plik zapamiętuje pozycję początku co 64. rekordu (z uwzględnieniem pól
+ * w cudzysłowie, które mogą zawierać znaki nowej linii), więc indeks zajmuje 8 bajtów na 64 wiersze.
+ * Odczyt wiersza parsuje cały jego blok 64 rekordów ze zmapowanego pliku, a ostatnio używane bloki
+ * są przechowywane w ograniczonej pamięci podręcznej. Pamięć nie zależy więc od rozmiaru pliku,
+ * poza samym indeksem. Metody odczytu mogą być wywoływane z wielu wątków.
+ * Plik nie może być zmieniany, dopóki magazyn jest używany.
+ */
+public class IndexedRowStore implements RowStore {
+    private static final int BLOCK_BITS = 6;
+    private static final int BLOCK_ROWS = 1 << BLOCK_BITS;
+    private static final int CACHED_BLOCKS = 1024;
+    private static final int PROGRESS_BLOCKS = 4096;
+    private static final long MAX_BLOCK_BYTES = Integer.MAX_VALUE - 8;
+
+    private final CSVTokenizer tokenizer;
+    private long[] offsets = new long[1024];
+    private int blocks;
+    private int size;
+    private int maxWidth;
+    private long end;
+    private String[] header;
+    private SnapshotBuffer file;
+    private final Map<Integer, String[][]> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String[][]> eldest) {
+            return size() > CACHED_BLOCKS;
+        }
+    };
+
+    private IndexedRowStore(String delimiter) {
+        this.tokenizer = new CSVTokenizer(delimiter);
+    }
+
+    /**
+     * Buduje indeks pliku CSV.
+     *
+     * @param file      plik CSV bez kompresji
+     * @param delimiter separator użyty w pliku (pierwszy znak, musi być znakiem ASCII)
+     * @param hasHeader określa, czy pierwszy rekord jest nagłówkiem
+     * @param progress  odbiorca liczby przeskanowanych bajtów, wywoływany co pewien czas
+     * @param cancelled warunek przerwania budowania indeksu
+     * @return magazyn wierszy pliku
+     * @throws IOException jeśli wystąpi błąd I/O lub plik ma więcej wierszy niż mieści się w modelu
+     * @throws CancellationException jeśli budowanie indeksu zostało przerwane
+     */
+    public static IndexedRowStore open(File file, String delimiter, boolean hasHeader, LongConsumer progress,
+                                       BooleanSupplier cancelled) throws IOException {
+        if (!CSVTokenizer.supports(delimiter)) throw new IOException("Tryb indeksu wymaga separatora ASCII");
+        IndexedRowStore store = new IndexedRowStore(delimiter);
+        try {
+            store.index(new MappedCSVReader(file, delimiter), hasHeader, progress, cancelled);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            store.file = SnapshotBuffer.map(channel);
+        }
+        if (store.file.size() < store.end) throw new IOException("Plik zmienil sie podczas indeksowania");
+        return store;
+    }
+
+    /**
+     * Zwraca pierwszy rekord pliku, jeśli był nagłówkiem.
+     *
+     * @return pola nagłówka lub null
+     */
+    public String[] header() {
+        return header == null ? null : header.clone();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int columnCount() {
+        return maxWidth;
+    }
+
+    @Override
+    public int width(int row) {
+        return row(row).length;
+    }
+
+    @Override
+    public String get(int row, int col) {
+        String[] r = row(row);
+        return col < r.length ? r[col] : null;
+    }
+
+    @Override
+    public String[] getRow(int row) {
+        return row(row).clone();
+    }
+
+    @Override
+    public void set(int row, int col, String value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void add(String[] row) {
+        throw readOnly();
+    }
+
+    @Override
+    public void remove(int row) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addColumn() {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeColumn(int col) {
+        throw readOnly();
+    }
+
+    /**
+     * Zwraca ten sam magazyn, ponieważ jego dane się nie zmieniają.
+     */
+    @Override
+    public RowStore snapshot() {
+        return this;
+    }
+
+    /**
+     * Skanuje plik, zapamiętując początek pierwszego rekordu każdego bloku i najdłuższy wiersz.
+     */
+    private void index(MappedCSVReader reader, boolean hasHeader, LongConsumer progress, BooleanSupplier cancelled)
+            throws IOException {
+        boolean[] headerPending = {hasHeader};
+        long[] start = {0};
+        reader.scan(0, Long.MAX_VALUE, record -> {
+            if (headerPending[0]) {
+                header = record.toArray();
+                headerPending[0] = false;
+            } else {
+                if ((size & BLOCK_ROWS - 1) == 0) startBlock(start[0], progress, cancelled);
+                size++;
+                if (record.size() > maxWidth) maxWidth = record.size();
+            }
+            start[0] = reader.position();
+        });
+        end = start[0];
+        if (blocks > 0) checkBlock(end - offsets[blocks - 1]);
+    }
+
+    /**
+     * Zapamiętuje początek kolejnego bloku.
+     */
+    private void startBlock(long position, LongConsumer progress, BooleanSupplier cancelled) {
+        if (size == Integer.MAX_VALUE) throw new UncheckedIOException(new IOException("Plik ma zbyt wiele wierszy"));
+        if (blocks > 0) checkBlock(position - offsets[blocks - 1]);
+        if (blocks == offsets.length) offsets = Arrays.copyOf(offsets, blocks * 2);
+        offsets[blocks++] = position;
+        if (blocks % PROGRESS_BLOCKS == 0) {
+            if (cancelled.getAsBoolean()) throw new CancellationException();
+            progress.accept(position);
+        }
+    }
+
+    /**
+     * Sprawdza, czy blok zmieści się w tablicy bajtów przy parsowaniu.
+     */
+    private static void checkBlock(long bytes) {
+        if (bytes > MAX_BLOCK_BYTES) throw new UncheckedIOException(new IOException("Rekordy sa zbyt dlugie dla trybu indeksu"));
+    }
+
+    /**
+     * Zwraca sparsowany wiersz, parsując jego blok, jeśli nie ma go w pamięci podręcznej.
+     */
+    private String[] row(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Wiersz " + row + " poza zakresem 0-" + (size - 1));
+        Integer block = row >>> BLOCK_BITS;
+        String[][] rows;
+        synchronized (cache) {
+            rows = cache.get(block);
+        }
+        if (rows == null) {
+            rows = parse(block);
+            synchronized (cache) {
+                cache.put(block, rows);
+            }
+        }
+        return rows[row & BLOCK_ROWS - 1];
+    }
+
+    /**
+     * Parsuje rekordy bloku, pomijając puste linie tak jak przy zwykłym wczytywaniu.
+     */
+    private String[][] parse(int block) {
+        long from = offsets[block];
+        long to = block + 1 < blocks ? offsets[block + 1] : end;
+        byte[] bytes = new byte[(int) (to - from)];
+        file.getBytes(from, bytes);
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        CSVRecord record = new CSVRecord();
+        String[][] rows = new String[Math.min(BLOCK_ROWS, size - block * BLOCK_ROWS)][];
+        int n = 0;
+        for (int p = 0; n < rows.length && p < bytes.length; ) {
+            p = tokenizer.next(buf, p, bytes.length, true, record);
+            if (!record.isBlank()) rows[n++] = record.toArray();
+        }
+        if (n < rows.length) throw new UncheckedIOException(new IOException("Plik zmienil sie od zbudowania indeksu"));
+        return rows;
+    }
+
+    /**
+     * Zwraca wyjątek dla operacji zmieniających dane.
+     */
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Plik jest otwarty tylko do przegladania");
+    }
+}
@@ -0,0 +1,117 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Rosnąco posortowana lista różnych liczb int bez opakowywania w obiekty.
+ * Przechowuje indeksy wierszy w indeksach kolumn.
+ */
+class IntList {
+    private int[] values;
+    private int size;
+
+    /**
+     * Konstruktor pustej listy.
+     *
+     * @param capacity początkowa pojemność
+     */
+    IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Zwraca liczbę elementów.
+     *
+     * @return liczba elementów
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Zwraca pojemność listy.
+     *
+     * @return liczba elementów mieszczących się bez powiększania
+     */
+    int capacity() {
+        return values.length;
+    }
+
+    /**
+     * Wstawia wartość z zachowaniem porządku, pomijając wartości już obecne.
+     * Wartość większa od ostatniej jest dopisywana bez przesuwania.
+     *
+     * @param value wartość do wstawienia
+     * @return true, jeśli wartość została wstawiona
+     */
+    boolean insert(int value) {
+        int pos = size == 0 || values[size - 1] < value ? size : insertionPoint(value);
+        if (pos < size && values[pos] == value) return false;
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        System.arraycopy(values, pos, values, pos + 1, size - pos);
+        values[pos] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * Usuwa wartość, jeśli występuje na liście.
+     *
+     * @param value wartość do usunięcia
+     */
+    void remove(int value) {
+        int pos = Arrays.binarySearch(values, 0, size, value);
+        if (pos < 0) return;
+        System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+        size--;
+    }
+
+    /**
+     * Zmniejsza o jeden wszystkie wartości większe od podanej.
+     *
+     * @param value próg
+     */
+    void shiftAbove(int value) {
+        for (int i = insertionPoint(value + 1); i < size; i++) values[i]--;
+    }
+
+    /**
+     * Sprawdza, czy lista zawiera wartość.
+     *
+     * @param value szukana wartość
+     * @return true, jeśli wartość występuje na liście
+     */
+    boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    /**
+     * Zmniejsza pojemność do liczby elementów.
+     */
+    void trim() {
+        if (values.length > size) values = Arrays.copyOf(values, Math.max(size, 1));
+    }
+
+    /**
+     * Zwraca kopię elementów listy.
+     *
+     * @return elementy w porządku rosnącym
+     */
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Zwraca pozycję pierwszego elementu nie mniejszego od wartości.
+     */
+    private int insertionPoint(int value) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < value) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
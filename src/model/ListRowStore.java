@@ -0,0 +1,119 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Magazyn wierszy przechowujący każdy wiersz jako osobną tablicę ciągów znaków.
+ * Po utworzeniu migawki tablice wierszy są współdzielone, więc zmiana komórki zastępuje tablicę wiersza kopią.
+ */
+public class ListRowStore implements RowStore {
+    private final List<String[]> rows;
+    private int maxWidth = -1;
+    private boolean shared;
+
+    /**
+     * Konstruktor tworzący pusty magazyn.
+     */
+    public ListRowStore() {
+        this(new ArrayList<>());
+    }
+
+    /**
+     * Konstruktor opakowujący istniejącą listę wierszy.
+     *
+     * @param rows lista wierszy
+     */
+    public ListRowStore(List<String[]> rows) {
+        this.rows = rows;
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    @Override
+    public int columnCount() {
+        if (maxWidth < 0) {
+            int max = 0;
+            for (String[] row : rows) {
+                if (row.length > max) max = row.length;
+            }
+            maxWidth = max;
+        }
+        return maxWidth;
+    }
+
+    @Override
+    public int width(int row) {
+        return rows.get(row).length;
+    }
+
+    @Override
+    public String get(int row, int col) {
+        String[] r = rows.get(row);
+        return col < r.length ? r[col] : null;
+    }
+
+    @Override
+    public String[] getRow(int row) {
+        return rows.get(row);
+    }
+
+    @Override
+    public void set(int row, int col, String value) {
+        String[] r = rows.get(row);
+        if (r.length <= col || shared) {
+            r = Arrays.copyOf(r, Math.max(r.length, col + 1));
+            rows.set(row, r);
+            if (maxWidth >= 0) maxWidth = Math.max(maxWidth, r.length);
+        }
+        r[col] = value;
+    }
+
+    @Override
+    public void add(String[] row) {
+        rows.add(row);
+        if (maxWidth >= 0) maxWidth = Math.max(maxWidth, row.length);
+    }
+
+    @Override
+    public void remove(int row) {
+        rows.remove(row);
+        maxWidth = -1;
+    }
+
+    @Override
+    public void addColumn() {
+        for (int i = 0; i < rows.size(); i++) {
+            String[] row = rows.get(i);
+            rows.set(i, Arrays.copyOf(row, row.length + 1));
+        }
+        maxWidth = -1;
+    }
+
+    @Override
+    public RowStore snapshot() {
+        shared = true;
+        ListRowStore copy = new ListRowStore(new ArrayList<>(rows));
+        copy.shared = true;
+        copy.maxWidth = maxWidth;
+        return copy;
+    }
+
+    @Override
+    public void removeColumn(int col) {
+        for (int i = 0; i < rows.size(); i++) {
+            String[] row = rows.get(i);
+            if (col < row.length) {
+                String[] newRow = new String[row.length - 1];
+                System.arraycopy(row, 0, newRow, 0, col);
+                System.arraycopy(row, col + 1, newRow, col, row.length - col - 1);
+                rows.set(i, newRow);
+            }
+        }
+        maxWidth = -1;
+    }
+}
@@ -0,0 +1,116 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Kolumna liczb całkowitych przechowywanych w tablicy typu long.
+ * Zapis liczby z częścią ułamkową zamienia ją na {@link DoubleColumn}, a zapis tekstu na {@link StringColumn}.
+ */
+class LongColumn extends NumericColumn {
+    private long[] values;
+
+    /**
+     * Konstruktor pustej kolumny.
+     *
+     * @param capacity początkowa pojemność
+     */
+    LongColumn(int capacity) {
+        super(capacity);
+        values = new long[capacity];
+    }
+
+    /**
+     * Sprawdza, czy tekst jest liczbą całkowitą mieszczącą się w typie long.
+     *
+     * @param value tekst wartości
+     * @return true, jeśli tekst można zapisać w tej kolumnie
+     */
+    static boolean parses(String value) {
+        if (!isInteger(value)) return false;
+        try {
+            Long.parseLong(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    @Override
+    boolean store(int row, String value) {
+        if (!isInteger(value)) return false;
+        try {
+            values[row] = Long.parseLong(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    @Override
+    boolean reproduces(int row, String value) {
+        // Znak "+", zera wiodące i "-0" nie dają się odtworzyć z liczby.
+        char first = value.charAt(0);
+        if (first == '+') return false;
+        int start = first == '-' ? 1 : 0;
+        return value.charAt(start) != '0' || value.length() == 1;
+    }
+
+    @Override
+    String format(int row) {
+        return Long.toString(values[row]);
+    }
+
+    @Override
+    double number(int row) {
+        return values[row];
+    }
+
+    @Override
+    long bits(int row) {
+        return values[row];
+    }
+
+    @Override
+    Column widen(String value) {
+        char separator = value.indexOf(',') >= 0 ? ',' : '.';
+        if (DoubleColumn.parses(value, separator)) return new DoubleColumn(values.length, separator);
+        return new StringColumn(values.length);
+    }
+
+    @Override
+    Column copy() {
+        LongColumn copy = (LongColumn) super.copy();
+        copy.values = values.clone();
+        return copy;
+    }
+
+    @Override
+    void growValues(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    void removeValue(int row, int size) {
+        System.arraycopy(values, row + 1, values, row, size - row - 1);
+    }
+
+    @Override
+    int capacity() {
+        return values.length;
+    }
+
+    /**
+     * Sprawdza, czy tekst składa się z opcjonalnego znaku i co najwyżej 19 cyfr.
+     * Wstępne sprawdzenie pozwala uniknąć wyjątku dla każdej komórki, która nie jest liczbą.
+     */
+    private static boolean isInteger(String value) {
+        int length = value.length();
+        int start = length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+') ? 1 : 0;
+        if (start == length || length - start > 19) return false;
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+}
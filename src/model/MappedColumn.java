@@ -0,0 +1,59 @@
+package model;
+
+/**
+ * Kolumna tylko do odczytu, której wartości są czytane z zmapowanego w pamięci pliku migawki.
+ * Otwarcie kolumny nie czyta danych z dysku; system wczytuje strony pliku dopiero przy dostępie do wierszy.
+ * Pierwsza zmiana zastępuje kolumnę jej kopią w pamięci (patrz {@link #modifiable()}).
+ */
+abstract class MappedColumn extends Column {
+    final SnapshotBuffer buffer;
+    final int size;
+
+    /**
+     * Konstruktor kolumny.
+     *
+     * @param buffer plik migawki
+     * @param size   liczba wierszy
+     */
+    MappedColumn(SnapshotBuffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    @Override
+    Column set(int row, String value) {
+        return modifiable().set(row, value);
+    }
+
+    @Override
+    void grow(int capacity) {
+        throw new IllegalStateException("Kolumna migawki jest tylko do odczytu");
+    }
+
+    /**
+     * Zwraca tę samą kolumnę, ponieważ kolumny tylko do odczytu można współdzielić.
+     */
+    @Override
+    Column copy() {
+        return this;
+    }
+
+    /**
+     * Kopiuje wartości do kolumny w pamięci. Typ kopii jest wybierany tak jak przy wczytywaniu pliku CSV
+     * (patrz {@link DictionaryColumn}).
+     */
+    @Override
+    Column modifiable() {
+        Column column = new DictionaryColumn(size);
+        for (int row = 0; row < size; row++) {
+            String value = get(row);
+            if (value != null) column = column.set(row, value);
+        }
+        return column;
+    }
+
+    @Override
+    void remove(int row, int size) {
+        throw new IllegalStateException("Kolumna migawki jest tylko do odczytu");
+    }
+}
@@ -0,0 +1,44 @@
+package model;
+
+/**
+ * Kolumna migawki kodowana słownikowo: kody wierszy i słownik są czytane z pliku.
+ * Odczytane wartości słownika są zapamiętywane, więc każda jest dekodowana tylko raz.
+ */
+class MappedDictionaryColumn extends MappedColumn {
+    private final long codes;
+    private final long offsets;
+    private final long bytes;
+    private final String[] values;
+
+    /**
+     * Konstruktor kolumny.
+     *
+     * @param buffer         plik migawki
+     * @param size           liczba wierszy
+     * @param dictionarySize liczba wartości w słowniku
+     * @param codes          położenie kodów wierszy (int, -1 dla pustej komórki)
+     * @param offsets        położenie przesunięć wartości słownika (long, o jedno więcej niż wartości)
+     * @param bytes          położenie bajtów wartości słownika
+     */
+    MappedDictionaryColumn(SnapshotBuffer buffer, int size, int dictionarySize, long codes, long offsets, long bytes) {
+        super(buffer, size);
+        this.codes = codes;
+        this.offsets = offsets;
+        this.bytes = bytes;
+        this.values = new String[dictionarySize];
+    }
+
+    @Override
+    String get(int row) {
+        int code = buffer.getInt(codes + 4L * row);
+        if (code < 0) return null;
+        String value = values[code];
+        if (value == null) {
+            long start = buffer.getLong(offsets + 8L * code);
+            long end = buffer.getLong(offsets + 8L * (code + 1));
+            value = buffer.getString(bytes + start, (int) (end - start));
+            values[code] = value;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,81 @@
+package model;
+
+/**
+ * Kolumna migawki z liczbami typu long lub double.
+ * Tekst wartości jest odtwarzany z liczby tak jak w {@link NumericColumn}; oryginalne teksty, których liczba
+ * nie odtwarza, są zapisane osobno dla rosnących indeksów wierszy i wyszukiwane binarnie.
+ */
+class MappedNumericColumn extends MappedColumn {
+    private final char separator;
+    private final long values;
+    private final long nulls;
+    private final int textCount;
+    private final long textRows;
+    private final long textOffsets;
+    private final long textBytes;
+
+    /**
+     * Konstruktor kolumny.
+     *
+     * @param buffer      plik migawki
+     * @param size        liczba wierszy
+     * @param separator   separator dziesiętny lub 0 dla liczb całkowitych typu long
+     * @param values      położenie bitów liczb (long)
+     * @param nulls       położenie mapy bitowej pustych komórek
+     * @param textCount   liczba zapamiętanych oryginalnych tekstów
+     * @param textRows    położenie rosnących indeksów wierszy z oryginalnym tekstem (int)
+     * @param textOffsets położenie przesunięć tekstów (long, o jedno więcej niż tekstów)
+     * @param textBytes   położenie bajtów tekstów
+     */
+    MappedNumericColumn(SnapshotBuffer buffer, int size, char separator, long values, long nulls,
+                        int textCount, long textRows, long textOffsets, long textBytes) {
+        super(buffer, size);
+        this.separator = separator;
+        this.values = values;
+        this.nulls = nulls;
+        this.textCount = textCount;
+        this.textRows = textRows;
+        this.textOffsets = textOffsets;
+        this.textBytes = textBytes;
+    }
+
+    @Override
+    String get(int row) {
+        if (buffer.getBit(nulls, row)) return null;
+        if (textCount > 0) {
+            int i = findText(row);
+            if (i >= 0) {
+                long start = buffer.getLong(textOffsets + 8L * i);
+                long end = buffer.getLong(textOffsets + 8L * (i + 1));
+                return buffer.getString(textBytes + start, (int) (end - start));
+            }
+        }
+        long bits = buffer.getLong(values + 8L * row);
+        return separator == 0 ? Long.toString(bits) : DoubleColumn.format(Double.longBitsToDouble(bits), separator);
+    }
+
+    @Override
+    double getNumber(int row) {
+        if (buffer.getBit(nulls, row)) return Double.NaN;
+        long bits = buffer.getLong(values + 8L * row);
+        return separator == 0 ? bits : Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Wyszukuje oryginalny tekst wiersza.
+     *
+     * @return indeks tekstu lub -1, jeśli tekst wiersza jest odtwarzany z liczby
+     */
+    private int findText(int row) {
+        int low = 0;
+        int high = textCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int r = buffer.getInt(textRows + 4L * mid);
+            if (r < row) low = mid + 1;
+            else if (r > row) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,34 @@
+package model;
+
+/**
+ * Kolumna migawki przechowująca każdą wartość osobno jako bajty UTF-8.
+ */
+class MappedStringColumn extends MappedColumn {
+    private final long nulls;
+    private final long offsets;
+    private final long bytes;
+
+    /**
+     * Konstruktor kolumny.
+     *
+     * @param buffer  plik migawki
+     * @param size    liczba wierszy
+     * @param nulls   położenie mapy bitowej pustych komórek
+     * @param offsets położenie przesunięć wartości (long, o jedno więcej niż wierszy)
+     * @param bytes   położenie bajtów wartości
+     */
+    MappedStringColumn(SnapshotBuffer buffer, int size, long nulls, long offsets, long bytes) {
+        super(buffer, size);
+        this.nulls = nulls;
+        this.offsets = offsets;
+        this.bytes = bytes;
+    }
+
+    @Override
+    String get(int row) {
+        if (buffer.getBit(nulls, row)) return null;
+        long start = buffer.getLong(offsets + 8L * row);
+        long end = buffer.getLong(offsets + 8L * (row + 1));
+        return buffer.getString(bytes + start, (int) (end - start));
+    }
+}
@@ -0,0 +1,247 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Kolumna liczbowa przechowująca wartości w tablicy typu prostego.
+ * Puste komórki są zaznaczone w mapie bitowej. Tekst wartości jest odtwarzany z liczby,
+ * a oryginalny tekst jest zapamiętywany tylko wtedy, gdy liczba nie odtwarza go dokładnie (np. "007").
+ * Zapis wartości, która nie jest liczbą danego typu, zamienia kolumnę na ogólniejszą.
+ */
+abstract class NumericColumn extends Column {
+    private static final int MIN_TEXT_CHECK = 4096;
+    private static final int MAX_TEXT_RATIO = 8;
+
+    private long[] nulls;
+    private String[] texts;
+    private int textCount;
+    private long writes;
+
+    /**
+     * Konstruktor kolumny, której wszystkie komórki są puste.
+     *
+     * @param capacity początkowa pojemność
+     */
+    NumericColumn(int capacity) {
+        nulls = new long[words(capacity)];
+        Arrays.fill(nulls, -1L);
+    }
+
+    /**
+     * Zwraca pustą kolumnę liczbową, w której mieszczą się wszystkie podane wartości.
+     *
+     * @param values   wartości do sprawdzenia
+     * @param count    liczba wartości
+     * @param capacity pojemność nowej kolumny
+     * @return kolumna typu long lub double albo null, jeśli któraś wartość nie jest liczbą
+     */
+    static NumericColumn infer(String[] values, int count, int capacity) {
+        boolean integral = true;
+        boolean comma = false;
+        boolean dot = false;
+        for (int i = 0; i < count; i++) {
+            String value = values[i];
+            if (value == null || integral && LongColumn.parses(value)) continue;
+            integral = false;
+            comma |= value.indexOf(',') >= 0;
+            dot |= value.indexOf('.') >= 0;
+        }
+        if (integral) return new LongColumn(capacity);
+        if (comma && dot) return null;
+        char separator = comma ? ',' : '.';
+        for (int i = 0; i < count; i++) {
+            if (values[i] != null && !DoubleColumn.parses(values[i], separator)) return null;
+        }
+        return new DoubleColumn(capacity, separator);
+    }
+
+    /**
+     * Zapisuje liczbę z tekstu.
+     *
+     * @param row   indeks wiersza
+     * @param value tekst wartości
+     * @return false, jeśli tekst nie jest liczbą tego typu
+     */
+    abstract boolean store(int row, String value);
+
+    /**
+     * Sprawdza, czy tekst odtworzony z zapisanej liczby jest równy podanemu.
+     *
+     * @param row   indeks wiersza
+     * @param value tekst wartości
+     * @return true, jeśli oryginalnego tekstu nie trzeba przechowywać
+     */
+    abstract boolean reproduces(int row, String value);
+
+    /**
+     * Zwraca tekst odtworzony z zapisanej liczby.
+     *
+     * @param row indeks wiersza
+     * @return tekst liczby
+     */
+    abstract String format(int row);
+
+    /**
+     * Zwraca zapisaną liczbę.
+     *
+     * @param row indeks wiersza
+     * @return wartość liczbowa
+     */
+    abstract double number(int row);
+
+    /**
+     * Zwraca bity zapisanej liczby: wartość typu long lub bity wartości typu double.
+     *
+     * @param row indeks wiersza
+     * @return bity liczby
+     */
+    abstract long bits(int row);
+
+    /**
+     * Zwraca pustą kolumnę, w której zmieszczą się dotychczasowe wartości i podana wartość.
+     *
+     * @param value wartość, która nie mieści się w bieżącej kolumnie
+     * @return nowa kolumna
+     */
+    abstract Column widen(String value);
+
+    /**
+     * Powiększa tablicę wartości.
+     *
+     * @param capacity nowa pojemność
+     */
+    abstract void growValues(int capacity);
+
+    /**
+     * Usuwa wartość z tablicy wartości, przesuwając kolejne o jeden w górę.
+     *
+     * @param row  indeks usuwanego wiersza
+     * @param size liczba wierszy przed usunięciem
+     */
+    abstract void removeValue(int row, int size);
+
+    /**
+     * Zwraca pojemność kolumny.
+     *
+     * @return liczba wierszy mieszczących się bez powiększania
+     */
+    abstract int capacity();
+
+    @Override
+    String get(int row) {
+        if (isNull(row)) return null;
+        String text = texts == null ? null : texts[row];
+        return text != null ? text : format(row);
+    }
+
+    @Override
+    double getNumber(int row) {
+        return isNull(row) ? Double.NaN : number(row);
+    }
+
+    @Override
+    Column set(int row, String value) {
+        writes++;
+        if (value == null) {
+            nulls[row >>> 6] |= 1L << row;
+            setText(row, null);
+            return this;
+        }
+        if (!store(row, value)) return copyTo(widen(value)).set(row, value);
+        nulls[row >>> 6] &= ~(1L << row);
+        setText(row, reproduces(row, value) ? null : value);
+        if (textCount > MIN_TEXT_CHECK && (long) textCount * MAX_TEXT_RATIO > writes) {
+            return copyTo(new StringColumn(capacity()));
+        }
+        return this;
+    }
+
+    @Override
+    void grow(int capacity) {
+        int old = capacity();
+        growValues(capacity);
+        long[] grown = Arrays.copyOf(nulls, words(capacity));
+        for (int row = old; row < capacity; row++) grown[row >>> 6] |= 1L << row;
+        nulls = grown;
+        if (texts != null) texts = Arrays.copyOf(texts, capacity);
+    }
+
+    @Override
+    Column copy() {
+        NumericColumn copy = (NumericColumn) super.copy();
+        copy.nulls = nulls.clone();
+        if (texts != null) copy.texts = texts.clone();
+        return copy;
+    }
+
+    @Override
+    void remove(int row, int size) {
+        removeValue(row, size);
+        int word = row >>> 6;
+        long keep = (1L << row) - 1;
+        nulls[word] = nulls[word] & keep | nulls[word] >>> 1 & ~keep;
+        for (int i = word; i < nulls.length; i++) {
+            if (i > word) nulls[i] >>>= 1;
+            if (i + 1 < nulls.length) nulls[i] |= nulls[i + 1] << 63;
+        }
+        nulls[(size - 1) >>> 6] |= 1L << (size - 1);
+        if (texts != null) {
+            if (texts[row] != null) textCount--;
+            System.arraycopy(texts, row + 1, texts, row, size - row - 1);
+            texts[size - 1] = null;
+        }
+    }
+
+    /**
+     * Sprawdza, czy komórka jest pusta.
+     *
+     * @param row indeks wiersza
+     * @return true, jeśli komórka jest pusta
+     */
+    boolean isNull(int row) {
+        return (nulls[row >>> 6] & 1L << row) != 0;
+    }
+
+    /**
+     * Zwraca oryginalny tekst wartości, jeśli liczba go nie odtwarza.
+     *
+     * @param row indeks wiersza
+     * @return zapamiętany tekst lub null
+     */
+    String text(int row) {
+        return texts == null ? null : texts[row];
+    }
+
+    /**
+     * Zapamiętuje oryginalny tekst wartości lub usuwa go, gdy text jest null.
+     */
+    private void setText(int row, String text) {
+        if (texts == null) {
+            if (text == null) return;
+            texts = new String[capacity()];
+        }
+        if (texts[row] != null) textCount--;
+        if (text != null) textCount++;
+        texts[row] = text;
+    }
+
+    /**
+     * Przepisuje niepuste wartości do nowej kolumny.
+     */
+    private Column copyTo(Column target) {
+        for (int row = 0; row < capacity(); row++) {
+            if (!isNull(row)) target = target.set(row, get(row));
+        }
+        return target;
+    }
+
+    /**
+     * Zwraca liczbę słów mapy bitowej dla podanej liczby wierszy.
+     *
+     * @param capacity liczba wierszy
+     * @return liczba słów typu long
+     */
+    static int words(int capacity) {
+        return (capacity >>> 6) + 1;
+    }
+}
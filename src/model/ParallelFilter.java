@@ -0,0 +1,131 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Wybiera wiersze spełniające warunek, dzieląc duże zbiory wierszy na zakresy
+ * sprawdzane równolegle w puli fork-join. Wyniki zakresów są łączone w kolejności,
+ * więc wynik jest taki sam jak przy sprawdzaniu wierszy po kolei.
+ */
+class ParallelFilter {
+    /** Domyślna liczba sprawdzanych wierszy, od której filtrowanie jest równoległe. */
+    static final int DEFAULT_THRESHOLD = 200_000;
+    private static final int MIN_RANGE = 16_384;
+    private static final int RANGES_PER_THREAD = 4;
+    private static final int CANCEL_CHECK_MASK = 4095;
+
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int threshold = DEFAULT_THRESHOLD;
+
+    /**
+     * Ustawia liczbę wątków filtrujących. Wartość 0 oznacza wspólną pulę fork-join
+     * (liczba wątków równa liczbie rdzeni), a 1 filtrowanie w bieżącym wątku.
+     *
+     * @param threads liczba wątków
+     */
+    void setThreads(int threads) {
+        if (threads < 0) throw new IllegalArgumentException("Liczba watkow nie moze byc ujemna");
+        if (pool != ForkJoinPool.commonPool()) pool.shutdown();
+        pool = threads == 0 ? ForkJoinPool.commonPool() : new ForkJoinPool(threads);
+    }
+
+    /**
+     * Zwraca liczbę wątków filtrujących.
+     *
+     * @return liczba wątków puli
+     */
+    int threads() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Zwraca pulę wątków filtrujących, używaną też do sortowania dużych zbiorów wierszy.
+     *
+     * @return pula fork-join
+     */
+    ForkJoinPool pool() {
+        return pool;
+    }
+
+    /**
+     * Ustawia liczbę sprawdzanych wierszy, od której filtrowanie jest równoległe.
+     *
+     * @param rows próg liczby wierszy
+     */
+    void setThreshold(int rows) {
+        threshold = rows;
+    }
+
+    /**
+     * Zwraca liczbę sprawdzanych wierszy, od której filtrowanie jest równoległe.
+     *
+     * @return próg liczby wierszy
+     */
+    int threshold() {
+        return threshold;
+    }
+
+    /**
+     * Wybiera wiersze spełniające warunek.
+     * Każdy zakres dostaje własny warunek z dostawcy, więc warunek może używać stanu pomocniczego.
+     * Co kilka tysięcy wierszy sprawdzane jest, czy wybór nie został anulowany.
+     *
+     * @param candidates rosnące indeksy sprawdzanych wierszy lub null, aby sprawdzić wszystkie wiersze
+     * @param rowCount   liczba wierszy, gdy sprawdzane są wszystkie
+     * @param test       dostawca warunku sprawdzającego wiersz o podanym indeksie
+     * @param cancelled  zwraca true, gdy wynik nie jest już potrzebny
+     * @return rosnące indeksy wierszy spełniających warunek
+     * @throws CancellationException jeśli wybór został anulowany
+     */
+    int[] select(int[] candidates, int rowCount, Supplier<IntPredicate> test, BooleanSupplier cancelled) {
+        int n = candidates == null ? rowCount : candidates.length;
+        int threads = threads();
+        if (n < threshold || threads <= 1) return scan(candidates, 0, n, test.get(), cancelled);
+
+        int ranges = Math.max(1, Math.min(threads * RANGES_PER_THREAD, n / MIN_RANGE));
+        List<ForkJoinTask<int[]>> tasks = new ArrayList<>(ranges);
+        for (int r = 0; r < ranges; r++) {
+            int from = (int) ((long) n * r / ranges);
+            int to = (int) ((long) n * (r + 1) / ranges);
+            tasks.add(pool.submit(() -> scan(candidates, from, to, test.get(), cancelled)));
+        }
+        int[][] parts = new int[ranges][];
+        int total = 0;
+        for (int r = 0; r < ranges; r++) {
+            parts[r] = tasks.get(r).join();
+            total += parts[r].length;
+        }
+        int[] result = new int[total];
+        int pos = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, result, pos, part.length);
+            pos += part.length;
+        }
+        return result;
+    }
+
+    /**
+     * Sprawdza wiersze z zakresu pozycji, po kolei.
+     */
+    private static int[] scan(int[] candidates, int from, int to, IntPredicate test, BooleanSupplier cancelled) {
+        int[] result = new int[Math.min(to - from, 1024)];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if ((i & CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) throw new CancellationException();
+            int row = candidates == null ? i : candidates[i];
+            if (test.test(row)) {
+                if (count == result.length) result = Arrays.copyOf(result, Math.min(to - from, count * 2));
+                result[count++] = row;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+}
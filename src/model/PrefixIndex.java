@@ -0,0 +1,162 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Posortowany indeks dla filtra "Rozpoczyna sie".
+ * Przechowuje pary (wartość, wiersz) uporządkowane według wartości, a następnie wiersza.
+ * Wartości zaczynające się od danego przedrostka tworzą ciągły fragment, wyszukiwany binarnie.
+ */
+class PrefixIndex extends ColumnIndex {
+    /** Szacowany koszt wartości bez jej znaków: obiekt tekstu i tablica z nagłówkami. */
+    private static final long TEXT_BYTES = 40;
+    /** Szacowany koszt grupy wierszy wartości podczas budowy: węzeł i pozycja mapy oraz lista z nagłówkami tablic. */
+    private static final long GROUP_BYTES = 80;
+
+    private String[] keys;
+    private int[] rows;
+    private int size;
+    private long textMemory;
+
+    private PrefixIndex() {
+    }
+
+    /**
+     * Buduje indeks kolumny, przerywając budowę po przekroczeniu limitu pamięci.
+     * Sortowane są tylko unikalne wartości.
+     *
+     * @param data      magazyn wierszy
+     * @param col       indeks kolumny
+     * @param limit     limit pamięci w bajtach, obejmujący też pamięć grup wartości potrzebnych podczas budowy
+     * @param cancelled zwraca true, gdy indeks nie jest już potrzebny
+     * @return indeks lub null, jeśli przekroczyłby limit
+     * @throws CancellationException jeśli budowa została przerwana
+     */
+    static PrefixIndex build(RowStore data, int col, long limit, BooleanSupplier cancelled) {
+        PrefixIndex index = new PrefixIndex();
+        Map<String, IntList> groups = new HashMap<>();
+        long groupMemory = 0;
+        for (int i = 0; i < data.size(); i++) {
+            if ((i & CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) throw new CancellationException();
+            String value = data.get(i, col);
+            if (value == null) continue;
+            IntList group = groups.get(value);
+            if (group == null) {
+                group = new IntList(1);
+                groups.put(value, group);
+                index.textMemory += text(value);
+                groupMemory += GROUP_BYTES + Integer.BYTES;
+            }
+            int capacity = group.capacity();
+            group.insert(i);
+            groupMemory += (long) (group.capacity() - capacity) * Integer.BYTES;
+            index.size++;
+            if (index.textMemory + groupMemory + (long) index.size * (Integer.BYTES + 4) > limit) return null;
+        }
+        List<String> sorted = new ArrayList<>(groups.keySet());
+        sorted.sort(null);
+        index.keys = new String[Math.max(index.size, 16)];
+        index.rows = new int[index.keys.length];
+        int pos = 0;
+        for (String key : sorted) {
+            int[] group = groups.get(key).toArray();
+            Arrays.fill(index.keys, pos, pos + group.length, key);
+            System.arraycopy(group, 0, index.rows, pos, group.length);
+            pos += group.length;
+        }
+        return index;
+    }
+
+    @Override
+    long memory() {
+        return (long) keys.length * (Integer.BYTES + 4) + textMemory;
+    }
+
+    @Override
+    int[] find(String word) {
+        int from = position(word, -1);
+        int to = from;
+        while (to < size && keys[to].startsWith(word)) to++;
+        int[] result = Arrays.copyOfRange(rows, from, to);
+        Arrays.sort(result);
+        return result;
+    }
+
+    @Override
+    void rowAdded(int row, String value) {
+        if (value == null) return;
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            rows = Arrays.copyOf(rows, size * 2);
+        }
+        int pos = position(value, row);
+        if (!sameKey(pos - 1, value) && !sameKey(pos, value)) textMemory += text(value);
+        System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+        System.arraycopy(rows, pos, rows, pos + 1, size - pos);
+        keys[pos] = value;
+        rows[pos] = row;
+        size++;
+    }
+
+    @Override
+    void rowDeleted(int row, String value) {
+        remove(row, value);
+        for (int i = 0; i < size; i++) {
+            if (rows[i] > row) rows[i]--;
+        }
+    }
+
+    @Override
+    void valueChanged(int row, String oldValue, String value) {
+        remove(row, oldValue);
+        rowAdded(row, value);
+    }
+
+    /**
+     * Usuwa parę (wartość, wiersz) z indeksu.
+     */
+    private void remove(int row, String value) {
+        if (value == null) return;
+        int pos = position(value, row);
+        if (pos == size || rows[pos] != row || !keys[pos].equals(value)) return;
+        System.arraycopy(keys, pos + 1, keys, pos, size - pos - 1);
+        System.arraycopy(rows, pos + 1, rows, pos, size - pos - 1);
+        keys[--size] = null;
+        if (!sameKey(pos - 1, value) && !sameKey(pos, value)) textMemory -= text(value);
+    }
+
+    /**
+     * Sprawdza, czy na pozycji leży para z tą samą wartością.
+     */
+    private boolean sameKey(int pos, String value) {
+        return pos >= 0 && pos < size && keys[pos].equals(value);
+    }
+
+    /**
+     * Zwraca szacowaną pamięć wartości przechowywanej w indeksie.
+     */
+    private static long text(String value) {
+        return TEXT_BYTES + value.length();
+    }
+
+    /**
+     * Zwraca pozycję pierwszej pary nie mniejszej od (wartość, wiersz).
+     */
+    private int position(String value, int row) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = keys[mid].compareTo(value);
+            if (cmp < 0 || cmp == 0 && rows[mid] < row) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
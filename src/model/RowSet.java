@@ -0,0 +1,138 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Zbiór indeksów wierszy przechowywany jako posortowana lista albo mapa bitowa.
+ * Zbiór obejmujący znaczną część wierszy jest zamieniany na mapę bitową,
+ * która zajmuje wtedy mniej pamięci i pozwala sprawdzać przynależność w stałym czasie.
+ */
+class RowSet {
+    private static final int DENSE_RATIO = 32;
+    private static final int MIN_DENSE_ROWS = 4096;
+
+    private IntList list = new IntList(1);
+    private long[] bits;
+    private int size;
+
+    /**
+     * Dodaje wiersz do zbioru.
+     *
+     * @param row      indeks wiersza
+     * @param rowCount bieżąca liczba wierszy danych
+     */
+    void add(int row, int rowCount) {
+        if (bits != null) {
+            int word = row >>> 6;
+            if (word >= bits.length) bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length * 2));
+            if ((bits[word] & 1L << row) == 0) size++;
+            bits[word] |= 1L << row;
+            return;
+        }
+        if (!list.insert(row)) return;
+        size++;
+        if (rowCount >= MIN_DENSE_ROWS && size > rowCount / DENSE_RATIO) toBitmap(rowCount);
+    }
+
+    /**
+     * Usuwa wiersz ze zbioru.
+     *
+     * @param row indeks wiersza
+     */
+    void remove(int row) {
+        if (bits != null) {
+            int word = row >>> 6;
+            if (word < bits.length && (bits[word] & 1L << row) != 0) {
+                bits[word] &= ~(1L << row);
+                size--;
+            }
+            return;
+        }
+        int before = list.size();
+        list.remove(row);
+        size -= before - list.size();
+    }
+
+    /**
+     * Zmniejsza o jeden indeksy wierszy większe od podanego, po usunięciu tego wiersza z danych.
+     *
+     * @param row indeks usuniętego wiersza
+     */
+    void shiftAbove(int row) {
+        if (bits == null) {
+            list.shiftAbove(row);
+            return;
+        }
+        int word = row >>> 6;
+        if (word >= bits.length) return;
+        long keep = (1L << row) - 1;
+        bits[word] = bits[word] & keep | bits[word] >>> 1 & ~keep;
+        for (int i = word; i < bits.length; i++) {
+            if (i > word) bits[i] >>>= 1;
+            if (i + 1 < bits.length) bits[i] |= bits[i + 1] << 63;
+        }
+    }
+
+    /**
+     * Sprawdza, czy zbiór zawiera wiersz.
+     *
+     * @param row indeks wiersza
+     * @return true, jeśli wiersz należy do zbioru
+     */
+    boolean contains(int row) {
+        if (bits == null) return list.contains(row);
+        int word = row >>> 6;
+        return word < bits.length && (bits[word] & 1L << row) != 0;
+    }
+
+    /**
+     * Zwraca liczbę wierszy w zbiorze.
+     *
+     * @return liczba wierszy
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Zwraca wiersze zbioru.
+     *
+     * @return indeksy wierszy w porządku rosnącym
+     */
+    int[] toArray() {
+        if (bits == null) return list.toArray();
+        int[] result = new int[size];
+        int n = 0;
+        for (int w = 0; w < bits.length; w++) {
+            for (long b = bits[w]; b != 0; b &= b - 1) {
+                result[n++] = w << 6 | Long.numberOfTrailingZeros(b);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Zmniejsza pojemność listy do liczby elementów.
+     */
+    void trim() {
+        if (list != null) list.trim();
+    }
+
+    /**
+     * Zwraca szacowaną pamięć zajmowaną przez zbiór, bez nagłówków obiektów.
+     *
+     * @return liczba bajtów
+     */
+    long memory() {
+        return bits != null ? (long) bits.length * Long.BYTES : (long) list.capacity() * Integer.BYTES;
+    }
+
+    /**
+     * Zamienia listę na mapę bitową.
+     */
+    private void toBitmap(int rowCount) {
+        bits = new long[(rowCount >>> 6) + 1];
+        for (int row : list.toArray()) bits[row >>> 6] |= 1L << row;
+        list = null;
+    }
+}
@@ -0,0 +1,245 @@
+package model;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sortowanie wierszy magazynu według wielu kluczy.
+ * Przed sortowaniem każda kolumna klucza jest zamieniana na tablice typu prostego:
+ * liczby oraz pozycje pozostałych wartości tekstowych uporządkowanych według reguł języka
+ * (klucze porównania są wyznaczane raz dla każdej różnej wartości).
+ * Rodzaj wartości jest rozpoznawany dla każdej komórki osobno, tak jak w {@link SortKeyEncoder},
+ * więc wynik jest taki sam jak przy sortowaniu zewnętrznym: liczby poprzedzają tekst,
+ * a komórki bez wartości i z pustym tekstem są puste i trafiają na koniec niezależnie od kierunku.
+ * Same porównania nie tworzą więc obiektów. Sortowanie przez scalanie jest stabilne,
+ * a duże zakresy są sortowane równolegle w puli fork-join.
+ */
+class RowSort {
+    private static final int SEQUENTIAL_RANGE = 8192;
+    private static final int INSERTION_RANGE = 32;
+    private static final int CANCEL_CHECK_MASK = 4095;
+
+    /**
+     * Porównanie pozycji sortowanych wierszy.
+     */
+    private interface PositionComparator {
+        int compare(int a, int b);
+    }
+
+    private RowSort() {
+    }
+
+    /**
+     * Sortuje wiersze według kluczy. Wiersze równe według wszystkich kluczy zachowują kolejność wejściową.
+     *
+     * @param data      magazyn wierszy
+     * @param rows      indeksy sortowanych wierszy
+     * @param keys      klucze sortowania, od najważniejszego
+     * @param pool      pula wątków dla dużych zbiorów lub null, aby sortować w bieżącym wątku
+     * @param threshold liczba wierszy, od której sortowanie jest równoległe
+     * @param cancelled zwraca true, gdy wynik nie jest już potrzebny; sprawdzany co kilka tysięcy wierszy
+     * @return indeksy wierszy w nowej kolejności
+     * @throws CancellationException jeśli sortowanie zostało anulowane
+     */
+    static int[] sort(RowStore data, int[] rows, List<SortKey> keys, ForkJoinPool pool, int threshold,
+                      BooleanSupplier cancelled) {
+        int n = rows.length;
+        PositionComparator[] comparators = new PositionComparator[keys.size()];
+        for (int k = 0; k < comparators.length; k++) comparators[k] = comparator(data, rows, keys.get(k), cancelled);
+        PositionComparator order = comparators.length == 1 ? comparators[0] : (a, b) -> {
+            for (PositionComparator c : comparators) {
+                int result = c.compare(a, b);
+                if (result != 0) return result;
+            }
+            return 0;
+        };
+
+        int[] positions = new int[n];
+        for (int i = 0; i < n; i++) positions[i] = i;
+        int[] buffer = new int[n];
+        MergeSort task = new MergeSort(positions, buffer, 0, n, order, cancelled);
+        if (pool != null && n >= threshold && pool.getParallelism() > 1) pool.invoke(task);
+        else task.compute();
+
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) result[i] = rows[positions[i]];
+        return result;
+    }
+
+    /**
+     * Tworzy porównanie pozycji według jednego klucza, z pustymi komórkami na końcu.
+     */
+    private static PositionComparator comparator(RowStore data, int[] rows, SortKey key, BooleanSupplier cancelled) {
+        int col = key.column();
+        int sign = key.ascending() ? 1 : -1;
+        double[] numbers = new double[rows.length];
+        if (!numbers(data, rows, col, numbers, cancelled)) {
+            return (a, b) -> {
+                double x = numbers[a];
+                double y = numbers[b];
+                if (Double.isNaN(x) || Double.isNaN(y)) return Boolean.compare(Double.isNaN(x), Double.isNaN(y));
+                return sign * Double.compare(x, y);
+            };
+        }
+        int[] ranks = ranks(data, rows, col, numbers, cancelled);
+        return (a, b) -> {
+            int x = ranks[a];
+            int y = ranks[b];
+            boolean emptyX = x < 0 && Double.isNaN(numbers[a]);
+            boolean emptyY = y < 0 && Double.isNaN(numbers[b]);
+            if (emptyX || emptyY) return Boolean.compare(emptyX, emptyY);
+            if ((x < 0) != (y < 0)) return sign * Boolean.compare(x >= 0, y >= 0);
+            return sign * (x < 0 ? Double.compare(numbers[a], numbers[b]) : Integer.compare(x, y));
+        };
+    }
+
+    /**
+     * Wpisuje wartości kolumny jako liczby (NaN dla pustych komórek i tekstu niebędącego liczbą).
+     * Zero ujemne jest zamieniane na zero, tak jak w {@link SortKeyEncoder}.
+     *
+     * @return true, jeśli któraś niepusta wartość nie jest liczbą
+     */
+    private static boolean numbers(RowStore data, int[] rows, int col, double[] numbers, BooleanSupplier cancelled) {
+        boolean text = false;
+        for (int i = 0; i < rows.length; i++) {
+            checkCancelled(i, cancelled);
+            double value = data.getNumber(rows[i], col);
+            if (Double.isNaN(value)) text |= !isEmpty(data.get(rows[i], col));
+            numbers[i] = value + 0.0;
+        }
+        return text;
+    }
+
+    /**
+     * Sprawdza, czy komórka jest pusta: nie istnieje w wierszu albo zawiera pusty tekst.
+     */
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    /**
+     * Zwraca pozycje wartości tekstowych kolumny w kolejności alfabetycznej bieżącego języka
+     * (-1 dla pustych komórek i liczb).
+     */
+    private static int[] ranks(RowStore data, int[] rows, int col, double[] numbers, BooleanSupplier cancelled) {
+        Map<String, Integer> codes = new HashMap<>();
+        int[] ranks = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            checkCancelled(i, cancelled);
+            String value = Double.isNaN(numbers[i]) ? data.get(rows[i], col) : null;
+            if (isEmpty(value)) {
+                ranks[i] = -1;
+                continue;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = codes.size();
+                codes.put(value, code);
+            }
+            ranks[i] = code;
+        }
+        Collator collator = Collator.getInstance();
+        CollationKey[] sorted = new CollationKey[codes.size()];
+        int k = 0;
+        for (String value : codes.keySet()) {
+            checkCancelled(k, cancelled);
+            sorted[k++] = collator.getCollationKey(value);
+        }
+        Arrays.sort(sorted, (a, b) -> {
+            int result = a.compareTo(b);
+            return result != 0 ? result : a.getSourceString().compareTo(b.getSourceString());
+        });
+        int[] rankOf = new int[codes.size()];
+        for (int r = 0; r < sorted.length; r++) rankOf[codes.get(sorted[r].getSourceString())] = r;
+        for (int i = 0; i < ranks.length; i++) {
+            if (ranks[i] >= 0) ranks[i] = rankOf[ranks[i]];
+        }
+        return ranks;
+    }
+
+    /**
+     * Przerywa sortowanie wyjątkiem, jeśli zostało anulowane; sprawdza to co kilka tysięcy pozycji.
+     */
+    private static void checkCancelled(int position, BooleanSupplier cancelled) {
+        if ((position & CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) throw new CancellationException();
+    }
+
+    /**
+     * Stabilne sortowanie przez scalanie zakresu pozycji; połowy dużych zakresów są sortowane równolegle.
+     */
+    private static class MergeSort extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] values;
+        private final int[] buffer;
+        private final int from;
+        private final int to;
+        private final PositionComparator order;
+        private final BooleanSupplier cancelled;
+
+        MergeSort(int[] values, int[] buffer, int from, int to, PositionComparator order, BooleanSupplier cancelled) {
+            this.values = values;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.order = order;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= INSERTION_RANGE) {
+                if (cancelled.getAsBoolean()) throw new CancellationException();
+                insertionSort();
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            MergeSort left = new MergeSort(values, buffer, from, mid, order, cancelled);
+            MergeSort right = new MergeSort(values, buffer, mid, to, order, cancelled);
+            if (to - from > SEQUENTIAL_RANGE && getPool() != null) {
+                invokeAll(left, right);
+            } else {
+                left.compute();
+                right.compute();
+            }
+            merge(mid);
+        }
+
+        /**
+         * Sortuje krótki zakres przez wstawianie.
+         */
+        private void insertionSort() {
+            for (int i = from + 1; i < to; i++) {
+                int value = values[i];
+                int j = i - 1;
+                while (j >= from && order.compare(values[j], value) > 0) {
+                    values[j + 1] = values[j];
+                    j--;
+                }
+                values[j + 1] = value;
+            }
+        }
+
+        /**
+         * Scala dwie posortowane połowy zakresu.
+         */
+        private void merge(int mid) {
+            if (order.compare(values[mid - 1], values[mid]) <= 0) return;
+            System.arraycopy(values, from, buffer, from, to - from);
+            int i = from;
+            int j = mid;
+            for (int k = from; k < to; k++) {
+                if (j >= to || i < mid && order.compare(buffer[i], buffer[j]) <= 0) values[k] = buffer[i++];
+                else values[k] = buffer[j++];
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package model;
+
+/**
+ * Magazyn wierszy modelu CSV.
+ * Wiersze mogą mieć różną długość; komórki spoza wiersza są traktowane jako puste.
+ */
+public interface RowStore {
+    /**
+     * Zwraca liczbę wierszy.
+     *
+     * @return liczba wierszy
+     */
+    int size();
+
+    /**
+     * Zwraca długość najdłuższego wiersza.
+     *
+     * @return liczba kolumn
+     */
+    int columnCount();
+
+    /**
+     * Zwraca długość wiersza.
+     *
+     * @param row indeks wiersza
+     * @return liczba pól w wierszu
+     */
+    int width(int row);
+
+    /**
+     * Zwraca wartość komórki.
+     *
+     * @param row indeks wiersza
+     * @param col indeks kolumny
+     * @return wartość komórki lub null, jeśli kolumna leży poza wierszem
+     */
+    String get(int row, int col);
+
+    /**
+     * Zwraca wartość komórki jako liczbę, akceptując przecinek dziesiętny.
+     * Magazyn kolumnowy zwraca liczby z kolumn liczbowych bez parsowania tekstu.
+     *
+     * @param row indeks wiersza
+     * @param col indeks kolumny
+     * @return wartość liczbowa lub NaN, jeśli komórka jest pusta albo nie jest liczbą
+     */
+    default double getNumber(int row, int col) {
+        String value = get(row, col);
+        return value == null ? Double.NaN : FilterExpression.parseNumber(value);
+    }
+
+    /**
+     * Zwraca wiersz jako tablicę ciągów znaków.
+     *
+     * @param row indeks wiersza
+     * @return pola wiersza
+     */
+    String[] getRow(int row);
+
+    /**
+     * Ustawia wartość komórki, wydłużając wiersz w razie potrzeby.
+     *
+     * @param row   indeks wiersza
+     * @param col   indeks kolumny
+     * @param value nowa wartość komórki
+     */
+    void set(int row, int col, String value);
+
+    /**
+     * Dodaje wiersz na końcu magazynu.
+     *
+     * @param row pola wiersza
+     */
+    void add(String[] row);
+
+    /**
+     * Usuwa wiersz o podanym indeksie.
+     *
+     * @param row indeks wiersza
+     */
+    void remove(int row);
+
+    /**
+     * Wydłuża każdy wiersz o jedną pustą komórkę.
+     */
+    void addColumn();
+
+    /**
+     * Usuwa kolumnę z wierszy, które ją zawierają.
+     *
+     * @param col indeks kolumny
+     */
+    void removeColumn(int col);
+
+    /**
+     * Zwraca migawkę magazynu: niezmieniającą się kopię bieżących danych, którą można czytać z innego wątku.
+     * Dane nie są kopiowane od razu; magazyn kopiuje wiersz lub kolumnę dopiero przy pierwszej zmianie
+     * po utworzeniu migawki, więc późniejsze zmiany nie są w niej widoczne.
+     * Migawki nie należy zmieniać.
+     *
+     * @return migawka danych
+     */
+    RowStore snapshot();
+}
@@ -0,0 +1,116 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Plik zmapowany w pamięci tylko do odczytu, np. plik migawki lub plik CSV przeglądany w trybie indeksu.
+ * Plik jest mapowany w segmentach po 1 GB, które zachodzą na siebie o 8 bajtów, więc liczba typu int lub long
+ * nigdy nie leży na granicy segmentów; dłuższe ciągi bajtów są składane z kolejnych segmentów.
+ * Odczyty nie zmieniają stanu bufora, więc można go czytać z wielu wątków.
+ */
+final class SnapshotBuffer {
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+    private static final int OVERLAP = 8;
+
+    private final ByteBuffer[] segments;
+    private final long size;
+
+    private SnapshotBuffer(ByteBuffer[] segments, long size) {
+        this.segments = segments;
+        this.size = size;
+    }
+
+    /**
+     * Mapuje cały plik. Mapowanie pozostaje ważne po zamknięciu kanału.
+     *
+     * @param channel kanał pliku
+     * @return bufor pliku
+     * @throws IOException jeśli wystąpi błąd mapowania
+     */
+    static SnapshotBuffer map(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer[] segments = new ByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_BITS)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = (long) i << SEGMENT_BITS;
+            long length = Math.min(size - start, SEGMENT_SIZE + OVERLAP);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return new SnapshotBuffer(segments, size);
+    }
+
+    /**
+     * Zwraca rozmiar pliku.
+     *
+     * @return liczba bajtów
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Odczytuje liczbę typu int.
+     *
+     * @param position położenie w pliku
+     * @return liczba
+     */
+    int getInt(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getInt((int) (position & SEGMENT_SIZE - 1));
+    }
+
+    /**
+     * Odczytuje liczbę typu long.
+     *
+     * @param position położenie w pliku
+     * @return liczba
+     */
+    long getLong(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getLong((int) (position & SEGMENT_SIZE - 1));
+    }
+
+    /**
+     * Sprawdza bit mapy bitowej zapisanej jako tablica liczb typu long.
+     *
+     * @param position położenie mapy bitowej
+     * @param index    indeks bitu
+     * @return true, jeśli bit jest ustawiony
+     */
+    boolean getBit(long position, int index) {
+        return (getLong(position + 8L * (index >>> 6)) & 1L << index) != 0;
+    }
+
+    /**
+     * Odczytuje tekst zapisany w UTF-8.
+     *
+     * @param position położenie pierwszego bajtu
+     * @param length   liczba bajtów
+     * @return tekst
+     */
+    String getString(long position, int length) {
+        byte[] bytes = new byte[length];
+        getBytes(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Kopiuje bajty pliku do tablicy.
+     *
+     * @param position położenie pierwszego bajtu
+     * @param bytes    tablica docelowa, wypełniana w całości
+     */
+    void getBytes(long position, byte[] bytes) {
+        int done = 0;
+        while (done < bytes.length) {
+            long p = position + done;
+            ByteBuffer segment = segments[(int) (p >>> SEGMENT_BITS)];
+            int offset = (int) (p & SEGMENT_SIZE - 1);
+            int n = Math.min(bytes.length - done, segment.limit() - offset);
+            segment.get(offset, bytes, done, n);
+            done += n;
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Binarny plik migawki danych: kolumny magazynu kolumnowego zapisane tak, aby po zmapowaniu pliku w pamięci
+ * można je było czytać bez parsowania (patrz {@link MappedColumn}).
+ * <p>
+ * Układ pliku (liczby w kolejności little-endian, sekcje wyrównane do 8 bajtów):
+ * <ul>
+ *     <li>nagłówek: znacznik, wersja, flagi, liczba wierszy i kolumn, opis pliku źródłowego
+ *     ({@link SnapshotKey}) i nagłówki kolumn;</li>
+ *     <li>katalog: położenie sekcji każdej kolumny i położenie długości wierszy (0, jeśli wiersze są równe);</li>
+ *     <li>sekcje kolumn: typ, separator dziesiętny i liczba wpisów, a po nich tablice zależne od typu:
+ *     kody wierszy i słownik, wartości tekstowe albo bity liczb z mapą pustych komórek i oryginalnymi tekstami;</li>
+ *     <li>długości wierszy, jeśli wiersze mają różną liczbę pól.</li>
+ * </ul>
+ * Teksty są zapisane jako bajty UTF-8 z tablicą przesunięć o jeden wpis dłuższą niż liczba tekstów.
+ * Znacznik na początku pliku jest zapisywany na końcu, więc przerwany zapis daje plik, który nie zostanie otwarty.
+ */
+final class SnapshotFile {
+    private static final long MAGIC = 0x3150414E53565343L;
+    private static final int VERSION = 1;
+    private static final int HAS_HEADER = 1;
+    private static final int HAS_WIDTHS = 2;
+    private static final int DICTIONARY = 1;
+    private static final int STRING = 2;
+    private static final int LONG = 3;
+    private static final int DOUBLE = 4;
+
+    /**
+     * Zawartość wczytanej migawki.
+     *
+     * @param headers   nagłówki kolumn
+     * @param hasHeader określa, czy dane mają nagłówki
+     * @param data      magazyn z kolumnami tylko do odczytu
+     */
+    record Contents(List<String> headers, boolean hasHeader, ColumnarRowStore data) {
+    }
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Zapisuje migawkę danych. Kolumny kodowane słownikowo i liczbowe zachowują swój układ,
+     * a pozostałe są zapisywane jako wartości tekstowe.
+     *
+     * @param file      plik migawki
+     * @param key       opis pliku źródłowego
+     * @param headers   nagłówki kolumn
+     * @param hasHeader określa, czy dane mają nagłówki
+     * @param data      dane do zapisania; nie mogą się zmieniać w trakcie zapisu
+     * @throws IOException jeśli wystąpi błąd zapisu
+     */
+    static void write(File file, SnapshotKey key, List<String> headers, boolean hasHeader, ColumnarRowStore data)
+            throws IOException {
+        int rows = data.size();
+        int columns = data.columnSlots();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.putLong(0);
+            out.putInt(VERSION);
+            out.putInt((hasHeader ? HAS_HEADER : 0) | (data.hasWidths() ? HAS_WIDTHS : 0));
+            out.putInt(rows);
+            out.putInt(columns);
+            out.putLong(key.size());
+            out.putLong(key.modified());
+            out.putInt(key.hasHeader() ? 1 : 0);
+            out.putString(key.path());
+            out.putString(key.delimiter());
+            out.putInt(headers.size());
+            for (String header : headers) out.putString(header);
+            out.align();
+
+            long directory = out.position();
+            long[] sections = new long[columns + 1];
+            for (int i = 0; i < sections.length; i++) out.putLong(0);
+            for (int c = 0; c < columns; c++) {
+                sections[c] = out.position();
+                writeColumn(out, data.column(c), rows);
+            }
+            if (data.hasWidths()) {
+                sections[columns] = out.position();
+                for (int row = 0; row < rows; row++) out.putInt(data.width(row));
+            }
+            out.flush();
+
+            ByteBuffer buf = ByteBuffer.allocate(8 * sections.length).order(ByteOrder.LITTLE_ENDIAN);
+            for (long section : sections) buf.putLong(section);
+            out.writeAt(buf.flip(), directory);
+            out.writeAt(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(MAGIC).flip(), 0);
+        }
+    }
+
+    /**
+     * Otwiera migawkę, mapując plik w pamięci. Dane kolumn nie są czytane przy otwarciu.
+     *
+     * @param file plik migawki
+     * @param key  oczekiwany opis pliku źródłowego
+     * @return zawartość migawki lub null, jeśli migawka opisuje inny stan pliku źródłowego
+     * @throws IOException jeśli plik nie jest poprawną migawką lub wystąpi błąd odczytu
+     */
+    static Contents read(File file, SnapshotKey key) throws IOException {
+        SnapshotBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = SnapshotBuffer.map(channel);
+        }
+        Cursor in = new Cursor(buffer, 0);
+        in.skip(16);
+        if (buffer.getLong(0) != MAGIC || buffer.getInt(8) != VERSION) {
+            throw new IOException("Niepoprawny plik migawki");
+        }
+        int flags = buffer.getInt(12);
+        int rows = in.readInt();
+        int columns = in.readInt();
+        long size = in.readLong();
+        long modified = in.readLong();
+        boolean keyHeader = in.readInt() != 0;
+        String path = in.readString();
+        String delimiter = in.readString();
+        if (!key.equals(new SnapshotKey(path, size, modified, delimiter, keyHeader))) return null;
+        int headerCount = in.readInt();
+        if (rows < 0 || columns < 0 || headerCount < 0) throw new IOException("Uszkodzony plik migawki");
+        List<String> headers = new ArrayList<>();
+        for (int i = 0; i < headerCount; i++) headers.add(in.readString());
+        in.align();
+
+        long directory = in.skip(8L * (columns + 1));
+        Column[] data = new Column[columns];
+        for (int c = 0; c < columns; c++) {
+            data[c] = readColumn(new Cursor(buffer, buffer.getLong(directory + 8L * c)), rows);
+        }
+        int[] widths = null;
+        if ((flags & HAS_WIDTHS) != 0) {
+            long at = new Cursor(buffer, buffer.getLong(directory + 8L * columns)).skip(4L * rows);
+            widths = new int[rows];
+            for (int row = 0; row < rows; row++) widths[row] = buffer.getInt(at + 4L * row);
+        }
+        return new Contents(headers, (flags & HAS_HEADER) != 0, ColumnarRowStore.of(data, rows, widths));
+    }
+
+    /**
+     * Zapisuje sekcję kolumny.
+     */
+    private static void writeColumn(Output out, Column column, int rows) throws IOException {
+        if (column instanceof DictionaryColumn dictionary) {
+            int count = dictionary.dictionarySize();
+            out.putSectionHeader(DICTIONARY, 0, count);
+            for (int row = 0; row < rows; row++) out.putInt(dictionary.code(row));
+            out.align();
+            out.putTexts(dictionary::dictionaryValue, count);
+        } else if (column instanceof NumericColumn numeric) {
+            char separator = numeric instanceof DoubleColumn d ? d.separator() : 0;
+            int[] textRows = new int[16];
+            int count = 0;
+            for (int row = 0; row < rows; row++) {
+                if (numeric.isNull(row) || numeric.text(row) == null) continue;
+                if (count == textRows.length) textRows = Arrays.copyOf(textRows, count * 2);
+                textRows[count++] = row;
+            }
+            out.putSectionHeader(separator == 0 ? LONG : DOUBLE, separator, count);
+            for (int row = 0; row < rows; row++) out.putLong(numeric.isNull(row) ? 0 : numeric.bits(row));
+            out.putNulls(numeric::isNull, rows);
+            for (int i = 0; i < count; i++) out.putInt(textRows[i]);
+            out.align();
+            int[] texts = textRows;
+            out.putTexts(i -> numeric.text(texts[i]), count);
+        } else {
+            out.putSectionHeader(STRING, 0, rows);
+            out.putNulls(row -> column.get(row) == null, rows);
+            out.putTexts(column::get, rows);
+        }
+        out.align();
+    }
+
+    /**
+     * Odczytuje sekcję kolumny, sprawdzając, czy jej tablice mieszczą się w pliku.
+     */
+    private static Column readColumn(Cursor in, int rows) throws IOException {
+        int type = in.readInt();
+        char separator = (char) in.readInt();
+        int count = in.readInt();
+        in.readInt();
+        if (count < 0) throw new IOException("Uszkodzony plik migawki");
+        SnapshotBuffer buffer = in.buffer;
+        switch (type) {
+            case DICTIONARY -> {
+                long codes = in.skip(4L * rows);
+                in.align();
+                long offsets = in.skip(8L * (count + 1));
+                long bytes = in.skip(buffer.getLong(offsets + 8L * count));
+                return new MappedDictionaryColumn(buffer, rows, count, codes, offsets, bytes);
+            }
+            case STRING -> {
+                long nulls = in.skip(8L * NumericColumn.words(rows));
+                long offsets = in.skip(8L * (rows + 1));
+                long bytes = in.skip(buffer.getLong(offsets + 8L * rows));
+                return new MappedStringColumn(buffer, rows, nulls, offsets, bytes);
+            }
+            case LONG, DOUBLE -> {
+                long values = in.skip(8L * rows);
+                long nulls = in.skip(8L * NumericColumn.words(rows));
+                long textRows = in.skip(4L * count);
+                in.align();
+                long offsets = in.skip(8L * (count + 1));
+                long bytes = in.skip(buffer.getLong(offsets + 8L * count));
+                return new MappedNumericColumn(buffer, rows, type == LONG ? 0 : separator, values, nulls,
+                        count, textRows, offsets, bytes);
+            }
+            default -> throw new IOException("Nieznany typ kolumny migawki: " + type);
+        }
+    }
+
+    /**
+     * Zwraca liczbę bajtów tekstu w UTF-8, tak jak koduje go {@link String#getBytes(java.nio.charset.Charset)}:
+     * pojedyncze połówki par zastępcze są zastępowane jednym bajtem.
+     */
+    private static int utf8Length(String text) {
+        int length = text.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) continue;
+            if (c < 0x800) {
+                bytes++;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 2;
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                bytes += 2;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Zapis sekwencyjny przez bufor, z wyrównywaniem sekcji.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long flushed;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        long position() {
+            return flushed + buffer.position();
+        }
+
+        void putInt(int value) throws IOException {
+            if (buffer.remaining() < 4) flush();
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            if (buffer.remaining() < 8) flush();
+            buffer.putLong(value);
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            if (buffer.remaining() < bytes.length) flush();
+            if (bytes.length > buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes));
+                flushed += bytes.length;
+            } else {
+                buffer.put(bytes);
+            }
+        }
+
+        /**
+         * Zapisuje tekst poprzedzony długością w bajtach (-1 dla null).
+         */
+        void putString(String text) throws IOException {
+            if (text == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            putBytes(bytes);
+        }
+
+        void putSectionHeader(int type, int separator, int count) throws IOException {
+            putInt(type);
+            putInt(separator);
+            putInt(count);
+            putInt(0);
+        }
+
+        /**
+         * Zapisuje mapę bitową wierszy spełniających warunek.
+         */
+        void putNulls(IntPredicate isNull, int rows) throws IOException {
+            for (int word = 0; word < NumericColumn.words(rows); word++) {
+                long bits = 0;
+                for (int row = word << 6; row < Math.min(rows, (word + 1) << 6); row++) {
+                    if (isNull.test(row)) bits |= 1L << row;
+                }
+                putLong(bits);
+            }
+        }
+
+        /**
+         * Zapisuje przesunięcia, a po nich bajty tekstów; brakujący tekst ma długość 0.
+         */
+        void putTexts(IntFunction<String> texts, int count) throws IOException {
+            long offset = 0;
+            putLong(0);
+            for (int i = 0; i < count; i++) {
+                String text = texts.apply(i);
+                if (text != null) offset += utf8Length(text);
+                putLong(offset);
+            }
+            long start = position();
+            for (int i = 0; i < count; i++) {
+                String text = texts.apply(i);
+                if (text != null) putBytes(text.getBytes(StandardCharsets.UTF_8));
+            }
+            if (position() - start != offset) throw new IOException("Niezgodna dlugosc tekstow migawki");
+        }
+
+        void align() throws IOException {
+            while ((position() & 7) != 0) {
+                if (!buffer.hasRemaining()) flush();
+                buffer.put((byte) 0);
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            flushed += buffer.remaining();
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        /**
+         * Zapisuje dane w podanym miejscu pliku, np. uzupełniając katalog po zapisaniu sekcji.
+         */
+        void writeAt(ByteBuffer data, long position) throws IOException {
+            while (data.hasRemaining()) position += channel.write(data, position);
+        }
+
+        private void writeFully(ByteBuffer data) throws IOException {
+            while (data.hasRemaining()) channel.write(data);
+        }
+    }
+
+    /**
+     * Odczyt sekwencyjny zmapowanego pliku ze sprawdzaniem, czy dane mieszczą się w pliku.
+     */
+    private static final class Cursor {
+        private final SnapshotBuffer buffer;
+        private long position;
+
+        Cursor(SnapshotBuffer buffer, long position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        /**
+         * Przesuwa kursor za obszar o podanej długości.
+         *
+         * @return początek obszaru
+         */
+        long skip(long length) throws IOException {
+            long start = position;
+            if (start < 0 || length < 0 || length > buffer.size() - start) {
+                throw new IOException("Uszkodzony plik migawki");
+            }
+            position += length;
+            return start;
+        }
+
+        int readInt() throws IOException {
+            return buffer.getInt(skip(4));
+        }
+
+        long readLong() throws IOException {
+            return buffer.getLong(skip(8));
+        }
+
+        String readString() throws IOException {
+            int length = readInt();
+            return length < 0 ? null : buffer.getString(skip(length), length);
+        }
+
+        void align() {
+            position = position + 7 & ~7L;
+        }
+    }
+}
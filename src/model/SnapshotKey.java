@@ -0,0 +1,28 @@
+package model;
+
+import java.io.File;
+
+/**
+ * Opis pliku CSV, z którego utworzono migawkę.
+ * Migawka pasuje do pliku tylko wtedy, gdy zgadzają się ścieżka, rozmiar, czas modyfikacji i opcje wczytywania,
+ * więc zmiana pliku lub innego separatora unieważnia ją.
+ *
+ * @param path      bezwzględna ścieżka pliku
+ * @param size      rozmiar pliku w bajtach
+ * @param modified  czas ostatniej modyfikacji pliku w milisekundach
+ * @param delimiter separator użyty przy wczytywaniu
+ * @param hasHeader określa, czy pierwszy wiersz był nagłówkiem
+ */
+public record SnapshotKey(String path, long size, long modified, String delimiter, boolean hasHeader) {
+    /**
+     * Tworzy opis bieżącego stanu pliku.
+     *
+     * @param file      plik CSV
+     * @param delimiter separator użyty przy wczytywaniu
+     * @param hasHeader określa, czy pierwszy wiersz jest nagłówkiem
+     * @return opis pliku
+     */
+    public static SnapshotKey of(File file, String delimiter, boolean hasHeader) {
+        return new SnapshotKey(file.getAbsolutePath(), file.length(), file.lastModified(), delimiter, hasHeader);
+    }
+}
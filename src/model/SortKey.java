@@ -0,0 +1,11 @@
+package model;
+
+/**
+ * Klucz sortowania: kolumna i kierunek.
+ * Puste komórki trafiają na koniec niezależnie od kierunku.
+ *
+ * @param column    indeks kolumny
+ * @param ascending true dla kolejności rosnącej
+ */
+public record SortKey(int column, boolean ascending) {
+}
@@ -0,0 +1,113 @@
+package model;
+
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Zamienia wiersz na klucz bajtowy, którego porządek (porównanie bajtów bez znaku, np.
+ * {@link java.util.Arrays#compareUnsigned(byte[], byte[])}) jest porządkiem sortowania według kluczy.
+ * Klucz wyznacza się raz dla wiersza, więc porównania przy sortowaniu plików większych niż pamięć
+ * nie parsują liczb ani nie porównują tekstu według reguł języka.
+ * Wartość będąca liczbą jest porównywana jako liczba, inny tekst według reguł bieżącego języka,
+ * liczby poprzedzają tekst, a puste komórki trafiają na koniec niezależnie od kierunku.
+ * Rodzaj wartości jest rozpoznawany dla każdej komórki osobno, bo przy sortowaniu zewnętrznym cała kolumna
+ * nie jest znana z góry; {@link CSVModel#sort(int[], List)} porządkuje wiersze tak samo.
+ * Klucze porównania ostatnio kodowanych tekstów są zapamiętywane, bo wyznaczanie ich jest najdroższą częścią kodowania,
+ * a w dużych plikach (np. logach) wartości kolumn sortowania często się powtarzają.
+ * Obiekt nie jest bezpieczny dla wielu wątków.
+ */
+public class SortKeyEncoder implements Function<String[], byte[]> {
+    private static final int NUMBER = 1;
+    private static final int TEXT = 2;
+    private static final int EMPTY = 3;
+    private static final int CACHED_TEXTS = 8192;
+
+    private final List<SortKey> keys;
+    private final Collator collator = Collator.getInstance();
+    private final Map<String, byte[]> collationKeys = new HashMap<>();
+    private byte[] buffer = new byte[64];
+    private int length;
+
+    /**
+     * Konstruktor kodera.
+     *
+     * @param keys klucze sortowania, od najważniejszego
+     */
+    public SortKeyEncoder(List<SortKey> keys) {
+        this.keys = List.copyOf(keys);
+    }
+
+    /**
+     * Zwraca klucz bajtowy wiersza.
+     *
+     * @param row pola wiersza
+     * @return klucz sortowania
+     */
+    @Override
+    public byte[] apply(String[] row) {
+        length = 0;
+        for (SortKey key : keys) {
+            String value = key.column() < row.length ? row[key.column()] : null;
+            encode(value, key.ascending());
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Dopisuje zakodowaną wartość jednego klucza. Dla kolejności malejącej bajty wartości są odwracane,
+     * a znacznik pustej komórki pozostaje największy.
+     */
+    private void encode(String value, boolean ascending) {
+        if (value == null || value.isEmpty()) {
+            write(EMPTY);
+            return;
+        }
+        int flip = ascending ? 0 : 0xFF;
+        double number = FilterExpression.parseNumber(value);
+        if (!Double.isNaN(number)) {
+            write(ascending ? NUMBER : TEXT);
+            long bits = Double.doubleToLongBits(number + 0.0);
+            bits = bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+            for (int shift = 56; shift >= 0; shift -= 8) write((int) (bits >>> shift) & 0xFF ^ flip);
+            return;
+        }
+        write(ascending ? TEXT : NUMBER);
+        // Bajty zerowe są poprzedzane znacznikiem, a wartość kończą dwa bajty zerowe,
+        // więc krótsza wartość będąca początkiem dłuższej jest mniejsza także po odwróceniu bajtów.
+        for (byte b : collationKey(value)) {
+            if (b == 0) {
+                write(flip);
+                write(0xFF ^ flip);
+            } else {
+                write(b & 0xFF ^ flip);
+            }
+        }
+        write(flip);
+        write(flip);
+    }
+
+    /**
+     * Zwraca klucz porównania tekstu według reguł języka, zapamiętując klucze ostatnich tekstów.
+     */
+    private byte[] collationKey(String value) {
+        byte[] key = collationKeys.get(value);
+        if (key == null) {
+            key = collator.getCollationKey(value).toByteArray();
+            if (collationKeys.size() == CACHED_TEXTS) collationKeys.clear();
+            collationKeys.put(value, key);
+        }
+        return key;
+    }
+
+    /**
+     * Dopisuje bajt do bufora klucza.
+     */
+    private void write(int b) {
+        if (length == buffer.length) buffer = Arrays.copyOf(buffer, length * 2);
+        buffer[length++] = (byte) b;
+    }
+}
@@ -0,0 +1,49 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Kolumna przechowująca wartości bezpośrednio w tablicy ciągów znaków.
+ * Używana dla kolumn o dużej liczbie unikalnych wartości.
+ */
+class StringColumn extends Column {
+    private String[] values;
+
+    /**
+     * Konstruktor kolumny.
+     *
+     * @param capacity początkowa pojemność
+     */
+    StringColumn(int capacity) {
+        values = new String[capacity];
+    }
+
+    @Override
+    String get(int row) {
+        return values[row];
+    }
+
+    @Override
+    Column set(int row, String value) {
+        values[row] = value;
+        return this;
+    }
+
+    @Override
+    void grow(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    Column copy() {
+        StringColumn copy = (StringColumn) super.copy();
+        copy.values = values.clone();
+        return copy;
+    }
+
+    @Override
+    void remove(int row, int size) {
+        System.arraycopy(values, row + 1, values, row, size - row - 1);
+        values[size - 1] = null;
+    }
+}
@@ -0,0 +1,223 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Indeks trigramów dla filtrów "Zawiera" i "Konczy sie".
+ * Każdemu ciągowi trzech znaków przypisuje zbiór wierszy, których wartość go zawiera.
+ * Do wartości dopisywany jest znacznik końca, więc trigramy z końca wartości zawężają też filtr "Konczy sie".
+ * Kandydaci to wiersze zawierające wszystkie trigramy słowa; model sprawdza ich dokładnie.
+ * Trigramy są kluczami tablicy z adresowaniem otwartym, więc budowa indeksu nie opakowuje ich w obiekty,
+ * a trigramy występujące w znacznej części wierszy są przechowywane jako mapy bitowe (patrz {@link RowSet}).
+ */
+class TrigramIndex extends ColumnIndex {
+    /** Szacowany koszt jednego trigramu: klucz, referencja, obiekty zbioru i listy z nagłówkami tablic. */
+    private static final long ENTRY_BYTES = 96;
+    private static final char END = '\0';
+    private static final long EMPTY = -1;
+
+    private long[] keys = new long[1024];
+    private RowSet[] sets = new RowSet[1024];
+    private int count;
+    private int rowCount;
+    private long setMemory;
+
+    private TrigramIndex() {
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Buduje indeks kolumny, przerywając budowę po przekroczeniu limitu pamięci.
+     *
+     * @param data      magazyn wierszy
+     * @param col       indeks kolumny
+     * @param limit     limit pamięci w bajtach
+     * @param cancelled zwraca true, gdy indeks nie jest już potrzebny
+     * @return indeks lub null, jeśli przekroczyłby limit
+     * @throws CancellationException jeśli budowa została przerwana
+     */
+    static TrigramIndex build(RowStore data, int col, long limit, BooleanSupplier cancelled) {
+        TrigramIndex index = new TrigramIndex();
+        for (int i = 0; i < data.size(); i++) {
+            if ((i & CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) throw new CancellationException();
+            index.rowAdded(i, data.get(i, col));
+            if (index.memory() > limit) return null;
+        }
+        index.setMemory = 0;
+        for (RowSet set : index.sets) {
+            if (set == null) continue;
+            set.trim();
+            index.setMemory += set.memory();
+        }
+        return index.memory() > limit ? null : index;
+    }
+
+    /**
+     * Zwraca szacowaną pamięć zajmowaną przez indeks. Pamięć zbiorów wierszy jest sumowana przy ich zmianach,
+     * więc odczyt nie przegląda zbiorów.
+     *
+     * @return liczba bajtów
+     */
+    @Override
+    long memory() {
+        return (long) keys.length * (Long.BYTES + 4) + (long) count * ENTRY_BYTES + setMemory;
+    }
+
+    @Override
+    int[] find(String word) {
+        if (word.length() < 3) return null;
+        return intersect(trigrams(word, false));
+    }
+
+    /**
+     * Zwraca wiersze, których wartość może kończyć się słowem.
+     *
+     * @param word słowo kluczowe
+     * @return rosnące indeksy kandydatów lub null, jeśli słowo jest zbyt krótkie
+     */
+    int[] findSuffix(String word) {
+        if (word.length() < 2) return null;
+        return intersect(trigrams(word, true));
+    }
+
+    @Override
+    void rowAdded(int row, String value) {
+        rowCount++;
+        add(row, value);
+    }
+
+    @Override
+    void rowDeleted(int row, String value) {
+        remove(row, value);
+        rowCount--;
+        for (RowSet set : sets) {
+            if (set != null) set.shiftAbove(row);
+        }
+    }
+
+    @Override
+    void valueChanged(int row, String oldValue, String value) {
+        remove(row, oldValue);
+        add(row, value);
+    }
+
+    /**
+     * Dodaje wiersz do zbiorów trigramów wartości.
+     */
+    private void add(int row, String value) {
+        if (value == null) return;
+        for (long t : trigrams(value, true)) {
+            int slot = slot(t);
+            RowSet set = sets[slot];
+            if (set == null) {
+                keys[slot] = t;
+                set = sets[slot] = new RowSet();
+                setMemory += set.memory();
+                if (++count * 2 > keys.length) rehash();
+            }
+            long before = set.memory();
+            set.add(row, rowCount);
+            setMemory += set.memory() - before;
+        }
+    }
+
+    /**
+     * Usuwa wiersz ze zbiorów trigramów wartości.
+     */
+    private void remove(int row, String value) {
+        if (value == null) return;
+        for (long t : trigrams(value, true)) {
+            RowSet set = set(t);
+            if (set == null) continue;
+            long before = set.memory();
+            set.remove(row);
+            setMemory += set.memory() - before;
+        }
+    }
+
+    /**
+     * Zwraca wiersze należące do zbiorów wszystkich trigramów, zaczynając od najmniejszego zbioru.
+     */
+    private int[] intersect(long[] trigrams) {
+        List<RowSet> lists = new ArrayList<>(trigrams.length);
+        for (long t : trigrams) {
+            RowSet set = set(t);
+            if (set == null || set.size() == 0) return new int[0];
+            lists.add(set);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        int[] result = lists.get(0).toArray();
+        int n = result.length;
+        for (int l = 1; l < lists.size() && n > 0; l++) {
+            RowSet list = lists.get(l);
+            int kept = 0;
+            for (int i = 0; i < n; i++) {
+                if (list.contains(result[i])) result[kept++] = result[i];
+            }
+            n = kept;
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Zwraca zbiór wierszy trigramu lub null, jeśli trigram nie występuje.
+     */
+    private RowSet set(long trigram) {
+        return sets[slot(trigram)];
+    }
+
+    /**
+     * Zwraca pozycję trigramu w tablicy lub pierwszą wolną pozycję, od której należy go wstawić.
+     */
+    private int slot(long trigram) {
+        int mask = keys.length - 1;
+        int i = Long.hashCode(trigram * 0x9E3779B97F4A7C15L) & mask;
+        while (keys[i] != EMPTY && keys[i] != trigram) i = (i + 1) & mask;
+        return i;
+    }
+
+    /**
+     * Podwaja tablicę trigramów.
+     */
+    private void rehash() {
+        long[] oldKeys = keys;
+        RowSet[] oldSets = sets;
+        keys = new long[oldKeys.length * 2];
+        sets = new RowSet[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldSets[i] == null) continue;
+            int slot = slot(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            sets[slot] = oldSets[i];
+        }
+    }
+
+    /**
+     * Zwraca trigramy tekstu zakodowane jako liczby long. Trigram może wystąpić wielokrotnie;
+     * zbiory wierszy pomijają powtórzenia, więc nie trzeba ich usuwać.
+     *
+     * @param text      tekst
+     * @param anchorEnd czy dopisać znacznik końca wartości
+     */
+    private static long[] trigrams(String text, boolean anchorEnd) {
+        int length = text.length() + (anchorEnd ? 1 : 0);
+        if (length < 3) return new long[0];
+        long[] result = new long[length - 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (long) charAt(text, i) << 32 | (long) charAt(text, i + 1) << 16 | charAt(text, i + 2);
+        }
+        return result;
+    }
+
+    /**
+     * Zwraca znak tekstu lub znacznik końca za ostatnim znakiem.
+     */
+    private static char charAt(String text, int i) {
+        return i < text.length() ? text.charAt(i) : END;
+    }
+}
@@ -0,0 +1,204 @@
+package util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Wielokrotnie używany bufor jednego rekordu CSV.
+ * Przechowuje tylko granice pól w buforze bajtów, więc odczyt i porównywanie pól nie tworzą obiektów.
+ * Ciąg znaków powstaje dopiero przy wywołaniu {@link #get(int)} lub {@link #toArray()}.
+ * Zawartość jest ważna do czasu zeskanowania kolejnego rekordu do tego samego bufora.
+ */
+public class CSVRecord {
+    private ByteBuffer source;
+    private int start;
+    private int end;
+    private int[] bounds = new int[32];
+    private int fieldCount;
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Rozpoczyna nowy rekord w podanym buforze.
+     */
+    void reset(ByteBuffer source, int start) {
+        this.source = source;
+        this.start = start;
+        this.fieldCount = 0;
+    }
+
+    /**
+     * Dodaje granice pola. Pola zawierające cudzysłowy mają zanegowany początek.
+     */
+    void addField(int fieldStart, int fieldEnd, boolean quoted) {
+        if (bounds.length < (fieldCount + 1) * 2) bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        bounds[fieldCount * 2] = quoted ? ~fieldStart : fieldStart;
+        bounds[fieldCount * 2 + 1] = fieldEnd;
+        fieldCount++;
+    }
+
+    /**
+     * Zamyka rekord na podanej pozycji (za znakiem końca linii).
+     */
+    void finish(int recordEnd) {
+        this.end = recordEnd;
+    }
+
+    /**
+     * Zwraca liczbę pól rekordu.
+     *
+     * @return liczba pól
+     */
+    public int size() {
+        return fieldCount;
+    }
+
+    /**
+     * Zwraca pozycję początku rekordu w buforze źródłowym.
+     *
+     * @return pozycja pierwszego bajtu rekordu
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * Zwraca pozycję za końcem rekordu (razem ze znakiem końca linii) w buforze źródłowym.
+     *
+     * @return pozycja za ostatnim bajtem rekordu
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * Sprawdza, czy rekord składa się wyłącznie z białych znaków.
+     *
+     * @return true, jeśli rekord jest pusty
+     */
+    public boolean isBlank() {
+        for (int i = start; i < end; i++) {
+            if ((source.get(i) & 0xFF) > ' ') return false;
+        }
+        return true;
+    }
+
+    /**
+     * Zwraca wartość pola jako ciąg znaków.
+     *
+     * @param field indeks pola
+     * @return wartość pola
+     */
+    public String get(int field) {
+        int n = load(field);
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Tworzy tablicę wszystkich pól rekordu.
+     *
+     * @return pola rekordu
+     */
+    public String[] toArray() {
+        String[] row = new String[fieldCount];
+        for (int f = 0; f < fieldCount; f++) {
+            row[f] = get(f);
+        }
+        return row;
+    }
+
+    /**
+     * Sprawdza, czy pole jest równe podanym bajtom UTF-8.
+     *
+     * @param field indeks pola
+     * @param word  słowo w kodowaniu UTF-8
+     * @return true, jeśli pole jest równe słowu
+     */
+    public boolean equalsBytes(int field, byte[] word) {
+        int n = load(field);
+        return n == word.length && Arrays.equals(scratch, 0, n, word, 0, n);
+    }
+
+    /**
+     * Sprawdza, czy pole zaczyna się od podanych bajtów UTF-8.
+     *
+     * @param field indeks pola
+     * @param word  słowo w kodowaniu UTF-8
+     * @return true, jeśli pole zaczyna się od słowa
+     */
+    public boolean startsWith(int field, byte[] word) {
+        int n = load(field);
+        return n >= word.length && Arrays.equals(scratch, 0, word.length, word, 0, word.length);
+    }
+
+    /**
+     * Sprawdza, czy pole kończy się podanymi bajtami UTF-8.
+     *
+     * @param field indeks pola
+     * @param word  słowo w kodowaniu UTF-8
+     * @return true, jeśli pole kończy się słowem
+     */
+    public boolean endsWith(int field, byte[] word) {
+        int n = load(field);
+        return n >= word.length && Arrays.equals(scratch, n - word.length, n, word, 0, word.length);
+    }
+
+    /**
+     * Sprawdza, czy pole zawiera podane bajty UTF-8.
+     * Dla poprawnego UTF-8 wynik jest taki sam jak dla {@link String#contains}.
+     *
+     * @param field indeks pola
+     * @param word  słowo w kodowaniu UTF-8
+     * @return true, jeśli pole zawiera słowo
+     */
+    public boolean contains(int field, byte[] word) {
+        int n = load(field);
+        if (word.length == 0) return true;
+        byte first = word[0];
+        for (int i = 0, last = n - word.length; i <= last; i++) {
+            if (scratch[i] == first && Arrays.equals(scratch, i + 1, i + word.length, word, 1, word.length)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Kopiuje bajty pola do bufora roboczego, usuwając cudzysłowy.
+     *
+     * @return liczba bajtów pola
+     */
+    private int load(int field) {
+        int s = bounds[field * 2];
+        int e = bounds[field * 2 + 1];
+        if (s >= 0) {
+            int n = e - s;
+            ensureScratch(n);
+            source.get(s, scratch, 0, n);
+            return n;
+        }
+        s = ~s;
+        ensureScratch(e - s);
+        int n = 0;
+        boolean inQuotes = false;
+        for (int i = s; i < e; i++) {
+            byte b = source.get(i);
+            if (b == '"') {
+                if (inQuotes && i + 1 < e && source.get(i + 1) == '"') {
+                    scratch[n++] = '"';
+                    i++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else {
+                scratch[n++] = b;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Zapewnia odpowiednią pojemność bufora roboczego.
+     */
+    private void ensureScratch(int n) {
+        if (scratch.length < n) scratch = new byte[Math.max(n, scratch.length * 2)];
+    }
+}
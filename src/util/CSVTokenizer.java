@@ -0,0 +1,115 @@
+package util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Tokenizer rekordów CSV działający bezpośrednio na bajtach UTF-8.
+ * Zapisuje granice pól do bufora {@link CSVRecord} należącego do wywołującego i niczego nie alokuje.
+ * Pola w cudzysłowie mogą zawierać separatory i znaki nowej linii.
+ * <p>
+ * Niezamknięty cudzysłów nie pochłania reszty pliku: jeśli pole w cudzysłowie zawiera koniec linii
+ * i nie zostaje zamknięte do końca danych albo w ciągu {@value #MAX_QUOTED_SPAN} bajtów za tym końcem linii,
+ * rekord kończy się na pierwszym końcu linii w polu, a pole zawiera resztę linii bez cudzysłowu.
+ * Wynik zależy wyłącznie od danych, a nie od tego, jak są dzielone na bufory.
+ */
+public class CSVTokenizer {
+    /**
+     * Największa liczba bajtów pola w cudzysłowie za jego pierwszym końcem linii.
+     */
+    public static final int MAX_QUOTED_SPAN = 16 << 20;
+
+    private final byte delim;
+    private final int maxQuotedSpan;
+
+    /**
+     * Konstruktor tokenizera.
+     *
+     * @param delimiter separator pól (pierwszy znak, musi być znakiem ASCII)
+     */
+    public CSVTokenizer(String delimiter) {
+        this(delimiter, MAX_QUOTED_SPAN);
+    }
+
+    /**
+     * Konstruktor tokenizera z innym limitem długości pól w cudzysłowie zawierających koniec linii.
+     *
+     * @param delimiter     separator pól (pierwszy znak, musi być znakiem ASCII)
+     * @param maxQuotedSpan największa liczba bajtów pola w cudzysłowie za jego pierwszym końcem linii
+     */
+    CSVTokenizer(String delimiter, int maxQuotedSpan) {
+        if (!supports(delimiter)) throw new IllegalArgumentException("Separator musi byc znakiem ASCII");
+        this.delim = (byte) delimiter.charAt(0);
+        this.maxQuotedSpan = maxQuotedSpan;
+    }
+
+    /**
+     * Sprawdza, czy separator może być obsłużony przez skanowanie bajtów.
+     *
+     * @param delimiter separator do sprawdzenia
+     * @return true, jeśli pierwszy znak separatora jest znakiem ASCII innym niż cudzysłów i koniec linii
+     */
+    public static boolean supports(String delimiter) {
+        return delimiter != null && !delimiter.isEmpty() && delimiter.charAt(0) < 0x80
+                && delimiter.charAt(0) != '"' && delimiter.charAt(0) != '\n' && delimiter.charAt(0) != '\r';
+    }
+
+    /**
+     * Skanuje jeden rekord zaczynający się na podanej pozycji.
+     *
+     * @param buf    bufor z danymi
+     * @param start  początek rekordu
+     * @param len    liczba bajtów w buforze
+     * @param eof    określa, czy bufor kończy się wraz z danymi
+     * @param record bufor rekordu do wypełnienia
+     * @return początek następnego rekordu lub -1, jeśli rekord jest niekompletny
+     */
+    public int next(ByteBuffer buf, int start, int len, boolean eof, CSVRecord record) {
+        record.reset(buf, start);
+        int fieldStart = start;
+        boolean quoted = false;
+        boolean inQuotes = false;
+        int quotedBreak = -1;
+        for (int i = start; i < len; i++) {
+            byte b = buf.get(i);
+            if (b == '"') {
+                quoted = true;
+                if (inQuotes && i + 1 < len && buf.get(i + 1) == '"') i++;
+                else if (inQuotes && i + 1 == len && !eof) return -1;
+                else inQuotes = !inQuotes;
+                if (!inQuotes) quotedBreak = -1;
+            } else if (inQuotes) {
+                if (quotedBreak < 0) {
+                    if (b == '\n' || b == '\r') quotedBreak = i;
+                } else if (i - quotedBreak > maxQuotedSpan) {
+                    return recover(buf, fieldStart, quotedBreak, len, record);
+                }
+            } else if (b == delim) {
+                record.addField(fieldStart, i, quoted);
+                fieldStart = i + 1;
+                quoted = false;
+            } else if (b == '\n' || b == '\r') {
+                if (b == '\r' && i + 1 == len && !eof) return -1;
+                record.addField(fieldStart, i, quoted);
+                int next = b == '\r' && i + 1 < len && buf.get(i + 1) == '\n' ? i + 2 : i + 1;
+                record.finish(next);
+                return next;
+            }
+        }
+        if (!eof) return -1;
+        if (inQuotes && quotedBreak >= 0) return recover(buf, fieldStart, quotedBreak, len, record);
+        record.addField(fieldStart, len, quoted);
+        record.finish(len);
+        return len;
+    }
+
+    /**
+     * Kończy rekord z niezamkniętym cudzysłowem na pierwszym końcu linii w polu.
+     */
+    private static int recover(ByteBuffer buf, int fieldStart, int lineBreak, int len, CSVRecord record) {
+        record.addField(fieldStart, lineBreak, true);
+        int next = buf.get(lineBreak) == '\r' && lineBreak + 1 < len && buf.get(lineBreak + 1) == '\n'
+                ? lineBreak + 2 : lineBreak + 1;
+        record.finish(next);
+        return next;
+    }
+}
@@ -1,15 +1,32 @@
 package util;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
 
 /**
  * Klasa narzędziowa do operacji na plikach CSV.
  */
 public class CSVUtils {
+    private static final long PARALLEL_THRESHOLD = 16L << 20;
+    private static final int BATCH_ROWS = 65536;
+
     /**
      * Odczytuje plik CSV i zwraca jego dane jako listę tablic ciągów znaków.
+     * Dla separatorów ASCII plik jest mapowany w pamięci i skanowany bajt po bajcie,
+     * a duże pliki są parsowane równolegle we fragmentach.
+     * Pliki skompresowane (gzip, LZ4) są rozpoznawane po pierwszych bajtach i rozpakowywane w osobnym wątku
+     * równolegle z parsowaniem (patrz {@link Compression#open(File)}).
      *
      * @param file      plik CSV do odczytania
      * @param delimiter separator użyty w pliku CSV
@@ -17,19 +34,181 @@ public class CSVUtils {
      * @throws IOException jeśli wystąpi błąd I/O
      */
     public static List<String[]> readCSV(File file, String delimiter) throws IOException {
-        List<String[]> data = new ArrayList<>();
-        BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
-        String line;
-        while ((line = br.readLine()) != null) {
-            if (!line.trim().isEmpty()) {
-                String[] row = parseCSVLine(line, delimiter);
-                data.add(row);
+        if (MappedCSVReader.supports(delimiter)) {
+            if (Compression.detect(file) != Compression.NONE) {
+                List<String[]> data = new ArrayList<>();
+                forEachRecord(file, delimiter, data::add);
+                return data;
+            }
+            if (useParallel(file)) {
+                return new ParallelCSVReader(file, delimiter).readAll();
+            }
+            return new MappedCSVReader(file, delimiter).readAll();
+        }
+        return readCSVBuffered(file, delimiter);
+    }
+
+    /**
+     * Odczytuje plik CSV i przekazuje jego dane kolejnymi porcjami w kolejności z pliku.
+     * Pozwala zasilać model bez budowania pełnej listy wierszy.
+     *
+     * @param file      plik CSV do odczytania
+     * @param delimiter separator użyty w pliku CSV
+     * @param sink      odbiorca kolejnych porcji wierszy
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public static void readCSV(File file, String delimiter, Consumer<List<String[]>> sink) throws IOException {
+        readCSV(file, delimiter, sink, bytes -> { });
+    }
+
+    /**
+     * Odczytuje plik CSV porcjami, zgłaszając przed każdą porcją liczbę przetworzonych bajtów.
+     * Dla pliku skompresowanego są to bajty pliku przeczytane przez wątek rozpakowujący.
+     * Odbiorca może przerwać odczyt, zgłaszając wyjątek niekontrolowany.
+     *
+     * @param file      plik CSV do odczytania
+     * @param delimiter separator użyty w pliku CSV
+     * @param sink      odbiorca kolejnych porcji wierszy
+     * @param progress  odbiorca liczby bajtów pliku przetworzonych do tej pory
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public static void readCSV(File file, String delimiter, Consumer<List<String[]>> sink, LongConsumer progress) throws IOException {
+        if (!MappedCSVReader.supports(delimiter)) {
+            List<String[]> data = readCSVBuffered(file, delimiter);
+            progress.accept(file.length());
+            sink.accept(data);
+            return;
+        }
+        Compression compression = Compression.detect(file);
+        if (compression != Compression.NONE) {
+            readCompressed(file, compression, delimiter, sink, progress);
+            return;
+        }
+        if (useParallel(file)) {
+            new ParallelCSVReader(file, delimiter).read(sink, progress);
+            return;
+        }
+        List<String[]> batch = new ArrayList<>();
+        MappedCSVReader reader = new MappedCSVReader(file, delimiter);
+        reader.read(0, Long.MAX_VALUE, row -> {
+            batch.add(row);
+            if (batch.size() == BATCH_ROWS) {
+                progress.accept(reader.position());
+                sink.accept(new ArrayList<>(batch));
+                batch.clear();
             }
+        });
+        progress.accept(file.length());
+        if (!batch.isEmpty()) sink.accept(batch);
+    }
+
+    /**
+     * Odczytuje skompresowany plik CSV porcjami. Wątek rozpakowujący wyprzedza parser o kilka buforów.
+     */
+    private static void readCompressed(File file, Compression compression, String delimiter,
+                                       Consumer<List<String[]>> sink, LongConsumer progress) throws IOException {
+        try (FileInputStream raw = new FileInputStream(file);
+             InputStream in = new ReadAheadInputStream(compression.decompress(raw))) {
+            FileChannel channel = raw.getChannel();
+            List<String[]> batch = new ArrayList<>();
+            new StreamCSVReader(in, delimiter).read(row -> {
+                batch.add(row);
+                if (batch.size() == BATCH_ROWS) {
+                    try {
+                        progress.accept(channel.position());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    sink.accept(new ArrayList<>(batch));
+                    batch.clear();
+                }
+            });
+            progress.accept(file.length());
+            if (!batch.isEmpty()) sink.accept(batch);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        br.close();
+    }
+
+    /**
+     * Sprawdza, czy plik jest na tyle duży, by opłacało się parsować go równolegle.
+     */
+    private static boolean useParallel(File file) {
+        return file.length() >= PARALLEL_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1;
+    }
+
+    /**
+     * Odczytuje plik CSV linia po linii. Używane dla separatorów spoza zakresu ASCII.
+     *
+     * @param file      plik CSV do odczytania
+     * @param delimiter separator użyty w pliku CSV
+     * @return dane pliku CSV
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    private static List<String[]> readCSVBuffered(File file, String delimiter) throws IOException {
+        List<String[]> data = new ArrayList<>();
+        forEachLine(file, delimiter, data::add);
         return data;
     }
 
+    /**
+     * Odczytuje plik CSV linia po linii i przekazuje kolejne wiersze odbiorcy.
+     */
+    private static void forEachLine(File file, String delimiter, Consumer<String[]> sink) throws IOException {
+        BufferedReader br = new BufferedReader(new InputStreamReader(Compression.open(file), StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    String[] row = parseCSVLine(line, delimiter);
+                    sink.accept(row);
+                }
+            }
+        } finally {
+            br.close();
+        }
+    }
+
+    /**
+     * Skanuje plik CSV rekord po rekordzie bez tworzenia ciągów znaków.
+     * Odbiorca dostaje wielokrotnie ten sam bufor rekordu, ważny tylko w trakcie wywołania.
+     *
+     * @param file      plik CSV do odczytania
+     * @param delimiter separator użyty w pliku CSV (musi być znakiem ASCII)
+     * @param sink      odbiorca kolejnych rekordów
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public static void scanRecords(File file, String delimiter, Consumer<CSVRecord> sink) throws IOException {
+        if (Compression.detect(file) == Compression.NONE) {
+            new MappedCSVReader(file, delimiter).scan(0, Long.MAX_VALUE, sink);
+            return;
+        }
+        try (InputStream in = Compression.open(file)) {
+            new StreamCSVReader(in, delimiter).scan(sink);
+        }
+    }
+
+    /**
+     * Odczytuje plik CSV rekord po rekordzie bez przechowywania całego pliku w pamięci.
+     * Zużycie pamięci nie zależy od rozmiaru pliku.
+     *
+     * @param file      plik CSV do odczytania
+     * @param delimiter separator użyty w pliku CSV
+     * @param sink      odbiorca kolejnych wierszy
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public static void forEachRecord(File file, String delimiter, Consumer<String[]> sink) throws IOException {
+        if (MappedCSVReader.supports(delimiter) && Compression.detect(file) == Compression.NONE) {
+            new MappedCSVReader(file, delimiter).read(0, Long.MAX_VALUE, sink);
+        } else if (MappedCSVReader.supports(delimiter)) {
+            try (InputStream in = Compression.open(file)) {
+                new StreamCSVReader(in, delimiter).read(sink);
+            }
+        } else {
+            forEachLine(file, delimiter, sink);
+        }
+    }
+
     /**
      * Parsuje linię CSV na tablicę ciągów znaków.
      *
@@ -37,7 +216,7 @@ public class CSVUtils {
      * @param delimiter separator użyty w linii
      * @return tablica ciągów znaków reprezentująca pola CSV
      */
-    private static String[] parseCSVLine(String line, String delimiter) {
+    public static String[] parseCSVLine(String line, String delimiter) {
         List<String> fields = new ArrayList<>();
         StringBuilder field = new StringBuilder();
         boolean inQuotes = false;
@@ -71,9 +250,10 @@ public class CSVUtils {
      * @throws IOException jeśli wystąpi błąd I/O
      */
     public static String detectDelimiter(File file) throws IOException {
-        BufferedReader br = new BufferedReader(new FileReader(file));
-        String line = br.readLine();
-        br.close();
+        String line;
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(Compression.open(file), StandardCharsets.UTF_8))) {
+            line = br.readLine();
+        }
         if (line == null) return ",";
         if (line.contains(";")) return ";";
         if (line.contains("\t")) return "\t";
@@ -90,22 +270,146 @@ public class CSVUtils {
      * @throws IOException jeśli wystąpi błąd I/O
      */
     public static void writeCSV(File file, List<String[]> data, String delimiter) throws IOException {
-        BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
-        for (String[] row : data) {
-            List<String> fields = new ArrayList<>();
-            for (String f : row) {
-                if (f == null) f = "";
-                if (f.contains(delimiter) || f.contains("\"") || f.contains("\n")) {
-                    f = "\"" + f.replace("\"", "\"\"") + "\"";
-                }
-                fields.add(f);
+        writeCSV(file, data.iterator(), delimiter);
+    }
+
+    /**
+     * Zapisuje do pliku CSV kolejne wiersze iteratora, bez zbierania ich w pamięci.
+     * Wiersze są kodowane bezpośrednio do bufora bajtów UTF-8 (patrz {@link CSVWriter}).
+     * Plik o nazwie z rozszerzeniem .gz lub .lz4 jest kompresowany (patrz {@link Compression#forFileName(File)}).
+     *
+     * @param file      plik CSV do zapisu
+     * @param rows      wiersze do zapisu
+     * @param delimiter separator do użycia w pliku CSV
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public static void writeCSV(File file, Iterator<String[]> rows, String delimiter) throws IOException {
+        try (CSVWriter writer = new CSVWriter(file, delimiter)) {
+            writer.writeRows(rows);
+        }
+    }
+
+    /**
+     * Zapisuje wiersze do pliku CSV tak, aby po awarii w trakcie zapisu plik zawierał
+     * albo poprzednią, albo całą nową zawartość. Wiersze trafiają do pliku tymczasowego w tym samym katalogu,
+     * który po zapisaniu na dysk zastępuje plik docelowy jedną operacją przeniesienia.
+     * Uprawnienia istniejącego pliku są zachowywane. Po błędzie lub przerwaniu wątku plik tymczasowy jest usuwany.
+     * Kompresja jest wybierana po rozszerzeniu nazwy pliku docelowego, jak w {@link #writeCSV(File, Iterator, String)}.
+     *
+     * @param file      plik CSV do zapisu
+     * @param rows      wiersze do zapisu
+     * @param delimiter separator do użycia w pliku CSV
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public static void writeCSVAtomically(File file, Iterator<String[]> rows, String delimiter) throws IOException {
+        writeCSVAtomically(file, delimiter, writer -> writer.writeRows(rows));
+    }
+
+    /**
+     * Zapisuje plik CSV atomowo jak {@link #writeCSVAtomically(File, Iterator, String)}, przekazując zadaniu
+     * zapis do pliku tymczasowego. Plik docelowy może być jednocześnie czytany przez zadanie, np. gdy wynik
+     * przetwarzania pliku strumieniowo ma go zastąpić: jego zawartość zmienia się dopiero po zakończeniu zadania.
+     *
+     * @param file      plik CSV do zapisu
+     * @param delimiter separator do użycia w pliku CSV
+     * @param task      zadanie zapisujące wiersze
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public static void writeCSVAtomically(File file, String delimiter, WriteTask task) throws IOException {
+        Path target = file.toPath().toAbsolutePath();
+        Path dir = target.getParent();
+        Path temp = Files.createTempFile(dir, "." + target.getFileName() + ".", ".tmp");
+        try {
+            copyPermissions(target, temp);
+            try (CSVWriter writer = new CSVWriter(FileChannel.open(temp, StandardOpenOption.WRITE),
+                    Compression.forFileName(file), delimiter)) {
+                task.write(writer);
+                writer.sync();
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
             }
-            bw.write(String.join(delimiter, fields));
-            bw.newLine();
+        } catch (IOException | RuntimeException | Error e) {
+            Files.deleteIfExists(temp);
+            throw e;
         }
-        if (data.isEmpty()) {
-            bw.write("");
+        syncDirectory(dir);
+    }
+
+    /**
+     * Zadanie zapisujące wiersze do pliku tymczasowego zapisu atomowego.
+     */
+    @FunctionalInterface
+    public interface WriteTask {
+        /**
+         * Zapisuje wiersze.
+         *
+         * @param writer zapis do pliku tymczasowego
+         * @throws IOException jeśli wystąpi błąd I/O
+         */
+        void write(CSVWriter writer) throws IOException;
+    }
+
+    /**
+     * Przenosi uprawnienia istniejącego pliku docelowego na plik tymczasowy, który powstaje z uprawnieniami tylko dla właściciela.
+     */
+    private static void copyPermissions(Path target, Path temp) throws IOException {
+        if (!Files.exists(target)) return;
+        PosixFileAttributeView view = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        if (view != null) Files.setPosixFilePermissions(temp, view.readAttributes().permissions());
+    }
+
+    /**
+     * Zapisuje na dysk wpis katalogu po przeniesieniu pliku. Nie każdy system pozwala otworzyć katalog,
+     * więc błąd jest pomijany.
+     */
+    private static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // Przeniesienie już się odbyło; brak synchronizacji katalogu nie psuje pliku.
+        }
+    }
+
+    /**
+     * Sortuje plik CSV, który może być większy niż dostępna pamięć.
+     * Wiersze są wczytywane rekord po rekordzie (pola w cudzysłowie mogą zawierać znaki nowej linii),
+     * porcje mieszczące się w limicie pamięci są sortowane i zapisywane jako serie w plikach tymczasowych,
+     * a serie są scalane do pliku wynikowego (patrz {@link ExternalSort}). Nagłówek pozostaje pierwszym wierszem.
+     * Plik wynikowy jest zapisywany atomowo, więc może być tym samym plikiem co wejściowy.
+     *
+     * @param input         plik CSV do posortowania
+     * @param output        plik wynikowy
+     * @param delimiter     separator użyty w obu plikach
+     * @param hasHeader     określa, czy pierwszy wiersz jest nagłówkiem
+     * @param key           funkcja wyznaczająca klucz bajtowy wiersza, np. {@code model.SortKeyEncoder}
+     * @param memoryLimit   szacowany limit pamięci sortowanych wierszy w bajtach
+     * @param tempDirectory katalog plików tymczasowych lub null dla katalogu domyślnego systemu
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public static void sortCSV(File input, File output, String delimiter, boolean hasHeader,
+                               Function<String[], byte[]> key, long memoryLimit, File tempDirectory) throws IOException {
+        try (ExternalSort sort = new ExternalSort(memoryLimit, tempDirectory)) {
+            writeCSVAtomically(output, delimiter, writer -> {
+                boolean[] headerPending = {hasHeader};
+                forEachRecord(input, delimiter, row -> {
+                    try {
+                        if (headerPending[0]) {
+                            headerPending[0] = false;
+                            writer.writeRow(row);
+                        } else {
+                            sort.add(key.apply(row), row);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                sort.finish(writer::writeRow);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        bw.close();
     }
-}
\ No newline at end of file
+}
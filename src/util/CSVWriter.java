@@ -0,0 +1,249 @@
+package util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Strumieniowy zapis wierszy CSV w kodowaniu UTF-8.
+ * Każde pole jest skanowane raz w poszukiwaniu znaków wymagających cudzysłowu, a znaki są kodowane
+ * bezpośrednio do dużego bufora bajtów, który jest zapisywany do kanału pliku po zapełnieniu.
+ * Pola zawierające separator, cudzysłów lub znak nowej linii są otaczane cudzysłowami, a cudzysłowy w nich podwajane.
+ * Przy zapisie do pliku dane mogą być kompresowane (patrz {@link Compression}).
+ */
+public class CSVWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final WritableByteChannel channel;
+    private final FileChannel file;
+    private final String delimiter;
+    private final byte[] delimiterBytes;
+    private final char delimiterChar;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final ByteBuffer view = ByteBuffer.wrap(buffer);
+    private int position;
+
+    /**
+     * Otwiera plik do zapisu, zastępując jego dotychczasową zawartość.
+     * Plik o nazwie z rozszerzeniem .gz lub .lz4 jest kompresowany.
+     *
+     * @param file      plik CSV do zapisu
+     * @param delimiter separator pól
+     * @throws IOException jeśli nie można otworzyć pliku
+     */
+    public CSVWriter(File file, String delimiter) throws IOException {
+        this(FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING), Compression.forFileName(file), delimiter);
+    }
+
+    /**
+     * Konstruktor zapisu do podanego kanału. Kanał jest zamykany razem z obiektem.
+     *
+     * @param channel   kanał docelowy
+     * @param delimiter separator pól
+     */
+    public CSVWriter(WritableByteChannel channel, String delimiter) {
+        this(channel, channel instanceof FileChannel f ? f : null, delimiter);
+    }
+
+    /**
+     * Konstruktor zapisu do pliku z podaną kompresją. Kanał pliku jest zamykany razem z obiektem.
+     *
+     * @param file        kanał pliku docelowego
+     * @param compression kompresja zapisywanych danych
+     * @param delimiter   separator pól
+     * @throws IOException jeśli wystąpi błąd zapisu nagłówka kompresji
+     */
+    CSVWriter(FileChannel file, Compression compression, String delimiter) throws IOException {
+        this(compress(file, compression), file, delimiter);
+    }
+
+    private CSVWriter(WritableByteChannel channel, FileChannel file, String delimiter) {
+        if (delimiter.isEmpty()) throw new IllegalArgumentException("Separator nie moze byc pusty");
+        this.channel = channel;
+        this.file = file;
+        this.delimiter = delimiter;
+        this.delimiterBytes = delimiter.getBytes(StandardCharsets.UTF_8);
+        this.delimiterChar = delimiter.length() == 1 ? delimiter.charAt(0) : 0;
+    }
+
+    /**
+     * Zapisuje jeden wiersz. Puste pola (null) są zapisywane jako puste.
+     *
+     * @param row pola wiersza
+     * @throws IOException jeśli wystąpi błąd zapisu
+     */
+    public void writeRow(String[] row) throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) writeBytes(delimiterBytes);
+            String field = row[i];
+            if (field == null || field.isEmpty()) continue;
+            if (needsQuotes(field)) {
+                writeByte('"');
+                encode(field, true);
+                writeByte('"');
+            } else {
+                encode(field, false);
+            }
+        }
+        writeBytes(LINE_SEPARATOR);
+    }
+
+    /**
+     * Zapisuje kolejne wiersze iteratora.
+     *
+     * @param rows wiersze do zapisu
+     * @throws IOException jeśli wystąpi błąd zapisu
+     */
+    public void writeRows(Iterator<String[]> rows) throws IOException {
+        while (rows.hasNext()) writeRow(rows.next());
+    }
+
+    /**
+     * Zapisuje kolejne wiersze strumienia w jego kolejności.
+     *
+     * @param rows wiersze do zapisu
+     * @throws IOException jeśli wystąpi błąd zapisu
+     */
+    public void writeRows(Stream<String[]> rows) throws IOException {
+        writeRows(rows.iterator());
+    }
+
+    /**
+     * Zapisuje zawartość bufora do kanału.
+     *
+     * @throws IOException jeśli wystąpi błąd zapisu
+     */
+    public void flush() throws IOException {
+        view.clear().limit(position);
+        while (view.hasRemaining()) channel.write(view);
+        position = 0;
+    }
+
+    /**
+     * Zapisuje zawartość bufora i, jeśli kanał jest plikiem, wymusza zapis danych na dysk.
+     * Dane skompresowane są przy tym kończone, więc potem można już tylko zamknąć obiekt.
+     *
+     * @throws IOException jeśli wystąpi błąd zapisu
+     */
+    public void sync() throws IOException {
+        flush();
+        if (channel != file) channel.close();
+        if (file != null) file.force(true);
+    }
+
+    /**
+     * Zapisuje zawartość bufora i zamyka kanał.
+     *
+     * @throws IOException jeśli wystąpi błąd zapisu
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            try {
+                channel.close();
+            } finally {
+                if (file != null) file.close();
+            }
+        }
+    }
+
+    /**
+     * Zwraca kanał kompresujący dane przed zapisem do pliku. Zamknięcie kanału kończy dane skompresowane,
+     * ale nie zamyka pliku, żeby można go było jeszcze zapisać na dysk.
+     */
+    private static WritableByteChannel compress(FileChannel file, Compression compression) throws IOException {
+        if (compression == Compression.NONE) return file;
+        OutputStream target = new OutputStream() {
+            private final OutputStream out = Channels.newOutputStream(file);
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+        };
+        try {
+            return Channels.newChannel(compression.compress(target));
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Sprawdza w jednym przebiegu, czy pole wymaga cudzysłowu.
+     */
+    private boolean needsQuotes(String field) {
+        if (delimiterChar == 0 && field.contains(delimiter)) return true;
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"' || c == '\n' || c == '\r' || c == delimiterChar && c != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Koduje pole do bufora w UTF-8, opcjonalnie podwajając cudzysłowy.
+     * Niesparowane surogaty są zapisywane jako '?', tak jak przy {@link String#getBytes(java.nio.charset.Charset)}.
+     */
+    private void encode(String field, boolean quoted) throws IOException {
+        int n = field.length();
+        for (int i = 0; i < n; i++) {
+            if (position > BUFFER_SIZE - 4) flush();
+            char c = field.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' && quoted) buffer[position++] = '"';
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | c >> 6);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(field.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, field.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | cp >> 18);
+                buffer[position++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                buffer[position++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | cp & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | c >> 12);
+                buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+    }
+
+    /**
+     * Dopisuje bajty do bufora.
+     */
+    private void writeBytes(byte[] bytes) throws IOException {
+        if (position + bytes.length > BUFFER_SIZE) flush();
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * Dopisuje bajt do bufora.
+     */
+    private void writeByte(int b) throws IOException {
+        if (position == BUFFER_SIZE) flush();
+        buffer[position++] = (byte) b;
+    }
+}
@@ -0,0 +1,124 @@
+package util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Rodzaj kompresji pliku CSV.
+ * Przy odczycie kompresja jest rozpoznawana po pierwszych bajtach pliku, a przy zapisie po rozszerzeniu nazwy
+ * (np. dane.csv.gz lub dane.csv.lz4).
+ */
+public enum Compression {
+    /** Plik bez kompresji. */
+    NONE(""),
+    /** Format gzip. */
+    GZIP(".gz"),
+    /** Format ramek LZ4: słabsza kompresja niż gzip, ale wielokrotnie szybsze pakowanie i rozpakowywanie. */
+    LZ4(".lz4");
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final String extension;
+
+    Compression(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Zwraca rozszerzenie nazwy pliku z tą kompresją.
+     *
+     * @return rozszerzenie z kropką lub pusty ciąg dla plików bez kompresji
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Rozpoznaje kompresję pliku po jego pierwszych bajtach.
+     *
+     * @param file plik do sprawdzenia
+     * @return rodzaj kompresji
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public static Compression detect(File file) throws IOException {
+        byte[] magic = new byte[4];
+        int length;
+        try (InputStream in = new FileInputStream(file)) {
+            length = in.readNBytes(magic, 0, magic.length);
+        }
+        if (length >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) return GZIP;
+        if (length == 4 && XXHash32.readInt(magic, 0) == LZ4FrameInputStream.MAGIC) return LZ4;
+        return NONE;
+    }
+
+    /**
+     * Wybiera kompresję na podstawie rozszerzenia nazwy pliku.
+     *
+     * @param file plik do zapisu
+     * @return rodzaj kompresji
+     */
+    public static Compression forFileName(File file) {
+        String name = file.getName().toLowerCase();
+        for (Compression c : values()) {
+            if (c != NONE && name.endsWith(c.extension)) return c;
+        }
+        return NONE;
+    }
+
+    /**
+     * Otwiera plik do odczytu, rozpakowując go, jeśli jest skompresowany.
+     * Rozpakowywanie odbywa się w osobnym wątku (patrz {@link ReadAheadInputStream}),
+     * równolegle z przetwarzaniem odczytanych danych.
+     *
+     * @param file plik do odczytania
+     * @return strumień danych pliku
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public static InputStream open(File file) throws IOException {
+        Compression compression = detect(file);
+        InputStream in = new FileInputStream(file);
+        if (compression == NONE) return in;
+        try {
+            return new ReadAheadInputStream(compression.decompress(in));
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Zwraca strumień rozpakowujący dane w tym formacie.
+     *
+     * @param in strumień danych skompresowanych
+     * @return strumień danych rozpakowanych
+     * @throws IOException jeśli nagłówek danych jest niepoprawny
+     */
+    public InputStream decompress(InputStream in) throws IOException {
+        return switch (this) {
+            case NONE -> in;
+            case GZIP -> new GZIPInputStream(in, BUFFER_SIZE);
+            case LZ4 -> new LZ4FrameInputStream(in);
+        };
+    }
+
+    /**
+     * Zwraca strumień kompresujący dane do tego formatu. Zamknięcie strumienia kończy dane skompresowane
+     * i zamyka strumień docelowy.
+     *
+     * @param out strumień docelowy
+     * @return strumień przyjmujący dane do skompresowania
+     * @throws IOException jeśli wystąpi błąd zapisu nagłówka
+     */
+    public OutputStream compress(OutputStream out) throws IOException {
+        return switch (this) {
+            case NONE -> out;
+            case GZIP -> new GZIPOutputStream(out, BUFFER_SIZE);
+            case LZ4 -> new LZ4FrameOutputStream(out);
+        };
+    }
+}
@@ -0,0 +1,292 @@
+package util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sortowanie zewnętrzne wierszy, które nie mieszczą się w pamięci.
+ * Wiersze są zbierane w pamięci do limitu, sortowane i zapisywane jako posortowane serie w plikach tymczasowych,
+ * a na końcu serie są scalane. Gdy serii jest więcej niż {@link #MAX_MERGE}, najpierw scalane są ich grupy.
+ * Kolejność wyznacza klucz bajtowy podany przy dodaniu wiersza, porównywany bajt po bajcie bez znaku;
+ * wiersze o równych kluczach zachowują kolejność dodania.
+ * Serie zapisują pola w postaci binarnej, więc pola z separatorami, cudzysłowami i znakami nowej linii
+ * wracają bez zmian, a puste pola (null) są odróżniane od pustego tekstu.
+ */
+public class ExternalSort implements Closeable {
+    /** Domyślny limit pamięci zbieranych wierszy w bajtach. */
+    public static final long DEFAULT_MEMORY = 256L << 20;
+    /** Największa liczba serii scalanych naraz. */
+    static final int MAX_MERGE = 64;
+    private static final int BUFFER_SIZE = 1 << 16;
+    /** Szacowany koszt wiersza bez pól: wpis, tablice wiersza i klucza. */
+    private static final long ROW_BYTES = 80;
+    /** Szacowany koszt pola bez znaków: referencja, obiekt ciągu i tablica znaków. */
+    private static final long FIELD_BYTES = 48;
+
+    private static final Comparator<Entry> ORDER = (a, b) -> Arrays.compareUnsigned(a.key, b.key);
+
+    private final long memoryLimit;
+    private final File tempDirectory;
+    private final List<Entry> entries = new ArrayList<>();
+    private final List<File> runs = new ArrayList<>();
+    private final List<File> files = new ArrayList<>();
+    private long memory;
+
+    /**
+     * Odbiorca posortowanych wierszy.
+     */
+    public interface RowSink {
+        /**
+         * Przyjmuje kolejny wiersz.
+         *
+         * @param row pola wiersza
+         * @throws IOException jeśli wystąpi błąd I/O
+         */
+        void accept(String[] row) throws IOException;
+    }
+
+    /**
+     * Wiersz z kluczem sortowania.
+     */
+    private record Entry(byte[] key, String[] row) {
+    }
+
+    /**
+     * Konstruktor sortowania.
+     *
+     * @param memoryLimit   szacowany limit pamięci zbieranych wierszy w bajtach
+     * @param tempDirectory katalog plików tymczasowych lub null dla katalogu domyślnego systemu
+     */
+    public ExternalSort(long memoryLimit, File tempDirectory) {
+        if (memoryLimit <= 0) throw new IllegalArgumentException("Limit pamieci musi byc dodatni");
+        this.memoryLimit = memoryLimit;
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Dodaje wiersz do sortowania. Po przekroczeniu limitu pamięci zebrane wiersze są zapisywane jako seria.
+     *
+     * @param key klucz sortowania
+     * @param row pola wiersza
+     * @throws IOException jeśli wystąpi błąd zapisu serii
+     */
+    public void add(byte[] key, String[] row) throws IOException {
+        entries.add(new Entry(key, row));
+        memory += ROW_BYTES + key.length + (long) row.length * FIELD_BYTES;
+        for (String field : row) {
+            if (field != null) memory += field.length();
+        }
+        if (memory >= memoryLimit) spill();
+    }
+
+    /**
+     * Przekazuje wszystkie wiersze w kolejności kluczy. Jeśli wiersze zmieściły się w pamięci,
+     * są sortowane bez zapisu na dysk.
+     *
+     * @param sink odbiorca posortowanych wierszy
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public void finish(RowSink sink) throws IOException {
+        if (runs.isEmpty()) {
+            sortEntries();
+            for (Entry e : entries) sink.accept(e.row);
+            entries.clear();
+            memory = 0;
+            return;
+        }
+        if (!entries.isEmpty()) spill();
+        while (runs.size() > MAX_MERGE) {
+            // Kolejne grupy sąsiednich serii dają serie w tej samej kolejności, więc scalanie pozostaje stabilne.
+            List<File> merged = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += MAX_MERGE) {
+                List<File> group = runs.subList(i, Math.min(i + MAX_MERGE, runs.size()));
+                if (group.size() == 1) {
+                    merged.add(group.get(0));
+                    continue;
+                }
+                File run = createRun();
+                merged.add(run);
+                try (DataOutputStream out = openRun(run)) {
+                    merge(group, (key, row) -> writeEntry(out, key, row));
+                }
+                for (File done : group) delete(done);
+            }
+            runs.clear();
+            runs.addAll(merged);
+        }
+        merge(runs, (key, row) -> sink.accept(row));
+    }
+
+    /**
+     * Zwraca liczbę serii zapisanych do tej pory na dysk.
+     *
+     * @return liczba plików serii
+     */
+    public int runCount() {
+        return runs.size();
+    }
+
+    /**
+     * Usuwa pliki tymczasowe serii.
+     */
+    @Override
+    public void close() {
+        for (File file : files) delete(file);
+        files.clear();
+        runs.clear();
+        entries.clear();
+        memory = 0;
+    }
+
+    /**
+     * Sortuje zebrane wiersze i zapisuje je jako nową serię.
+     */
+    private void spill() throws IOException {
+        sortEntries();
+        File run = createRun();
+        runs.add(run);
+        try (DataOutputStream out = openRun(run)) {
+            for (Entry e : entries) writeEntry(out, e.key, e.row);
+        }
+        entries.clear();
+        memory = 0;
+    }
+
+    /**
+     * Sortuje zebrane wiersze stabilnie, równolegle na wielu rdzeniach.
+     */
+    private void sortEntries() {
+        Entry[] sorted = entries.toArray(new Entry[0]);
+        Arrays.parallelSort(sorted, ORDER);
+        entries.clear();
+        entries.addAll(Arrays.asList(sorted));
+    }
+
+    /**
+     * Scala posortowane serie. Przy równych kluczach pierwszeństwo ma wcześniejsza seria,
+     * więc scalanie zachowuje kolejność dodania wierszy.
+     */
+    private void merge(List<File> group, EntrySink sink) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>((a, b) -> {
+            int result = Arrays.compareUnsigned(a.key, b.key);
+            return result != 0 ? result : Integer.compare(a.order, b.order);
+        });
+        List<RunReader> readers = new ArrayList<>();
+        try {
+            for (int i = 0; i < group.size(); i++) {
+                RunReader reader = new RunReader(group.get(i), i);
+                readers.add(reader);
+                if (reader.next()) queue.add(reader);
+            }
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                sink.accept(reader.key, reader.row);
+                if (reader.next()) queue.add(reader);
+            }
+        } finally {
+            for (RunReader reader : readers) reader.in.close();
+        }
+    }
+
+    /**
+     * Odbiorca wierszy scalanych serii razem z kluczami.
+     */
+    private interface EntrySink {
+        void accept(byte[] key, String[] row) throws IOException;
+    }
+
+    /**
+     * Tworzy pusty plik serii w katalogu tymczasowym.
+     */
+    private File createRun() throws IOException {
+        File run = File.createTempFile("csv-sort-", ".run", tempDirectory);
+        files.add(run);
+        return run;
+    }
+
+    /**
+     * Otwiera plik serii do zapisu.
+     */
+    private static DataOutputStream openRun(File run) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), BUFFER_SIZE));
+    }
+
+    /**
+     * Zapisuje wiersz serii: klucz i pola poprzedzone długościami (-1 dla pustego pola).
+     */
+    private static void writeEntry(DataOutputStream out, byte[] key, String[] row) throws IOException {
+        out.writeInt(key.length);
+        out.write(key);
+        out.writeInt(row.length);
+        for (String field : row) {
+            if (field == null) {
+                out.writeInt(-1);
+                continue;
+            }
+            byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Usuwa plik tymczasowy, jeśli istnieje.
+     */
+    private static void delete(File file) {
+        if (file.exists() && !file.delete()) file.deleteOnExit();
+    }
+
+    /**
+     * Czytnik serii podający kolejne wiersze do scalania.
+     */
+    private static class RunReader {
+        final DataInputStream in;
+        final int order;
+        byte[] key;
+        String[] row;
+
+        RunReader(File run, int order) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(run), BUFFER_SIZE));
+            this.order = order;
+        }
+
+        /**
+         * Odczytuje kolejny wiersz serii.
+         *
+         * @return false na końcu serii
+         */
+        boolean next() throws IOException {
+            int keyLength;
+            try {
+                keyLength = in.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            key = new byte[keyLength];
+            in.readFully(key);
+            row = new String[in.readInt()];
+            for (int i = 0; i < row.length; i++) {
+                int length = in.readInt();
+                if (length < 0) continue;
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                row[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return true;
+        }
+    }
+}
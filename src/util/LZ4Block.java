@@ -0,0 +1,179 @@
+package util;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Kodowanie pojedynczego bloku w formacie LZ4.
+ * Blok to ciąg sekwencji: literały kopiowane wprost oraz odwołanie do wcześniejszych danych (przesunięcie i długość).
+ * Kompresja szuka powtórzeń czterobajtowych przez tablicę mieszającą i nie przeszukuje łańcuchów,
+ * więc jest szybka kosztem stopnia kompresji, tak jak domyślny tryb narzędzia lz4.
+ */
+final class LZ4Block {
+    /** Rozmiar tablicy mieszającej podawanej do {@link #compress}. */
+    static final int HASH_SIZE = 1 << 16;
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_DISTANCE = 65535;
+
+    private LZ4Block() {
+    }
+
+    /**
+     * Zwraca największy możliwy rozmiar skompresowanego bloku.
+     *
+     * @param length długość danych
+     * @return rozmiar bufora wystarczający dla {@link #compress}
+     */
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Kompresuje blok niezależny od poprzednich danych.
+     *
+     * @param src       dane
+     * @param offset    początek danych
+     * @param length    długość danych
+     * @param dst       bufor wynikowy o rozmiarze co najmniej {@link #maxCompressedLength(int)} od dstOffset
+     * @param dstOffset początek wyniku
+     * @param table     tablica mieszająca o rozmiarze {@link #HASH_SIZE}
+     * @return długość skompresowanego bloku
+     */
+    static int compress(byte[] src, int offset, int length, byte[] dst, int dstOffset, int[] table) {
+        Arrays.fill(table, -1);
+        int end = offset + length;
+        int anchor = offset;
+        int op = dstOffset;
+        if (length > MF_LIMIT) {
+            int limit = end - MF_LIMIT;
+            int matchLimit = end - LAST_LITERALS;
+            int ip = offset;
+            while (ip < limit) {
+                int sequence = XXHash32.readInt(src, ip);
+                int h = hash(sequence);
+                int ref = table[h];
+                table[h] = ip;
+                if (ref < 0 || ip - ref > MAX_DISTANCE || XXHash32.readInt(src, ref) != sequence) {
+                    // Im dłużej brak powtórzeń, tym większy krok, więc dane niekompresowalne są szybko pomijane.
+                    ip += 1 + (ip - anchor >>> 6);
+                    continue;
+                }
+                while (ip > anchor && ref > offset && src[ip - 1] == src[ref - 1]) {
+                    ip--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength]) matchLength++;
+                int token = op;
+                op = writeSequence(src, anchor, ip - anchor, dst, op);
+                dst[token] |= (byte) Math.min(matchLength - MIN_MATCH, 15);
+                dst[op++] = (byte) (ip - ref);
+                dst[op++] = (byte) (ip - ref >>> 8);
+                if (matchLength - MIN_MATCH >= 15) op = writeLength(matchLength - MIN_MATCH - 15, dst, op);
+                ip += matchLength;
+                anchor = ip;
+            }
+        }
+        op = writeSequence(src, anchor, end - anchor, dst, op);
+        return op - dstOffset;
+    }
+
+    /**
+     * Dekompresuje blok. Odwołania mogą sięgać do danych przed początkiem bloku w buforze wynikowym,
+     * najdalej do pozycji dictStart (poprzednie bloki ramki z blokami zależnymi).
+     *
+     * @param src       skompresowany blok
+     * @param offset    początek bloku
+     * @param length    długość bloku
+     * @param dst       bufor wynikowy
+     * @param dstOffset początek wyniku
+     * @param dstEnd    pozycja za ostatnim bajtem, który może zostać zapisany
+     * @param dictStart najwcześniejsza pozycja, do której mogą sięgać odwołania
+     * @return liczba zdekompresowanych bajtów
+     * @throws IOException jeśli blok jest uszkodzony
+     */
+    static int decompress(byte[] src, int offset, int length, byte[] dst, int dstOffset, int dstEnd, int dictStart)
+            throws IOException {
+        int sp = offset;
+        int srcEnd = offset + length;
+        int dp = dstOffset;
+        while (sp < srcEnd) {
+            int token = src[sp++] & 0xFF;
+            int literals = token >>> 4;
+            if (literals == 15) {
+                int b;
+                do {
+                    if (sp >= srcEnd) throw corrupted();
+                    b = src[sp++] & 0xFF;
+                    literals += b;
+                } while (b == 255);
+            }
+            if (literals < 0 || literals > srcEnd - sp || literals > dstEnd - dp) throw corrupted();
+            System.arraycopy(src, sp, dst, dp, literals);
+            sp += literals;
+            dp += literals;
+            if (sp == srcEnd) return dp - dstOffset;
+
+            if (srcEnd - sp < 2) throw corrupted();
+            int distance = src[sp] & 0xFF | (src[sp + 1] & 0xFF) << 8;
+            sp += 2;
+            int ref = dp - distance;
+            if (distance == 0 || ref < dictStart) throw corrupted();
+            int matchLength = token & 15;
+            if (matchLength == 15) {
+                int b;
+                do {
+                    if (sp >= srcEnd) throw corrupted();
+                    b = src[sp++] & 0xFF;
+                    matchLength += b;
+                } while (b == 255);
+            }
+            matchLength += MIN_MATCH;
+            if (matchLength < 0 || matchLength > dstEnd - dp) throw corrupted();
+            if (distance >= matchLength) {
+                System.arraycopy(dst, ref, dst, dp, matchLength);
+            } else {
+                // Odwołanie nachodzi na kopiowane dane: powtarza ostatnie bajty wyniku.
+                for (int i = 0; i < matchLength; i++) dst[dp + i] = dst[ref + i];
+            }
+            dp += matchLength;
+        }
+        throw corrupted();
+    }
+
+    /**
+     * Zapisuje token z długością literałów, jej rozszerzenie i same literały.
+     * Długość odwołania jest dopisywana do tokenu później.
+     */
+    private static int writeSequence(byte[] src, int from, int literals, byte[] dst, int op) {
+        dst[op++] = (byte) (Math.min(literals, 15) << 4);
+        if (literals >= 15) op = writeLength(literals - 15, dst, op);
+        System.arraycopy(src, from, dst, op, literals);
+        return op + literals;
+    }
+
+    /**
+     * Zapisuje rozszerzenie długości: bajty 255 i resztę.
+     */
+    private static int writeLength(int length, byte[] dst, int op) {
+        while (length >= 255) {
+            dst[op++] = (byte) 255;
+            length -= 255;
+        }
+        dst[op++] = (byte) length;
+        return op;
+    }
+
+    /**
+     * Zwraca indeks tablicy mieszającej dla czterech bajtów.
+     */
+    private static int hash(int sequence) {
+        return sequence * -1640531535 >>> 16;
+    }
+
+    private static IOException corrupted() {
+        return new IOException("Uszkodzone dane LZ4");
+    }
+}
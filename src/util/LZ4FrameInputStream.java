@@ -0,0 +1,175 @@
+package util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Strumień rozpakowujący dane w formacie ramek LZ4 (pliki .lz4 narzędzia lz4).
+ * Obsługuje bloki niezależne i zależne, sumy kontrolne nagłówka, bloków i zawartości,
+ * kolejne ramki zapisane jedna po drugiej oraz ramki pomijalne. Ramki ze słownikiem nie są obsługiwane.
+ */
+public class LZ4FrameInputStream extends InputStream {
+    static final int MAGIC = 0x184D2204;
+    private static final int SKIPPABLE_MAGIC = 0x184D2A50;
+    private static final int WINDOW = 64 << 10;
+
+    private final InputStream in;
+    private final byte[] header = new byte[14];
+    private byte[] compressed = new byte[0];
+    private byte[] buffer = new byte[0];
+    private int position;
+    private int limit;
+    private boolean inFrame;
+    private boolean independent;
+    private boolean blockChecksum;
+    private int maxBlockSize;
+    private XXHash32 contentChecksum;
+
+    /**
+     * Konstruktor strumienia.
+     *
+     * @param in strumień danych skompresowanych
+     */
+    public LZ4FrameInputStream(InputStream in) {
+        this.in = in;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        while (position == limit) {
+            if (!nextBlock()) return -1;
+        }
+        int n = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Rozpakowuje kolejny blok.
+     *
+     * @return false na końcu danych
+     */
+    private boolean nextBlock() throws IOException {
+        if (!inFrame && !readFrameHeader()) return false;
+        int size = readInt();
+        if (size == 0) {
+            if (contentChecksum != null && readInt() != contentChecksum.getValue()) {
+                throw new IOException("Niezgodna suma kontrolna danych LZ4");
+            }
+            inFrame = false;
+            position = limit = 0;
+            return true;
+        }
+        boolean stored = size < 0;
+        size &= Integer.MAX_VALUE;
+        if (size > maxBlockSize) throw new IOException("Uszkodzone dane LZ4");
+        readFully(compressed, size);
+        if (blockChecksum && readInt() != XXHash32.hash(compressed, 0, size)) {
+            throw new IOException("Niezgodna suma kontrolna bloku LZ4");
+        }
+
+        int start = 0;
+        if (!independent) {
+            // Bloki zależne mogą odwoływać się do ostatnich 64 KB poprzednich bloków.
+            if (limit > WINDOW) {
+                System.arraycopy(buffer, limit - WINDOW, buffer, 0, WINDOW);
+                limit = WINDOW;
+            }
+            start = limit;
+        }
+        int length;
+        if (stored) {
+            System.arraycopy(compressed, 0, buffer, start, size);
+            length = size;
+        } else {
+            length = LZ4Block.decompress(compressed, 0, size, buffer, start, start + maxBlockSize, 0);
+        }
+        if (contentChecksum != null) contentChecksum.update(buffer, start, length);
+        position = start;
+        limit = start + length;
+        return true;
+    }
+
+    /**
+     * Odczytuje nagłówek kolejnej ramki, pomijając ramki pomijalne.
+     *
+     * @return false, jeśli dane skończyły się przed ramką
+     */
+    private boolean readFrameHeader() throws IOException {
+        int magic;
+        while (true) {
+            int first = in.read();
+            if (first < 0) return false;
+            header[0] = (byte) first;
+            readFully(header, 1, 3);
+            magic = XXHash32.readInt(header, 0);
+            if ((magic & 0xFFFFFFF0) != SKIPPABLE_MAGIC) break;
+            in.skipNBytes(readInt() & 0xFFFFFFFFL);
+        }
+        if (magic != MAGIC) throw new IOException("Niepoprawny naglowek ramki LZ4");
+
+        readFully(header, 0, 2);
+        int flags = header[0] & 0xFF;
+        int descriptor = header[1] & 0xFF;
+        if (flags >>> 6 != 1) throw new IOException("Nieobslugiwana wersja formatu LZ4");
+        if ((flags & 0x01) != 0) throw new IOException("Ramki LZ4 ze slownikiem nie sa obslugiwane");
+        int blockSizeId = descriptor >>> 4 & 7;
+        if (blockSizeId < 4) throw new IOException("Niepoprawny rozmiar bloku LZ4");
+        int length = 2;
+        if ((flags & 0x08) != 0) {
+            readFully(header, length, 8);
+            length += 8;
+        }
+        int checksum = in.read();
+        if (checksum < 0) throw new EOFException("Niekompletna ramka LZ4");
+        if (checksum != (XXHash32.hash(header, 0, length) >>> 8 & 0xFF)) {
+            throw new IOException("Niezgodna suma kontrolna naglowka LZ4");
+        }
+
+        independent = (flags & 0x20) != 0;
+        blockChecksum = (flags & 0x10) != 0;
+        contentChecksum = (flags & 0x04) != 0 ? new XXHash32() : null;
+        maxBlockSize = 1 << 2 * blockSizeId + 8;
+        if (compressed.length < maxBlockSize) compressed = new byte[maxBlockSize];
+        int bufferSize = independent ? maxBlockSize : WINDOW + maxBlockSize;
+        if (buffer.length < bufferSize) buffer = new byte[bufferSize];
+        position = limit = 0;
+        inFrame = true;
+        return true;
+    }
+
+    /**
+     * Odczytuje liczbę zapisaną w kolejności little-endian.
+     */
+    private int readInt() throws IOException {
+        readFully(header, 0, 4);
+        return XXHash32.readInt(header, 0);
+    }
+
+    private void readFully(byte[] b, int length) throws IOException {
+        readFully(b, 0, length);
+    }
+
+    private void readFully(byte[] b, int offset, int length) throws IOException {
+        if (in.readNBytes(b, offset, length) < length) throw new EOFException("Niekompletna ramka LZ4");
+    }
+}
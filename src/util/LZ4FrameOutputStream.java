@@ -0,0 +1,109 @@
+package util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Strumień kompresujący dane do formatu ramek LZ4, czytelnego dla narzędzia lz4 i {@link LZ4FrameInputStream}.
+ * Dane są dzielone na niezależne bloki po 4 MB, a ramka kończy się sumą kontrolną całej zawartości.
+ * Bloki, których nie udało się zmniejszyć, są zapisywane bez kompresji.
+ */
+public class LZ4FrameOutputStream extends OutputStream {
+    private static final int BLOCK_SIZE = 4 << 20;
+    /** Wersja 1, bloki niezależne, suma kontrolna zawartości. */
+    private static final int FLAGS = 0x64;
+    /** Największy rozmiar bloku: 4 MB. */
+    private static final int DESCRIPTOR = 0x70;
+
+    private final OutputStream out;
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private final byte[] compressed = new byte[4 + LZ4Block.maxCompressedLength(BLOCK_SIZE)];
+    private final int[] table = new int[LZ4Block.HASH_SIZE];
+    private final XXHash32 contentChecksum = new XXHash32();
+    private int length;
+    private boolean closed;
+
+    /**
+     * Konstruktor strumienia. Zapisuje nagłówek ramki.
+     *
+     * @param out strumień docelowy
+     * @throws IOException jeśli wystąpi błąd zapisu
+     */
+    public LZ4FrameOutputStream(OutputStream out) throws IOException {
+        this.out = out;
+        byte[] header = {4, 0x22, 0x4D, 0x18, FLAGS, DESCRIPTOR, 0};
+        header[6] = (byte) (XXHash32.hash(header, 4, 2) >>> 8);
+        out.write(header);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (length == BLOCK_SIZE) writeBlock();
+        block[length++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (length == BLOCK_SIZE) writeBlock();
+            int n = Math.min(len, BLOCK_SIZE - length);
+            System.arraycopy(b, off, block, length, n);
+            length += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Zapisuje zebrane dane jako blok i opróżnia strumień docelowy.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (length > 0) writeBlock();
+        out.flush();
+    }
+
+    /**
+     * Zapisuje ostatni blok, znacznik końca ramki i sumę kontrolną, a potem zamyka strumień docelowy.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (length > 0) writeBlock();
+            byte[] end = new byte[8];
+            writeInt(end, 4, contentChecksum.getValue());
+            out.write(end);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Kompresuje i zapisuje zebrane dane jako jeden blok.
+     */
+    private void writeBlock() throws IOException {
+        contentChecksum.update(block, 0, length);
+        int size = LZ4Block.compress(block, 0, length, compressed, 4, table);
+        if (size >= length) {
+            System.arraycopy(block, 0, compressed, 4, length);
+            size = length;
+            writeInt(compressed, 0, length | Integer.MIN_VALUE);
+        } else {
+            writeInt(compressed, 0, size);
+        }
+        out.write(compressed, 0, 4 + size);
+        length = 0;
+    }
+
+    /**
+     * Zapisuje liczbę w kolejności little-endian.
+     */
+    private static void writeInt(byte[] b, int offset, int value) {
+        b[offset] = (byte) value;
+        b[offset + 1] = (byte) (value >>> 8);
+        b[offset + 2] = (byte) (value >>> 16);
+        b[offset + 3] = (byte) (value >>> 24);
+    }
+}
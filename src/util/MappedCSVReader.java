@@ -0,0 +1,120 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Czytnik CSV oparty na pliku mapowanym w pamięci.
+ * Skanuje bajty UTF-8 bezpośrednio w poszukiwaniu separatorów, cudzysłowów i końców linii
+ * (patrz {@link CSVTokenizer}), a ciągi znaków tworzy dopiero dla pól, które trafiają do wyniku.
+ * Pola w cudzysłowie mogą zawierać znaki nowej linii.
+ */
+public class MappedCSVReader {
+    private static final long DEFAULT_WINDOW = 256L << 20;
+    private static final long MAX_WINDOW = Integer.MAX_VALUE - 8;
+
+    private final File file;
+    private final CSVTokenizer tokenizer;
+    private final CSVRecord record = new CSVRecord();
+    private long window = DEFAULT_WINDOW;
+    private long position;
+
+    /**
+     * Konstruktor czytnika.
+     *
+     * @param file      plik CSV do odczytania
+     * @param delimiter separator użyty w pliku CSV (pierwszy znak, musi być znakiem ASCII)
+     */
+    public MappedCSVReader(File file, String delimiter) {
+        this.file = file;
+        this.tokenizer = new CSVTokenizer(delimiter);
+    }
+
+    /**
+     * Sprawdza, czy separator może być obsłużony przez skanowanie bajtów.
+     *
+     * @param delimiter separator do sprawdzenia
+     * @return true, jeśli pierwszy znak separatora jest znakiem ASCII
+     */
+    public static boolean supports(String delimiter) {
+        return CSVTokenizer.supports(delimiter);
+    }
+
+    /**
+     * Odczytuje wszystkie rekordy pliku.
+     *
+     * @return dane pliku CSV
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public List<String[]> readAll() throws IOException {
+        List<String[]> data = new ArrayList<>();
+        read(0, Long.MAX_VALUE, data::add);
+        return data;
+    }
+
+    /**
+     * Odczytuje rekordy rozpoczynające się w podanym zakresie bajtów.
+     * Początek zakresu musi wskazywać początek rekordu; ostatni rekord może wychodzić poza koniec zakresu.
+     *
+     * @param from pozycja pierwszego bajtu zakresu
+     * @param to   pozycja za ostatnim bajtem zakresu
+     * @param sink odbiorca kolejnych rekordów
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public void read(long from, long to, Consumer<String[]> sink) throws IOException {
+        scan(from, to, rec -> sink.accept(rec.toArray()));
+    }
+
+    /**
+     * Skanuje niepuste rekordy rozpoczynające się w podanym zakresie bajtów bez tworzenia ciągów znaków.
+     * Odbiorca dostaje za każdym razem ten sam bufor {@link CSVRecord}, ważny tylko w trakcie wywołania.
+     *
+     * @param from pozycja pierwszego bajtu zakresu
+     * @param to   pozycja za ostatnim bajtem zakresu
+     * @param sink odbiorca kolejnych rekordów
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public void scan(long from, long to, Consumer<CSVRecord> sink) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            to = Math.min(to, size);
+            long pos = from;
+            position = from;
+            while (pos < to) {
+                long len = Math.min(window, size - pos);
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                boolean eof = pos + len >= size;
+                int limit = (int) Math.min(len, to - pos);
+                int p = 0;
+                while (p < limit) {
+                    int next = tokenizer.next(buf, p, (int) len, eof, record);
+                    if (next < 0) break;
+                    position = pos + next;
+                    if (!record.isBlank()) sink.accept(record);
+                    p = next;
+                }
+                if (p == 0 && pos < to) {
+                    if (window >= MAX_WINDOW) throw new IOException("Rekord przekracza maksymalny rozmiar okna");
+                    window = Math.min(window * 2, MAX_WINDOW);
+                }
+                pos += p;
+            }
+        }
+    }
+
+    /**
+     * Zwraca pozycję w pliku za ostatnio odczytanym rekordem.
+     * Może być wywołana przez odbiorcę rekordów w trakcie odczytu.
+     *
+     * @return liczba bajtów pliku przetworzonych do tej pory
+     */
+    public long position() {
+        return position;
+    }
+}
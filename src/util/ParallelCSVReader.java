@@ -0,0 +1,214 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Równoległy czytnik dużych plików CSV.
+ * Dzieli plik na zakresy bajtów, wyznacza bezpieczne granice rekordów z uwzględnieniem
+ * pól w cudzysłowie przechodzących przez granice zakresów i parsuje zakresy w puli fork-join.
+ * Wyniki są przekazywane w kolejności występowania w pliku.
+ * Granice wyznaczone z parzystości cudzysłowów są sprawdzane przy łączeniu wyników: jeśli ostatni rekord
+ * fragmentu nie kończy się na początku następnego (np. po niezamkniętym cudzysłowie, patrz {@link CSVTokenizer}),
+ * następny fragment jest parsowany ponownie od właściwej pozycji.
+ */
+public class ParallelCSVReader {
+    private static final long MIN_CHUNK = 1L << 20;
+    private static final long MAX_CHUNK = 64L << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int IN_FLIGHT_PER_THREAD = 2;
+
+    private final File file;
+    private final String delimiter;
+    private final ForkJoinPool pool;
+
+    /**
+     * Konstruktor czytnika korzystający ze wspólnej puli fork-join.
+     *
+     * @param file      plik CSV do odczytania
+     * @param delimiter separator użyty w pliku CSV
+     */
+    public ParallelCSVReader(File file, String delimiter) {
+        this(file, delimiter, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Konstruktor czytnika.
+     *
+     * @param file      plik CSV do odczytania
+     * @param delimiter separator użyty w pliku CSV (musi być obsługiwany przez {@link MappedCSVReader})
+     * @param pool      pula wątków parsujących
+     */
+    public ParallelCSVReader(File file, String delimiter, ForkJoinPool pool) {
+        if (!MappedCSVReader.supports(delimiter)) throw new IllegalArgumentException("Separator musi byc znakiem ASCII");
+        this.file = file;
+        this.delimiter = delimiter;
+        this.pool = pool;
+    }
+
+    /**
+     * Odczytuje wszystkie rekordy pliku.
+     *
+     * @return dane pliku CSV w kolejności z pliku
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public List<String[]> readAll() throws IOException {
+        List<List<String[]>> chunks = new ArrayList<>();
+        read(chunks::add, bytes -> { });
+        int total = 0;
+        for (List<String[]> c : chunks) total += c.size();
+        List<String[]> data = new ArrayList<>(total);
+        for (List<String[]> c : chunks) data.addAll(c);
+        return data;
+    }
+
+    /**
+     * Parsuje plik równolegle i przekazuje kolejne fragmenty w kolejności z pliku,
+     * gdy tylko są gotowe i wszystkie wcześniejsze zostały przekazane.
+     * Naraz parsowanych lub czekających na odbiorcę jest najwyżej dwa razy tyle fragmentów, ile wątków ma pula,
+     * więc wolny odbiorca ogranicza ilość sparsowanych, a jeszcze nieprzekazanych wierszy.
+     *
+     * @param sink     odbiorca sparsowanych fragmentów
+     * @param progress odbiorca liczby bajtów pliku przekazanych do tej pory
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public void read(Consumer<List<String[]>> sink, LongConsumer progress) throws IOException {
+        long[] starts = splitPoints();
+        int inFlight = IN_FLIGHT_PER_THREAD * pool.getParallelism();
+        ArrayDeque<ForkJoinTask<Chunk>> tasks = new ArrayDeque<>();
+        int submitted = 0;
+        try {
+            long next = 0;
+            while (true) {
+                while (tasks.size() < inFlight && submitted + 1 < starts.length) {
+                    long from = starts[submitted];
+                    long to = starts[++submitted];
+                    if (from < to) tasks.add(pool.submit(() -> parseRange(from, to)));
+                }
+                if (tasks.isEmpty()) break;
+                Chunk chunk = tasks.poll().join();
+                if (chunk.from != next) {
+                    if (next >= chunk.to) continue;
+                    chunk = parseRange(next, chunk.to);
+                }
+                next = chunk.end;
+                progress.accept(chunk.to);
+                sink.accept(chunk.rows);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (ForkJoinTask<Chunk> t : tasks) t.cancel(false);
+        }
+    }
+
+    /**
+     * Wyznacza granice fragmentów leżące na początkach rekordów.
+     *
+     * @return posortowane pozycje początków fragmentów zakończone rozmiarem pliku
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    long[] splitPoints() throws IOException {
+        long size = file.length();
+        long chunk = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, size / ((long) pool.getParallelism() * CHUNKS_PER_THREAD)));
+        int n = (int) Math.max(1, (size + chunk - 1) / chunk);
+        long[] starts = new long[n + 1];
+        starts[n] = size;
+        if (n == 1) return starts;
+
+        List<ForkJoinTask<ChunkScan>> scans = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            long from = i * chunk;
+            long to = Math.min(size, from + chunk);
+            scans.add(pool.submit(() -> scanChunk(from, to, size)));
+        }
+        boolean[] inQuotesAtStart = new boolean[n];
+        ChunkScan[] results = new ChunkScan[n];
+        try {
+            for (int i = 0; i < n; i++) {
+                results[i] = scans.get(i).join();
+                if (i + 1 < n) inQuotesAtStart[i + 1] = inQuotesAtStart[i] ^ results[i].oddQuotes;
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (int i = n - 1; i > 0; i--) {
+            long boundary = inQuotesAtStart[i] ? results[i].boundaryIfQuoted : results[i].boundaryIfPlain;
+            starts[i] = boundary < 0 ? starts[i + 1] : boundary;
+        }
+        return starts;
+    }
+
+    /**
+     * Skanuje zakres w poszukiwaniu parzystości cudzysłowów i pierwszej granicy rekordu
+     * dla obu możliwych stanów początkowych (poza cudzysłowem i wewnątrz niego).
+     */
+    private ChunkScan scanChunk(long from, long to, long size) {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            int len = (int) (Math.min(size, to + 1) - from);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, from, len);
+            int end = (int) (to - from);
+            ChunkScan scan = new ChunkScan();
+            boolean odd = false;
+            for (int i = 0; i < end; i++) {
+                byte b = buf.get(i);
+                if (b == '"') {
+                    odd = !odd;
+                } else if (b == '\n' || b == '\r') {
+                    int next = b == '\r' && i + 1 < len && buf.get(i + 1) == '\n' ? i + 2 : i + 1;
+                    if (!odd && scan.boundaryIfPlain < 0) scan.boundaryIfPlain = from + next;
+                    if (odd && scan.boundaryIfQuoted < 0) scan.boundaryIfQuoted = from + next;
+                }
+            }
+            scan.oddQuotes = odd;
+            return scan;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parsuje rekordy rozpoczynające się w podanym zakresie.
+     */
+    private Chunk parseRange(long from, long to) {
+        List<String[]> rows = new ArrayList<>();
+        MappedCSVReader reader = new MappedCSVReader(file, delimiter);
+        try {
+            reader.read(from, to, rows::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Chunk(from, to, reader.position(), rows);
+    }
+
+    /**
+     * Sparsowany fragment pliku.
+     *
+     * @param from początek zakresu
+     * @param to   koniec zakresu
+     * @param end  pozycja za ostatnim rekordem, który może wychodzić poza koniec zakresu
+     * @param rows rekordy fragmentu
+     */
+    private record Chunk(long from, long to, long end, List<String[]> rows) {
+    }
+
+    /**
+     * Wynik skanowania jednego zakresu pliku.
+     */
+    private static class ChunkScan {
+        boolean oddQuotes;
+        long boundaryIfPlain = -1;
+        long boundaryIfQuoted = -1;
+    }
+}
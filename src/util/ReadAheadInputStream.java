@@ -0,0 +1,132 @@
+package util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Strumień czytający źródło z wyprzedzeniem w osobnym wątku.
+ * Wątek czyta kolejne porcje źródła (np. rozpakowywanego strumienia) i przekazuje je przez ograniczoną kolejkę,
+ * więc kosztowne rozpakowywanie odbywa się równolegle z przetwarzaniem danych przez czytelnika.
+ * Błąd źródła jest zgłaszany czytelnikowi po odczytaniu danych sprzed błędu.
+ * Zamknięcie strumienia zatrzymuje wątek i zamyka źródło.
+ */
+public class ReadAheadInputStream extends InputStream {
+    private static final int CHUNK_SIZE = 256 << 10;
+    private static final int QUEUED_CHUNKS = 8;
+
+    /**
+     * Porcja danych; pusta porcja oznacza koniec danych, a porcja z błędem błąd źródła.
+     */
+    private record Chunk(byte[] data, int length, IOException error) {
+    }
+
+    private static final Chunk END = new Chunk(new byte[0], 0, null);
+
+    private final InputStream source;
+    private final BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(QUEUED_CHUNKS);
+    private final Thread thread;
+    private Chunk current;
+    private int position;
+    private boolean finished;
+    private boolean closed;
+
+    /**
+     * Konstruktor strumienia. Uruchamia wątek czytający źródło.
+     *
+     * @param source strumień źródłowy
+     */
+    public ReadAheadInputStream(InputStream source) {
+        this.source = source;
+        this.thread = new Thread(this::readSource, "csv-read-ahead");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) throw new IOException("Strumien zostal zamkniety");
+        if (len == 0) return 0;
+        while (current == null || position == current.length) {
+            if (finished) return -1;
+            try {
+                current = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Przerwano odczyt");
+            }
+            position = 0;
+            if (current.error != null) {
+                finished = true;
+                throw current.error;
+            }
+            if (current == END) finished = true;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current.data, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.length - position;
+    }
+
+    /**
+     * Zatrzymuje wątek czytający i zamyka źródło.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        thread.interrupt();
+        queue.clear();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        source.close();
+    }
+
+    /**
+     * Pętla wątku czytającego: wypełnia kolejne porcje i wstawia je do kolejki.
+     */
+    private void readSource() {
+        try {
+            while (true) {
+                byte[] data = new byte[CHUNK_SIZE];
+                int length = source.readNBytes(data, 0, CHUNK_SIZE);
+                if (length > 0) queue.put(new Chunk(data, length, null));
+                if (length < CHUNK_SIZE) break;
+            }
+            queue.put(END);
+        } catch (InterruptedException e) {
+            // Czytelnik zamknął strumień.
+        } catch (IOException e) {
+            offer(e);
+        } catch (RuntimeException e) {
+            offer(new IOException(e.getMessage(), e));
+        }
+    }
+
+    /**
+     * Przekazuje błąd źródła czytelnikowi, chyba że strumień został już zamknięty.
+     */
+    private void offer(IOException error) {
+        try {
+            queue.put(new Chunk(null, 0, error));
+        } catch (InterruptedException ignored) {
+            // Czytelnik zamknął strumień.
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Czytnik CSV dla strumienia bajtów UTF-8, np. rozpakowywanego pliku, którego nie można mapować w pamięci.
+ * Dane są czytane do bufora, skanowane tym samym tokenizerem co w {@link MappedCSVReader},
+ * a niedokończony rekord z końca bufora jest przenoszony na jego początek przed kolejnym odczytem.
+ * Bufor rośnie tylko wtedy, gdy pojedynczy rekord jest od niego większy.
+ */
+public class StreamCSVReader {
+    private static final int INITIAL_BUFFER = 1 << 20;
+    private static final int MAX_BUFFER = Integer.MAX_VALUE - 8;
+
+    private final InputStream in;
+    private final CSVTokenizer tokenizer;
+    private final CSVRecord record = new CSVRecord();
+
+    /**
+     * Konstruktor czytnika. Strumień nie jest zamykany przez czytnik.
+     *
+     * @param in        strumień danych CSV
+     * @param delimiter separator użyty w danych (pierwszy znak, musi być znakiem ASCII)
+     */
+    public StreamCSVReader(InputStream in, String delimiter) {
+        this.in = in;
+        this.tokenizer = new CSVTokenizer(delimiter);
+    }
+
+    /**
+     * Odczytuje kolejne rekordy do końca strumienia.
+     *
+     * @param sink odbiorca kolejnych rekordów
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public void read(Consumer<String[]> sink) throws IOException {
+        scan(rec -> sink.accept(rec.toArray()));
+    }
+
+    /**
+     * Skanuje niepuste rekordy do końca strumienia bez tworzenia ciągów znaków.
+     * Odbiorca dostaje za każdym razem ten sam bufor {@link CSVRecord}, ważny tylko w trakcie wywołania.
+     *
+     * @param sink odbiorca kolejnych rekordów
+     * @throws IOException jeśli wystąpi błąd I/O
+     */
+    public void scan(Consumer<CSVRecord> sink) throws IOException {
+        byte[] bytes = new byte[INITIAL_BUFFER];
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        int length = 0;
+        boolean eof = false;
+        while (!eof) {
+            if (length == bytes.length) {
+                if (bytes.length == MAX_BUFFER) throw new IOException("Rekord przekracza maksymalny rozmiar bufora");
+                byte[] grown = new byte[(int) Math.min(bytes.length * 2L, MAX_BUFFER)];
+                System.arraycopy(bytes, 0, grown, 0, length);
+                bytes = grown;
+                buf = ByteBuffer.wrap(bytes);
+            }
+            int n = in.readNBytes(bytes, length, bytes.length - length);
+            length += n;
+            eof = length < bytes.length;
+            int p = 0;
+            while (p < length) {
+                int next = tokenizer.next(buf, p, length, eof, record);
+                if (next < 0) break;
+                p = next;
+                if (!record.isBlank()) sink.accept(record);
+            }
+            System.arraycopy(bytes, p, bytes, 0, length - p);
+            length -= p;
+        }
+    }
+}
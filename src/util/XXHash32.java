@@ -0,0 +1,129 @@
+package util;
+
+/**
+ * Suma kontrolna XXH32 używana w formacie ramek LZ4 (nagłówek, bloki i cała zawartość).
+ * Dane można podawać w dowolnych porcjach; wynik zależy tylko od ich kolejności.
+ */
+final class XXHash32 {
+    private static final int PRIME1 = 0x9E3779B1;
+    private static final int PRIME2 = 0x85EBCA77;
+    private static final int PRIME3 = 0xC2B2AE3D;
+    private static final int PRIME4 = 0x27D4EB2F;
+    private static final int PRIME5 = 0x165667B1;
+
+    private final int seed;
+    private final byte[] pending = new byte[16];
+    private int pendingLength;
+    private long total;
+    private int v1;
+    private int v2;
+    private int v3;
+    private int v4;
+
+    /**
+     * Konstruktor sumy z ziarnem 0.
+     */
+    XXHash32() {
+        this(0);
+    }
+
+    /**
+     * Konstruktor sumy.
+     *
+     * @param seed ziarno
+     */
+    XXHash32(int seed) {
+        this.seed = seed;
+        v1 = seed + PRIME1 + PRIME2;
+        v2 = seed + PRIME2;
+        v3 = seed;
+        v4 = seed - PRIME1;
+    }
+
+    /**
+     * Zwraca sumę fragmentu tablicy.
+     *
+     * @param data   dane
+     * @param offset początek fragmentu
+     * @param length długość fragmentu
+     * @return suma XXH32 z ziarnem 0
+     */
+    static int hash(byte[] data, int offset, int length) {
+        XXHash32 hash = new XXHash32();
+        hash.update(data, offset, length);
+        return hash.getValue();
+    }
+
+    /**
+     * Dodaje kolejną porcję danych.
+     *
+     * @param data   dane
+     * @param offset początek porcji
+     * @param length długość porcji
+     */
+    void update(byte[] data, int offset, int length) {
+        total += length;
+        int end = offset + length;
+        if (pendingLength > 0) {
+            int n = Math.min(16 - pendingLength, length);
+            System.arraycopy(data, offset, pending, pendingLength, n);
+            pendingLength += n;
+            offset += n;
+            if (pendingLength < 16) return;
+            stripe(pending, 0);
+            pendingLength = 0;
+        }
+        for (; offset + 16 <= end; offset += 16) stripe(data, offset);
+        System.arraycopy(data, offset, pending, 0, end - offset);
+        pendingLength = end - offset;
+    }
+
+    /**
+     * Zwraca sumę danych podanych do tej pory.
+     *
+     * @return suma XXH32
+     */
+    int getValue() {
+        int h = total >= 16
+                ? Integer.rotateLeft(v1, 1) + Integer.rotateLeft(v2, 7) + Integer.rotateLeft(v3, 12) + Integer.rotateLeft(v4, 18)
+                : seed + PRIME5;
+        h += (int) total;
+        int i = 0;
+        for (; i + 4 <= pendingLength; i += 4) {
+            h += readInt(pending, i) * PRIME3;
+            h = Integer.rotateLeft(h, 17) * PRIME4;
+        }
+        for (; i < pendingLength; i++) {
+            h += (pending[i] & 0xFF) * PRIME5;
+            h = Integer.rotateLeft(h, 11) * PRIME1;
+        }
+        h ^= h >>> 15;
+        h *= PRIME2;
+        h ^= h >>> 13;
+        h *= PRIME3;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Przetwarza 16 bajtów danych.
+     */
+    private void stripe(byte[] data, int offset) {
+        v1 = round(v1, readInt(data, offset));
+        v2 = round(v2, readInt(data, offset + 4));
+        v3 = round(v3, readInt(data, offset + 8));
+        v4 = round(v4, readInt(data, offset + 12));
+    }
+
+    private static int round(int acc, int lane) {
+        return Integer.rotateLeft(acc + lane * PRIME2, 13) * PRIME1;
+    }
+
+    /**
+     * Odczytuje liczbę zapisaną w kolejności little-endian.
+     */
+    static int readInt(byte[] data, int offset) {
+        return data[offset] & 0xFF | (data[offset + 1] & 0xFF) << 8
+                | (data[offset + 2] & 0xFF) << 16 | (data[offset + 3] & 0xFF) << 24;
+    }
+}
@@ -0,0 +1,274 @@
+package view;
+
+import controller.CSVController;
+import model.CSVModel;
+import model.CSVModelListener;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Model tabeli odczytujący komórki bezpośrednio z modelu CSV.
+ * Tabela pobiera tylko te komórki, które są widoczne, więc dane nie są kopiowane do widoku.
+ * Zmiany w modelu CSV docierają do tabeli jako zdarzenia dotyczące pojedynczych wierszy i komórek.
+ * Wynik filtrowania i sortowania jest wyświetlany jako wybór indeksów wierszy modelu
+ * w kolejności wyświetlania, przez który odczytywane i edytowane są komórki.
+ */
+public class CSVTableModel extends AbstractTableModel implements CSVModelListener {
+    private static final long serialVersionUID = 1L;
+
+    private CSVModel model;
+    private int[] selection;
+    private boolean complete;
+    private boolean ascending;
+    private int[] positions;
+    private List<String> headers = new ArrayList<>();
+    private int columnCount;
+    private CSVController controller;
+
+    /**
+     * Ustawia kontroler obsługujący edycję komórek.
+     *
+     * @param controller kontroler CSV
+     */
+    public void setController(CSVController controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * Wyświetla wszystkie wiersze modelu CSV.
+     *
+     * @param model model CSV do wyświetlenia
+     */
+    public void setModel(CSVModel model) {
+        setSelection(model, null);
+    }
+
+    /**
+     * Wyświetla wybrane wiersze modelu CSV, np. wynik filtrowania.
+     * Edycja komórek trafia do odpowiadających im wierszy modelu. Wiersze dodane później do modelu nie są wyświetlane.
+     *
+     * @param model     model CSV do wyświetlenia
+     * @param selection indeksy wierszy modelu w kolejności wyświetlania lub null, aby wyświetlić wszystkie wiersze
+     */
+    public void setSelection(CSVModel model, int[] selection) {
+        show(model, selection, false);
+    }
+
+    /**
+     * Wyświetla wszystkie wiersze modelu CSV w podanej kolejności, np. po sortowaniu.
+     * Wiersze dodane później do modelu są wyświetlane na końcu.
+     *
+     * @param model model CSV do wyświetlenia
+     * @param order permutacja indeksów wszystkich wierszy modelu
+     */
+    public void setOrder(CSVModel model, int[] order) {
+        show(model, order, true);
+    }
+
+    /**
+     * Wyświetla wiersze modelu CSV o podanych indeksach.
+     */
+    private void show(CSVModel model, int[] selection, boolean complete) {
+        setRows(selection);
+        this.complete = complete;
+        if (this.model == model) {
+            // Kolumny się nie zmieniają, więc tabela zachowuje ich układ i szerokości.
+            fireTableDataChanged();
+            return;
+        }
+        detach();
+        model.addModelListener(this);
+        this.model = model;
+        refreshStructure();
+    }
+
+    /**
+     * Ustawia wyświetlane indeksy wierszy i sprawdza, czy są rosnące.
+     */
+    private void setRows(int[] rows) {
+        selection = rows;
+        positions = null;
+        ascending = true;
+        if (rows == null) return;
+        for (int i = 1; i < rows.length && ascending; i++) ascending = rows[i - 1] < rows[i];
+    }
+
+    /**
+     * Zamienia indeks wiersza tabeli na indeks wiersza modelu CSV.
+     *
+     * @param row indeks wiersza tabeli
+     * @return indeks wiersza modelu CSV
+     */
+    public int getModelRow(int row) {
+        return selection == null ? row : selection[row];
+    }
+
+    /**
+     * Zwraca wyświetlane indeksy wierszy modelu CSV.
+     *
+     * @return indeksy wierszy modelu w kolejności wyświetlania lub null,
+     *         jeśli wyświetlane są wszystkie wiersze w kolejności modelu
+     */
+    public int[] getModelRows() {
+        return selection == null ? null : selection.clone();
+    }
+
+    /**
+     * Przestaje nasłuchiwać zmian wyświetlanego modelu CSV.
+     */
+    private void detach() {
+        if (model != null) model.removeModelListener(this);
+        model = null;
+    }
+
+    @Override
+    public void rowsInserted(int first, int last) {
+        if (selection == null) {
+            fireTableRowsInserted(first, last);
+            return;
+        }
+        if (!complete) return;
+        int size = selection.length;
+        int[] grown = Arrays.copyOf(selection, size + last - first + 1);
+        for (int row = first; row <= last; row++) grown[size + row - first] = row;
+        setRows(grown);
+        fireTableRowsInserted(size, grown.length - 1);
+    }
+
+    @Override
+    public void rowsDeleted(int first, int last) {
+        if (selection == null) {
+            fireTableRowsDeleted(first, last);
+            return;
+        }
+        if (!ascending) {
+            deleteUnordered(first, last);
+            return;
+        }
+        int from = position(first);
+        int to = position(last + 1);
+        int removed = last - first + 1;
+        int[] kept = new int[selection.length - (to - from)];
+        System.arraycopy(selection, 0, kept, 0, from);
+        for (int i = to; i < selection.length; i++) kept[i - (to - from)] = selection[i] - removed;
+        selection = kept;
+        if (to > from) fireTableRowsDeleted(from, to - 1);
+    }
+
+    @Override
+    public void cellUpdated(int row, int col) {
+        if (selection == null) {
+            fireTableCellUpdated(row, col);
+            return;
+        }
+        int pos = viewRow(row);
+        if (pos >= 0) fireTableCellUpdated(pos, col);
+    }
+
+    @Override
+    public void columnAdded(int index) {
+        refreshStructure();
+    }
+
+    @Override
+    public void columnRemoved(int index) {
+        refreshStructure();
+    }
+
+    @Override
+    public void structureChanged() {
+        // Wybrane indeksy mogły przestać odpowiadać wierszom podmienionych danych.
+        setRows(null);
+        refreshStructure();
+    }
+
+    /**
+     * Odczytuje z modelu nagłówki i liczbę kolumn oraz odświeża całą tabelę.
+     */
+    private void refreshStructure() {
+        headers = model.getHeaders();
+        columnCount = model.getColumnCount();
+        fireTableStructureChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+        if (selection != null) return selection.length;
+        return model == null ? 0 : model.getRowCount();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public String getColumnName(int col) {
+        return col < headers.size() ? headers.get(col) : "Kolumna " + (col + 1);
+    }
+
+    @Override
+    public Object getValueAt(int row, int col) {
+        return model.getValueAt(getModelRow(row), col);
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int col) {
+        return model == null || !model.isReadOnly();
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int col) {
+        if (controller != null) {
+            controller.updateCell(getModelRow(row), col, value == null ? null : value.toString());
+        }
+    }
+
+    /**
+     * Usuwa z wyświetlanych wierszy nieuporządkowanego wyboru wiersze usunięte z modelu.
+     */
+    private void deleteUnordered(int first, int last) {
+        int removed = last - first + 1;
+        int[] kept = new int[selection.length];
+        int n = 0;
+        int firstPos = -1;
+        for (int i = 0; i < selection.length; i++) {
+            int row = selection[i];
+            if (row < first) kept[n++] = row;
+            else if (row > last) kept[n++] = row - removed;
+            else if (firstPos < 0) firstPos = i;
+        }
+        int count = selection.length - n;
+        setRows(Arrays.copyOf(kept, n));
+        if (count == 1) fireTableRowsDeleted(firstPos, firstPos);
+        else if (count > 1) fireTableDataChanged();
+    }
+
+    /**
+     * Zwraca pozycję wiersza modelu w tabeli lub -1, jeśli wiersz nie jest wyświetlany.
+     * Dla nieuporządkowanego wyboru pozycje są wyznaczane raz, przy pierwszym użyciu.
+     */
+    private int viewRow(int modelRow) {
+        if (ascending) {
+            int pos = Arrays.binarySearch(selection, modelRow);
+            return pos >= 0 ? pos : -1;
+        }
+        if (positions == null) {
+            positions = new int[model.getRowCount()];
+            Arrays.fill(positions, -1);
+            for (int i = 0; i < selection.length; i++) positions[selection[i]] = i;
+        }
+        return modelRow < positions.length ? positions[modelRow] : -1;
+    }
+
+    /**
+     * Zwraca pozycję pierwszego wybranego wiersza o indeksie modelu nie mniejszym od podanego.
+     */
+    private int position(int modelRow) {
+        int pos = Arrays.binarySearch(selection, modelRow);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+}
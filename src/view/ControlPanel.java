@@ -1,9 +1,14 @@
 package view;
 
 import controller.CSVController;
+import model.FilterExpression;
+import model.FilterType;
 import util.CSVUtils;
+import util.Compression;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -22,6 +27,8 @@ public class ControlPanel extends JPanel {
     private JCheckBox headerCheckBox;
     private JButton newButton;
     private static File lastUsedDirectory = new File(System.getProperty("user.home"));
+    private static final int FILTER_DELAY_MS = 150;
+    private final Timer filterTimer = new Timer(FILTER_DELAY_MS, e -> liveFilter());
 
     /**
      * Konstruktor panelu kontrolnego.
@@ -68,6 +75,22 @@ public class ControlPanel extends JPanel {
         add(new JLabel("Filtr:"), gbc);
         gbc.gridx = 1;
         filterField = new JTextField(15);
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filterTextChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filterTextChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        filterTimer.setRepeats(false);
         add(filterField, gbc);
         gbc.gridx = 2;
         add(new JLabel("Kolumna:"), gbc);
@@ -77,7 +100,9 @@ public class ControlPanel extends JPanel {
         gbc.gridx = 4;
         add(new JLabel("Typ:"), gbc);
         gbc.gridx = 5;
-        filterTypeCombo = new JComboBox<>(new String[]{"Zawiera", "Rozpoczyna sie", "Konczy sie", "Rowna sie"});
+        filterTypeCombo = new JComboBox<>(FilterType.labels());
+        filterTypeCombo.addItem(FilterExpression.LABEL);
+        filterTypeCombo.addActionListener(e -> updateFilterHint());
         add(filterTypeCombo, gbc);
         gbc.gridx = 6;
         JButton filterButton = new JButton("Filtruj");
@@ -93,6 +118,11 @@ public class ControlPanel extends JPanel {
         JButton deleteButton = new JButton("Usun zaznaczony");
         deleteButton.addActionListener(this::deleteAction);
         add(deleteButton, gbc);
+        gbc.gridx = 6;
+        JButton textIndexButton = new JButton("Indeks tekstu");
+        textIndexButton.setToolTipText("Buduje lub usuwa indeks przyspieszajacy filtry Zawiera i Konczy sie");
+        textIndexButton.addActionListener(e -> controller.toggleTextIndex(columnCombo.getSelectedIndex()));
+        add(textIndexButton, gbc);
 
         gbc.gridy = 5;
         gbc.gridx = 0;
@@ -210,12 +240,41 @@ public class ControlPanel extends JPanel {
      * @param e zdarzenie akcji
      */
     private void filterAction(ActionEvent e) {
+        filterTimer.stop();
         String word = filterField.getText();
         int col = columnCombo.getSelectedIndex();
         String type = (String) filterTypeCombo.getSelectedItem();
         controller.filterTable(word, col, type);
     }
 
+    /**
+     * Anuluje filtrowanie poprzedniego tekstu i odkłada nowe, aż użytkownik przestanie pisać.
+     */
+    private void filterTextChanged() {
+        controller.cancelFilter();
+        filterTimer.restart();
+    }
+
+    /**
+     * Filtruje dane w tle według wpisanego tekstu.
+     */
+    private void liveFilter() {
+        int col = columnCombo.getSelectedIndex();
+        String type = (String) filterTypeCombo.getSelectedItem();
+        controller.filterTableInBackground(filterField.getText(), col, type);
+    }
+
+    /**
+     * Pokazuje podpowiedź składni, gdy wybrano filtr wyrażeniowy; kolumna jest wtedy ignorowana.
+     */
+    private void updateFilterHint() {
+        boolean expression = FilterExpression.LABEL.equals(filterTypeCombo.getSelectedItem());
+        columnCombo.setEnabled(!expression);
+        filterField.setToolTipText(expression
+                ? "Np. kraj = PL AND (kwota > 1000 OR opis ~ \"^pilne\") AND NOT status zawiera anul"
+                : null);
+    }
+
     /**
      * Obsługuje akcję usuwania zaznaczonego wiersza.
      *
@@ -297,8 +356,26 @@ public class ControlPanel extends JPanel {
      * @param e zdarzenie akcji
      */
     private void loadAction(ActionEvent e) {
+        open(false);
+    }
+
+    /**
+     * Obsługuje akcję otwierania dużego pliku CSV do przeglądania w trybie indeksu.
+     *
+     * @param e zdarzenie akcji
+     */
+    private void browseAction(ActionEvent e) {
+        open(true);
+    }
+
+    /**
+     * Wybiera plik CSV i separator, a następnie wczytuje plik.
+     *
+     * @param indexOnly true, aby otworzyć plik w trybie indeksu, bez wczytywania wszystkich wierszy do pamięci
+     */
+    private void open(boolean indexOnly) {
         JFileChooser fc = new JFileChooser(lastUsedDirectory);
-        fc.setFileFilter(new FileNameExtensionFilter("Pliki CSV", "csv"));
+        fc.setFileFilter(new FileNameExtensionFilter("Pliki CSV (takze .gz, .lz4)", "csv", "gz", "lz4"));
         int o = fc.showOpenDialog(this);
 
         if (o == JFileChooser.APPROVE_OPTION) {
@@ -318,8 +395,8 @@ public class ControlPanel extends JPanel {
             } catch (Exception ex) {}
 
             boolean h = headerCheckBox != null && headerCheckBox.isSelected();
-            controller.loadCSV(fc.getSelectedFile(), d, h);
-            updateColumns();
+            if (indexOnly) controller.openIndexed(fc.getSelectedFile(), d, h, this::updateColumns);
+            else controller.loadCSV(fc.getSelectedFile(), d, h, this::updateColumns);
         }
     }
 
@@ -335,14 +412,15 @@ public class ControlPanel extends JPanel {
         }
 
         JFileChooser fc = new JFileChooser(lastUsedDirectory);
-        fc.setFileFilter(new FileNameExtensionFilter("Pliki CSV", "csv"));
+        fc.setFileFilter(new FileNameExtensionFilter("Pliki CSV (takze .gz, .lz4)", "csv", "gz", "lz4"));
         int o = fc.showSaveDialog(this);
 
         if (o == JFileChooser.APPROVE_OPTION) {
             lastUsedDirectory = fc.getSelectedFile().getParentFile();
             File f = fc.getSelectedFile();
             String p = f.getAbsolutePath();
-            if (!p.toLowerCase().endsWith(".csv")) f = new File(p + ".csv");
+            String ext = Compression.forFileName(f).getExtension();
+            if (!p.toLowerCase().endsWith(".csv" + ext)) f = new File(p.substring(0, p.length() - ext.length()) + ".csv" + ext);
 
             String d = (String) delimiterCombo.getSelectedItem();
             if ("\\t".equals(d)) d = "\t";
@@ -361,12 +439,16 @@ public class ControlPanel extends JPanel {
         JMenuBar bar = new JMenuBar();
         JMenu file = new JMenu("Plik");
         JMenuItem open = new JMenuItem("Otworz");
+        JMenuItem browse = new JMenuItem("Otworz do przegladania");
+        browse.setToolTipText("Buduje indeks pliku i wczytuje tylko ogladane wiersze; dla plikow wiekszych niz pamiec");
         JMenuItem save = new JMenuItem("Zapisz");
         JMenuItem col = new JMenuItem("Zarzadzaj kolumnami");
         open.addActionListener(this::loadAction);
+        browse.addActionListener(this::browseAction);
         save.addActionListener(this::saveAction);
         col.addActionListener(e -> openColumnManager());
         file.add(open);
+        file.add(browse);
         file.add(save);
         file.addSeparator();
         file.add(col);
@@ -3,6 +3,8 @@ package view;
 import controller.CSVController;
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 /**
  * Główna ramka aplikacji CSV Data Wrangler.
@@ -13,6 +15,9 @@ public class MainFrame extends JFrame {
     private TablePanel tablePanel;
     private ControlPanel controlPanel;
     private JLabel statusLabel;
+    private JLabel progressLabel;
+    private JProgressBar progressBar;
+    private JButton cancelButton;
 
     /**
      * Konstruktor ramki głównej. Inicjalizuje komponenty i ustawia widoczność.
@@ -29,7 +34,23 @@ public class MainFrame extends JFrame {
      * Inicjalizuje komponenty ramki głównej.
      */
     private void initComponents() {
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (controller.isSaving() && JOptionPane.showConfirmDialog(MainFrame.this,
+                        "Trwa zapis pliku. Zamknac po jego zakonczeniu?", "Zapis", JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+                    return;
+                }
+                // Przerwanie zapisu zostawiłoby plik tymczasowy, więc okno znika, a program kończy się po zapisie.
+                // Ukryte okno pozostaje wyświetlalne, dzięki czemu wątek zdarzeń działa do zakończenia zapisu.
+                setVisible(false);
+                controller.whenSaved(() -> {
+                    dispose();
+                    System.exit(0);
+                });
+            }
+        });
         setSize(1200, 750);
         setLocationRelativeTo(null);
 
@@ -40,9 +61,17 @@ public class MainFrame extends JFrame {
         controller.setMainFrame(this);
 
         statusLabel = new JLabel("Liczba rekordow: 0");
+        progressLabel = new JLabel();
+        progressBar = new JProgressBar(0, 100);
+        cancelButton = new JButton("Anuluj");
+        cancelButton.addActionListener(e -> controller.cancelLoad());
         JPanel statusPanel = new JPanel();
         statusPanel.setLayout(new FlowLayout(FlowLayout.LEFT));
         statusPanel.add(statusLabel);
+        statusPanel.add(progressBar);
+        statusPanel.add(progressLabel);
+        statusPanel.add(cancelButton);
+        hideLoadProgress();
 
         setLayout(new BorderLayout(10, 10));
         add(controlPanel, BorderLayout.NORTH);
@@ -55,7 +84,34 @@ public class MainFrame extends JFrame {
      */
     public void updateStatus() {
         int rows = tablePanel.getTable().getModel().getRowCount();
-        statusLabel.setText("Liczba rekordow: " + rows);
+        statusLabel.setText("Liczba rekordow: " + rows + (controller.isReadOnly() ? " (tylko do przegladania)" : "")
+                + (controller.isSaving() ? " (zapisywanie...)" : ""));
+    }
+
+    /**
+     * Pokazuje postęp wczytywania pliku na pasku statusu.
+     *
+     * @param bytesRead  liczba przetworzonych bajtów
+     * @param totalBytes rozmiar pliku w bajtach
+     * @param rows       liczba wczytanych wierszy lub -1 podczas budowania indeksu pliku
+     */
+    public void showLoadProgress(long bytesRead, long totalBytes, int rows) {
+        int percent = totalBytes > 0 ? (int) (bytesRead * 100 / totalBytes) : 0;
+        progressBar.setValue(percent);
+        if (rows < 0) progressLabel.setText(String.format("Indeksowanie: %d / %d MB", bytesRead >> 20, totalBytes >> 20));
+        else progressLabel.setText(String.format("Wczytywanie: %d / %d MB, %d wierszy", bytesRead >> 20, totalBytes >> 20, rows));
+        progressBar.setVisible(true);
+        progressLabel.setVisible(true);
+        cancelButton.setVisible(true);
+    }
+
+    /**
+     * Ukrywa postęp wczytywania pliku.
+     */
+    public void hideLoadProgress() {
+        progressBar.setVisible(false);
+        progressLabel.setVisible(false);
+        cancelButton.setVisible(false);
     }
 
     /**
@@ -93,6 +149,8 @@ public class MainFrame extends JFrame {
         getContentPane().setBackground(bg);
         statusLabel.setForeground(new Color(0, 100, 0));
         statusLabel.setFont(new Font("SansSerif", Font.BOLD, 14));
+        progressLabel.setForeground(new Color(0, 100, 0));
+        cancelButton.setBackground(new Color(180, 230, 180));
 
         JPanel panel = (JPanel) getContentPane().getComponent(2);
         panel.setBackground(new Color(200, 230, 200));
@@ -1,20 +1,29 @@
 package view;
 
 import controller.CSVController;
+import model.CSVModel;
+import model.SortKey;
+
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.JTableHeader;
 import javax.swing.table.TableCellEditor;
+import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Panel zawierający tabelę do wyświetlania danych CSV.
+ * Kliknięcie nagłówka kolumny sortuje dane w modelu: rosnąco, malejąco, a potem przywraca kolejność.
+ * Kliknięcie z klawiszem Shift dodaje kolumnę jako kolejny klucz sortowania.
  */
 public class TablePanel extends JPanel {
     private JTable table;
-    private DefaultTableModel tableModel;
+    private CSVTableModel tableModel;
     private List<TableColumn> originalColumns = new ArrayList<>();
     private CSVController controller;
 
@@ -25,6 +34,7 @@ public class TablePanel extends JPanel {
      */
     public void setController(CSVController controller) {
         this.controller = controller;
+        tableModel.setController(controller);
     }
 
     /**
@@ -58,11 +68,11 @@ public class TablePanel extends JPanel {
      * Inicjalizuje model tabeli.
      */
     private void initTableModel() {
-        tableModel = new DefaultTableModel() {
-            public boolean isCellEditable(int row, int col) {
-                return true;
-            }
-        };
+        tableModel = new CSVTableModel();
+        // Zarejestrowany przed tabelą, więc jest powiadamiany po odtworzeniu przez nią kolumn.
+        tableModel.addTableModelListener(e -> {
+            if (e.getFirstRow() == TableModelEvent.HEADER_ROW) storeOriginalColumns();
+        });
     }
 
     /**
@@ -70,22 +80,75 @@ public class TablePanel extends JPanel {
      */
     private void initTable() {
         table = new JTable(tableModel);
-        table.setAutoCreateRowSorter(true);
         table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        initSortHeader();
         applyTableDesign();
+    }
 
-        table.getModel().addTableModelListener(e -> {
-            int row = e.getFirstRow();
-            int col = e.getColumn();
-            if (row >= 0 && col >= 0) {
-                String value = (String) tableModel.getValueAt(row, col);
-                if (controller != null) {
-                    controller.updateCell(row, col, value);
-                }
+    /**
+     * Obsługuje sortowanie kliknięciem nagłówka i oznacza w nagłówku kolumny, według których posortowano dane.
+     */
+    private void initSortHeader() {
+        JTableHeader header = table.getTableHeader();
+        TableCellRenderer renderer = header.getDefaultRenderer();
+        header.setDefaultRenderer((t, value, selected, focus, row, col) -> {
+            Component c = renderer.getTableCellRendererComponent(t, value, selected, focus, row, col);
+            if (c instanceof JLabel label) label.setText(headerText(value, t.convertColumnIndexToModel(col)));
+            return c;
+        });
+        header.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int col = header.columnAtPoint(e.getPoint());
+                if (col < 0 || controller == null || !SwingUtilities.isLeftMouseButton(e)) return;
+                toggleSort(table.convertColumnIndexToModel(col), e.isShiftDown());
             }
         });
     }
 
+    /**
+     * Zmienia kierunek sortowania kolumny: rosnąco, malejąco, bez sortowania.
+     *
+     * @param col    indeks kolumny modelu
+     * @param append true, aby zachować pozostałe klucze sortowania
+     */
+    private void toggleSort(int col, boolean append) {
+        List<SortKey> keys = new ArrayList<>(controller.getSortKeys());
+        int pos = keyPosition(keys, col);
+        if (!append) {
+            keys = pos < 0 ? new ArrayList<>() : new ArrayList<>(List.of(keys.get(pos)));
+            pos = pos < 0 ? -1 : 0;
+        }
+        if (pos < 0) keys.add(new SortKey(col, true));
+        else if (keys.get(pos).ascending()) keys.set(pos, new SortKey(col, false));
+        else keys.remove(pos);
+        controller.sortTable(keys);
+        table.getTableHeader().repaint();
+    }
+
+    /**
+     * Zwraca tekst nagłówka ze znacznikiem kierunku sortowania i, przy wielu kluczach, numerem klucza.
+     */
+    private String headerText(Object value, int col) {
+        String text = value == null ? "" : value.toString();
+        if (controller == null) return text;
+        List<SortKey> keys = controller.getSortKeys();
+        int pos = keyPosition(keys, col);
+        if (pos < 0) return text;
+        String mark = keys.get(pos).ascending() ? " \u25B2" : " \u25BC";
+        return keys.size() > 1 ? text + mark + (pos + 1) : text + mark;
+    }
+
+    /**
+     * Zwraca pozycję klucza sortowania kolumny lub -1, jeśli dane nie są według niej sortowane.
+     */
+    private static int keyPosition(List<SortKey> keys, int col) {
+        for (int i = 0; i < keys.size(); i++) {
+            if (keys.get(i).column() == col) return i;
+        }
+        return -1;
+    }
+
     /**
      * Stosuje styl do tabeli.
      */
@@ -98,36 +161,44 @@ public class TablePanel extends JPanel {
     }
 
     /**
-     * Aktualizuje tabelę danymi i nagłówkami.
+     * Wyświetla w tabeli wszystkie dane modelu CSV.
+     * Dane nie są kopiowane; tabela odczytuje komórki z modelu na żądanie,
+     * a późniejsze zmiany modelu są nanoszone na tabelę na bieżąco.
      *
-     * @param data    dane do wyświetlenia
-     * @param headers nagłówki kolumn
+     * @param model model CSV do wyświetlenia
      */
-    public void updateTable(List<String[]> data, List<String> headers) {
-        tableModel.setRowCount(0);
-        tableModel.setColumnCount(0);
-
-        int max = headers.isEmpty() ?
-                data.stream().mapToInt(r -> r.length).max().orElse(0) :
-                headers.size();
+    public void updateTable(CSVModel model) {
+        tableModel.setModel(model);
+    }
 
-        if (!headers.isEmpty()) {
-            for (String h : headers) {
-                tableModel.addColumn(h);
-            }
-        } else {
-            for (int i = 0; i < max; i++) {
-                tableModel.addColumn("Kolumna " + (i + 1));
-            }
-        }
+    /**
+     * Wyświetla w tabeli wybrane wiersze modelu CSV, np. wynik filtrowania.
+     * Wiersze nie są kopiowane, a edycja komórek trafia do odpowiadających im wierszy modelu.
+     *
+     * @param model     model CSV do wyświetlenia
+     * @param selection indeksy wierszy modelu w kolejności wyświetlania
+     */
+    public void updateTable(CSVModel model, int[] selection) {
+        tableModel.setSelection(model, selection);
+    }
 
-        for (String[] row : data) {
-            Object[] newRow = new Object[max];
-            System.arraycopy(row, 0, newRow, 0, Math.min(row.length, max));
-            tableModel.addRow(newRow);
-        }
+    /**
+     * Wyświetla w tabeli wszystkie wiersze modelu CSV w podanej kolejności, np. po sortowaniu.
+     *
+     * @param model model CSV do wyświetlenia
+     * @param order permutacja indeksów wszystkich wierszy modelu
+     */
+    public void updateTableOrder(CSVModel model, int[] order) {
+        tableModel.setOrder(model, order);
+    }
 
-        storeOriginalColumns();
+    /**
+     * Zwraca indeksy wierszy modelu wyświetlanych w tabeli.
+     *
+     * @return indeksy wierszy w kolejności wyświetlania lub null, jeśli wyświetlane są wszystkie wiersze w kolejności modelu
+     */
+    public int[] getDisplayedRows() {
+        return tableModel.getModelRows();
     }
 
     /**
@@ -143,12 +214,14 @@ public class TablePanel extends JPanel {
     }
 
     /**
-     * Zwraca indeks zaznaczonego wiersza.
+     * Zwraca indeks zaznaczonego wiersza w modelu CSV,
+     * uwzględniając sortowanie i wyświetlany wynik filtrowania.
      *
      * @return indeks zaznaczonego wiersza lub -1, jeśli nic nie zaznaczono
      */
     public int getSelectedRow() {
-        return table.getSelectedRow();
+        int row = table.getSelectedRow();
+        return row < 0 ? -1 : tableModel.getModelRow(row);
     }
 
     /**
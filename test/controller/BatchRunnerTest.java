@@ -0,0 +1,98 @@
+package controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testy trybu wsadowego.
+ */
+class BatchRunnerTest {
+    @TempDir
+    Path dir;
+
+    private int run(String... args) {
+        PrintStream sink = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8);
+        return BatchRunner.run(args, sink, sink);
+    }
+
+    private static String lines(String... lines) {
+        return String.join(System.lineSeparator(), lines) + System.lineSeparator();
+    }
+
+    private static String[] concat(String[] first, String... rest) {
+        return Stream.concat(Arrays.stream(first), Arrays.stream(rest)).toArray(String[]::new);
+    }
+
+    private long files() throws IOException {
+        try (Stream<Path> list = Files.list(dir)) {
+            return list.count();
+        }
+    }
+
+    @Test
+    void streamingOutputMayReplaceInput() throws IOException {
+        Path file = dir.resolve("x.csv");
+        Files.writeString(file, "a,b\n1,x\n2,y\n3,\"q\nr\"\n");
+        assertEquals(0, run("--input", file.toString(), "--output", file.toString(), "--stream", "--filter", "a:rowna:3"));
+        assertEquals(lines("a,b", "3,\"q\nr\""), Files.readString(file));
+        assertEquals(0, run("--input", file.toString(), "--output", file.toString(), "--stream", "--sort", "a:desc"));
+        assertEquals(lines("a,b", "3,\"q\nr\""), Files.readString(file));
+        assertEquals(1, files());
+    }
+
+    @Test
+    void failedStreamingRunKeepsPreviousOutput() throws IOException {
+        Path input = dir.resolve("in.csv");
+        Path output = dir.resolve("out.csv");
+        Files.writeString(input, "a,b\n1,x\n");
+        Files.writeString(output, "poprzednia zawartosc\n");
+        assertEquals(1, run("--input", input.toString(), "--output", output.toString(), "--stream", "--where", "brak = 1"));
+        assertEquals("poprzednia zawartosc\n", Files.readString(output));
+        assertEquals(2, files());
+    }
+
+    /**
+     * Pusta wartość nie zmienia kolumny liczb w tekstową, więc oba tryby sortują ją tak samo, na końcu.
+     */
+    @Test
+    void emptyFieldsSortLastInBothModes() throws IOException {
+        Path input = dir.resolve("in.csv");
+        Path output = dir.resolve("out.csv");
+        Files.writeString(input, "a,b\n10,x\n,y\n9,z\n100,w\n");
+        String[] in = {"--input", input.toString(), "--output", output.toString()};
+        for (String sort : new String[]{"a", "a:desc"}) {
+            String expected = sort.equals("a") ? lines("a,b", "9,z", "10,x", "100,w", ",y")
+                    : lines("a,b", "100,w", "10,x", "9,z", ",y");
+            assertEquals(0, run(concat(in, "--sort", sort)));
+            assertEquals(expected, Files.readString(output), sort + " w pamieci");
+            assertEquals(0, run(concat(in, "--sort", sort, "--stream")));
+            assertEquals(expected, Files.readString(output), sort + " strumieniowo");
+        }
+    }
+
+    /**
+     * --select i --drop wskazują kolumny pliku wejściowego w obu trybach, także gdy są podane numerami.
+     */
+    @Test
+    void selectAndDropUseInputColumnsInBothModes() throws IOException {
+        Path input = dir.resolve("in.csv");
+        Path output = dir.resolve("out.csv");
+        Files.writeString(input, "a,b,c,d\n1,2,3,4\n5,6,7,8\n");
+        String[] in = {"--input", input.toString(), "--output", output.toString(), "--select", "b,c,d", "--drop", "2"};
+        assertEquals(0, run(in));
+        assertEquals(lines("c,d", "3,4", "7,8"), Files.readString(output), "w pamieci");
+        assertEquals(0, run(concat(in, "--stream")));
+        assertEquals(lines("c,d", "3,4", "7,8"), Files.readString(output), "strumieniowo");
+    }
+}
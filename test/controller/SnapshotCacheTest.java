@@ -0,0 +1,53 @@
+package controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testy ograniczenia rozmiaru katalogu migawek.
+ */
+class SnapshotCacheTest {
+    @TempDir
+    File dir;
+
+    private File file(String name, int size, long modified) throws IOException {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), new byte[size]);
+        file.setLastModified(modified);
+        return file;
+    }
+
+    private Set<String> names() {
+        return new TreeSet<>(Arrays.asList(dir.list()));
+    }
+
+    /**
+     * Usuwane są najdawniej używane migawki; nowo zapisana zostaje nawet wtedy, gdy sama przekracza limit.
+     */
+    @Test
+    void pruneRemovesLeastRecentlyUsedSnapshots() throws IOException {
+        long now = System.currentTimeMillis();
+        file("a.snap", 400, now - 50_000);
+        file("b.snap", 400, now - 40_000);
+        file("c.snap", 400, now - 30_000);
+        File newest = file("d.snap", 400, now - 60_000);
+        file("inny.txt", 5000, now - 90_000);
+        file(".a.snap.1.tmp", 100, now - 1000);
+        file(".b.snap.2.tmp", 100, now - 3L * 24 * 60 * 60 * 1000);
+
+        new SnapshotCache(dir, 1000).prune(newest);
+        assertEquals(Set.of("c.snap", "d.snap", "inny.txt", ".a.snap.1.tmp"), names());
+
+        new SnapshotCache(dir, 100).prune(newest);
+        assertEquals(Set.of("d.snap", "inny.txt", ".a.snap.1.tmp"), names());
+    }
+}
@@ -0,0 +1,130 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testy indeksów kolumn i ich limitów pamięci.
+ */
+class ColumnIndexesTest {
+
+    private static CSVModel model(int rows) {
+        List<String[]> data = new ArrayList<>();
+        for (int i = 0; i < rows; i++) data.add(new String[]{"k" + (i % 100), "w" + i});
+        CSVModel model = new CSVModel();
+        model.setData(data);
+        return model;
+    }
+
+    @Test
+    void indexOverLimitIsNotBuiltAndFilterStillWorks() {
+        CSVModel model = model(10_000);
+        model.setIndexLimit(1 << 10);
+        int[] equal = model.filter("k7", 0, "Rowna sie");
+        int[] prefix = model.filter("w12", 1, "Rozpoczyna sie");
+        assertEquals(0, model.getIndexMemory());
+        assertEquals(100, equal.length);
+        assertEquals(111, prefix.length);
+
+        model.setIndexLimit(ColumnIndexes.DEFAULT_INDEX_LIMIT);
+        model.addRow(new String[]{"x", "y"});
+        assertArrayEquals(equal, model.filter("k7", 0, "Rowna sie"));
+        assertArrayEquals(prefix, model.filter("w12", 1, "Rozpoczyna sie"));
+        assertTrue(model.getIndexMemory() > 0);
+    }
+
+    @Test
+    void indexesGrowingOverLimitAreDropped() {
+        CSVModel model = model(1000);
+        model.filter("k1", 0, "Rowna sie");
+        model.filter("w1", 1, "Rozpoczyna sie");
+        long memory = model.getIndexMemory();
+        assertTrue(memory > 0);
+        model.setIndexLimit(memory);
+        for (int i = 0; i < 100; i++) model.addRow(new String[]{"nowy" + i, "nowy" + i});
+        assertTrue(model.getIndexMemory() <= memory);
+        assertEquals(100, model.filter("nowy", 1, "Rozpoczyna sie").length);
+        assertEquals(1, model.filter("nowy7", 0, "Rowna sie").length);
+    }
+
+    /**
+     * Filtry w tle, które budują indeksy, nie mogą zapisać indeksu z danych sprzed zmiany
+     * ani widzieć danych w trakcie zmiany.
+     */
+    @Test
+    void editsDuringBackgroundFiltersKeepIndexesCurrent() throws InterruptedException {
+        CSVModel model = model(200_000);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    try {
+                        model.filter("k5", 0, "Rowna sie", () -> false);
+                        model.filter("w19", 1, "Rozpoczyna sie", () -> false);
+                        model.select(FilterExpression.parse("Kolumna1 = k7 AND Kolumna2 rozpoczyna w1",
+                                List.of("Kolumna1", "Kolumna2")), () -> false);
+                    } catch (CancellationException e) {
+                        // Przerwane przez zmianę danych.
+                    }
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 300; i++) {
+            model.updateCell(i * 661 % model.getRowCount(), 0, "k5");
+            model.updateCell(i * 331 % model.getRowCount(), 1, "w19x" + i);
+            if (i % 50 == 0) model.deleteRow(i);
+            if (i % 100 == 0) model.setIndexing(i % 200 == 0);
+            if (i % 30 == 0) {
+                model.addColumn("Nowa" + i);
+                model.removeColumn(model.getColumnCount() - 1);
+                model.setHeaders(List.of("Kolumna1", "Kolumna2"));
+            }
+        }
+        done.set(true);
+        reader.join();
+        if (failure.get() != null) throw new AssertionError(failure.get());
+        model.setIndexing(true);
+        assertArrayEquals(scan(model, 0, "k5", "Rowna sie"), model.filter("k5", 0, "Rowna sie"));
+        assertArrayEquals(scan(model, 1, "w19", "Rozpoczyna sie"), model.filter("w19", 1, "Rozpoczyna sie"));
+    }
+
+    @Test
+    void textIndexMemoryFollowsEditsAndLimit() {
+        CSVModel model = model(20_000);
+        assertTrue(model.createTextIndex(1));
+        long built = model.getTextIndexMemory();
+        assertTrue(built > 0);
+        for (int i = 0; i < 2000; i++) model.updateCell(i * 7, 1, "zupelnie nowa wartosc " + i);
+        model.deleteRow(5);
+        assertTrue(model.getTextIndexMemory() > built);
+        assertArrayEquals(scan(model, 1, "wa wartosc 19", "Zawiera"), model.filter("wa wartosc 19", 1, "Zawiera"));
+        assertArrayEquals(scan(model, 1, "1999", "Konczy sie"), model.filter("1999", 1, "Konczy sie"));
+        model.setTextIndexLimit(built);
+        assertFalse(model.hasTextIndex(1));
+        assertEquals(0, model.getTextIndexMemory());
+    }
+
+    private static int[] scan(CSVModel model, int col, String word, String type) {
+        FilterType filterType = FilterType.fromLabel(type);
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < model.getRowCount(); i++) {
+            String value = model.getValueAt(i, col);
+            if (value != null && filterType.matches(value, word)) rows.add(i);
+        }
+        return rows.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
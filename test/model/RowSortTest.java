@@ -0,0 +1,73 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Testy sortowania wierszy według kolumn.
+ */
+class RowSortTest {
+
+    private static CSVModel model(String[]... rows) {
+        CSVModel model = new CSVModel();
+        model.setData(new ArrayList<>(List.of(rows)));
+        return model;
+    }
+
+    private static String[] column(CSVModel model, int[] order, int col) {
+        String[] values = new String[order.length];
+        for (int i = 0; i < order.length; i++) values[i] = model.getValueAt(order[i], col);
+        return values;
+    }
+
+    /**
+     * Pusty tekst jest pustą komórką: nie zmienia kolumny liczb w tekstową i trafia na koniec w obu kierunkach.
+     */
+    @Test
+    void emptyTextSortsLastInNumericColumn() {
+        CSVModel model = model(new String[]{"10"}, new String[]{""}, new String[]{"9"}, new String[]{"100"}, new String[0]);
+        assertArrayEquals(new String[]{"9", "10", "100", "", null},
+                column(model, model.sort(null, List.of(new SortKey(0, true))), 0));
+        assertArrayEquals(new String[]{"100", "10", "9", "", null},
+                column(model, model.sort(null, List.of(new SortKey(0, false))), 0));
+    }
+
+    @Test
+    void emptyTextSortsLastInTextColumn() {
+        CSVModel model = model(new String[]{"b"}, new String[]{""}, new String[]{"a"}, new String[]{"c"});
+        assertArrayEquals(new String[]{"a", "b", "c", ""}, column(model, model.sort(null, List.of(new SortKey(0, true))), 0));
+        assertArrayEquals(new String[]{"c", "b", "a", ""}, column(model, model.sort(null, List.of(new SortKey(0, false))), 0));
+    }
+
+    @Test
+    void secondaryKeyKeepsStableOrder() {
+        CSVModel model = model(new String[]{"x", "2"}, new String[]{"y", "1"}, new String[]{"x", "1"},
+                new String[]{"y", ""}, new String[]{"x", "1"});
+        assertArrayEquals(new int[]{2, 4, 0, 1, 3}, model.sort(null, List.of(new SortKey(0, true), new SortKey(1, true))));
+    }
+
+    @Test
+    void parallelSortMatchesSequentialAndCanBeCancelled() {
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) rows.add(new String[]{i % 17 == 0 ? "" : String.valueOf((i * 7919) % 1000)});
+        RowStore data = new ListRowStore(rows);
+        int[] all = new int[rows.size()];
+        for (int i = 0; i < all.length; i++) all[i] = i;
+        List<SortKey> keys = List.of(new SortKey(0, true));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertArrayEquals(RowSort.sort(data, all, keys, null, Integer.MAX_VALUE, () -> false),
+                    RowSort.sort(data, all, keys, pool, 1000, () -> false));
+            assertThrows(CancellationException.class, () -> RowSort.sort(data, all, keys, pool, 1000, () -> true));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Testy plików migawek: odczyt zmapowanej migawki, jej zmiany i ponowny zapis.
+ */
+class SnapshotFileTest {
+    @TempDir
+    Path dir;
+
+    private static final SnapshotKey KEY = new SnapshotKey("/dane/plik.csv", 1234, 5678, ";", true);
+
+    /**
+     * Tworzy wiersze z kolumną słownikową, liczb całkowitych, liczb z przecinkiem, unikalnych tekstów
+     * oraz wierszami krótszymi od nagłówka.
+     */
+    private static List<String[]> rows() {
+        Random random = new Random(5);
+        String[] words = {"PL", "DE", "zażółć", "", "\"a;b\"\nc"};
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String[] row = {words[random.nextInt(words.length)], String.valueOf(random.nextInt(2000) - 1000),
+                    random.nextInt(100) + "," + random.nextInt(100), "tekst " + random.nextLong()};
+            rows.add(i % 97 == 0 ? Arrays.copyOf(row, 2) : row);
+        }
+        return rows;
+    }
+
+    private static CSVModel model(boolean columnar, List<String[]> rows) {
+        CSVModel model = new CSVModel();
+        model.setColumnarStorage(columnar);
+        model.setHeaders(new ArrayList<>(List.of("kraj", "ilosc", "cena", "opis")));
+        List<String[]> copy = new ArrayList<>();
+        for (String[] row : rows) copy.add(row.clone());
+        model.setData(copy);
+        return model;
+    }
+
+    private static void assertSameData(CSVModel expected, CSVModel actual) {
+        assertEquals(expected.getHeaders(), actual.getHeaders());
+        List<String[]> a = expected.getData();
+        List<String[]> b = actual.getData();
+        assertEquals(a.size(), b.size());
+        for (int i = 0; i < a.size(); i++) assertArrayEquals(a.get(i), b.get(i), "wiersz " + i);
+    }
+
+    private File write(CSVModel model, String name) throws IOException {
+        File file = dir.resolve(name).toFile();
+        model.writeSnapshot(file, KEY);
+        return file;
+    }
+
+    @Test
+    void readsBackWrittenData() throws IOException {
+        CSVModel expected = model(false, rows());
+        File file = write(model(true, rows()), "a.snap");
+        CSVModel read = CSVModel.readSnapshot(file, KEY);
+        assertNotNull(read);
+        assertSameData(expected, read);
+        assertNull(CSVModel.readSnapshot(file, new SnapshotKey(KEY.path(), KEY.size(), KEY.modified() + 1, ";", true)));
+        assertNull(CSVModel.readSnapshot(file, new SnapshotKey(KEY.path(), KEY.size(), KEY.modified(), ",", true)));
+    }
+
+    /**
+     * Zmiany zmapowanej migawki trafiają do kopii kolumn w pamięci: plik migawki pozostaje niezmieniony,
+     * a migawka zapisana ze zmienionego modelu zawiera zmiany.
+     */
+    @Test
+    void editsOfMappedSnapshotAreReadBackAfterRewrite() throws IOException {
+        File file = write(model(true, rows()), "a.snap");
+        byte[] original = Files.readAllBytes(file.toPath());
+        CSVModel expected = model(false, rows());
+        CSVModel mapped = CSVModel.readSnapshot(file, KEY);
+        assertNotNull(mapped);
+
+        List<Consumer<CSVModel>> edits = List.of(
+                m -> m.updateCell(3, 0, "nowy kraj"),
+                m -> m.updateCell(4, 1, "nie liczba"),
+                m -> m.updateCell(5, 2, "1,5"),
+                m -> m.updateCell(6, 3, null),
+                m -> m.updateCell(0, 3, "krótki wiersz wydłużony"),
+                m -> m.addRow(new String[]{"PL", "7", "0,25", "dodany"}),
+                m -> m.deleteRow(10),
+                m -> m.addColumn("nowa"),
+                m -> m.updateCell(1, 4, "w nowej kolumnie"),
+                m -> m.removeColumn(2));
+        for (Consumer<CSVModel> edit : edits) {
+            edit.accept(expected);
+            edit.accept(mapped);
+            assertSameData(expected, mapped);
+        }
+        assertArrayEquals(original, Files.readAllBytes(file.toPath()));
+        assertArrayEquals(new int[]{3}, mapped.filter("nowy kraj", 0, "Rowna sie"));
+
+        CSVModel reread = CSVModel.readSnapshot(write(mapped.snapshot(), "b.snap"), KEY);
+        assertNotNull(reread);
+        assertSameData(expected, reread);
+        assertSameData(model(false, rows()), CSVModel.readSnapshot(file, KEY));
+    }
+}
@@ -0,0 +1,139 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testy tokenizera rekordów CSV.
+ */
+class CSVTokenizerTest {
+
+    /**
+     * Dzieli całe dane na rekordy, tak jak czytniki na końcu pliku.
+     */
+    private static List<String[]> tokenize(CSVTokenizer tokenizer, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        CSVRecord record = new CSVRecord();
+        List<String[]> rows = new ArrayList<>();
+        for (int p = 0; p < bytes.length; ) {
+            p = tokenizer.next(buf, p, bytes.length, true, record);
+            if (!record.isBlank()) rows.add(record.toArray());
+        }
+        return rows;
+    }
+
+    private static List<String[]> tokenize(String text) {
+        return tokenize(new CSVTokenizer(","), text);
+    }
+
+    private static void assertRows(List<String[]> actual, String[]... expected) {
+        assertEquals(expected.length, actual.size());
+        for (int i = 0; i < expected.length; i++) assertArrayEquals(expected[i], actual.get(i), "wiersz " + i);
+    }
+
+    @Test
+    void splitsPlainFields() {
+        assertRows(tokenize("a,b,c\nd,e,f\n"), new String[]{"a", "b", "c"}, new String[]{"d", "e", "f"});
+    }
+
+    @Test
+    void keepsEmptyFields() {
+        assertRows(tokenize("a,,b\n,\n,,x,\n"),
+                new String[]{"a", "", "b"}, new String[]{"", ""}, new String[]{"", "", "x", ""});
+    }
+
+    @Test
+    void acceptsCrlfAndLastLineWithoutBreak() {
+        assertRows(tokenize("a,b\r\nc,d\r\ne,f"), new String[]{"a", "b"}, new String[]{"c", "d"}, new String[]{"e", "f"});
+        assertRows(tokenize("a\rb\r"), new String[]{"a"}, new String[]{"b"});
+    }
+
+    @Test
+    void skipsBlankLines() {
+        assertRows(tokenize("a\n\n  \r\n\nb\n"), new String[]{"a"}, new String[]{"b"});
+    }
+
+    @Test
+    void unquotesFieldsWithDelimitersQuotesAndLineBreaks() {
+        assertRows(tokenize("\"x,y\",\"say \"\"hi\"\"\",\"line1\nline2\",\"crlf\r\nend\"\nnext\n"),
+                new String[]{"x,y", "say \"hi\"", "line1\nline2", "crlf\r\nend"}, new String[]{"next"});
+        assertRows(tokenize("\"\",\"\"\"\"\n"), new String[]{"", "\""});
+    }
+
+    @Test
+    void usesOtherAsciiDelimiters() {
+        assertRows(tokenize(new CSVTokenizer(";"), "a;\"b;c\";d\n"), new String[]{"a", "b;c", "d"});
+        assertRows(tokenize(new CSVTokenizer("\t"), "a\t\tb\n"), new String[]{"a", "", "b"});
+    }
+
+    @Test
+    void decodesUtf8() {
+        assertRows(tokenize("zażółć,\"gęślą\njaźń\"\n"), new String[]{"zażółć", "gęślą\njaźń"});
+    }
+
+    @Test
+    void reportsIncompleteRecordsBeforeEof() {
+        CSVTokenizer tokenizer = new CSVTokenizer(",");
+        CSVRecord record = new CSVRecord();
+        assertEquals(-1, next(tokenizer, "a,b", false, record));
+        assertEquals(-1, next(tokenizer, "\"a\nb", false, record));
+        assertEquals(-1, next(tokenizer, "a\r", false, record));
+        assertEquals(-1, next(tokenizer, "\"a\"", false, record));
+        assertEquals(4, next(tokenizer, "a,b\nc", false, record));
+        assertEquals(3, next(tokenizer, "a\r\n", false, record));
+    }
+
+    private static int next(CSVTokenizer tokenizer, String text, boolean eof, CSVRecord record) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return tokenizer.next(ByteBuffer.wrap(bytes), 0, bytes.length, eof, record);
+    }
+
+    /**
+     * Każdy prefiks danych daje albo brak rekordu, albo ten sam rekord co całe dane,
+     * więc wynik nie zależy od podziału na bufory.
+     */
+    @Test
+    void resultDoesNotDependOnBufferLength() {
+        String text = "a,\"b\nc\",d\r\n\"x\"\"y\",,\r\n1,\"oops\n2,3\n4,5\n6,7\n8,9\n";
+        CSVTokenizer tokenizer = new CSVTokenizer(",", 4);
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        CSVRecord whole = new CSVRecord();
+        CSVRecord part = new CSVRecord();
+        for (int p = 0; p < bytes.length; ) {
+            int end = tokenizer.next(buf, p, bytes.length, true, whole);
+            for (int len = p + 1; len < bytes.length; len++) {
+                int partEnd = tokenizer.next(buf, p, len, false, part);
+                if (partEnd >= 0) {
+                    assertEquals(end, partEnd, "koniec rekordu od " + p + " przy " + len + " bajtach");
+                    assertArrayEquals(whole.toArray(), part.toArray());
+                }
+            }
+            p = end;
+        }
+    }
+
+    @Test
+    void unclosedQuoteAtEofEndsAtFirstLineBreak() {
+        assertRows(tokenize("1,\"oops\n2,3\n4,5\n"),
+                new String[]{"1", "oops"}, new String[]{"2", "3"}, new String[]{"4", "5"});
+        assertRows(tokenize("1,\"a,b\r\n2\r\n"), new String[]{"1", "a,b"}, new String[]{"2"});
+        assertRows(tokenize("1,\"oops"), new String[]{"1", "oops"});
+    }
+
+    @Test
+    void unclosedQuoteEndsAtFirstLineBreakAfterLimit() {
+        CSVTokenizer tokenizer = new CSVTokenizer(",", 8);
+        assertRows(tokenize(tokenizer, "1,\"oops\n2,3\n4,5\n6,\"7\"\n"),
+                new String[]{"1", "oops"}, new String[]{"2", "3"}, new String[]{"4", "5"}, new String[]{"6", "7"});
+        assertRows(tokenize(tokenizer, "\"a\nbcdefgh\",x\n"), new String[]{"a\nbcdefgh", "x"});
+    }
+}
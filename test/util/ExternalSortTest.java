@@ -0,0 +1,102 @@
+package util;
+
+import model.CSVModel;
+import model.SortKey;
+import model.SortKeyEncoder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testy sortowania zewnętrznego: serii zapisanych na dysk i ich scalania.
+ */
+class ExternalSortTest {
+    @TempDir
+    Path dir;
+
+    private long files() throws IOException {
+        try (Stream<Path> list = Files.list(dir)) {
+            return list.count();
+        }
+    }
+
+    /**
+     * Każdy wiersz trafia do osobnej serii, więc serii jest więcej niż {@link ExternalSort#MAX_MERGE}
+     * i scalanie odbywa się w kilku przebiegach.
+     */
+    @Test
+    void mergesManyRunsStablyInSeveralPasses() throws IOException {
+        int rows = ExternalSort.MAX_MERGE * 5 + 3;
+        List<String[]> sorted = new ArrayList<>();
+        try (ExternalSort sort = new ExternalSort(1, dir.toFile())) {
+            for (int i = 0; i < rows; i++) {
+                String[] row = {String.valueOf(i), i % 3 == 0 ? null : "a,\"b\"\r\nc" + i, ""};
+                sort.add(new byte[]{(byte) (i * 7 % 10 + 0xF0)}, row);
+            }
+            assertEquals(rows, sort.runCount());
+            sort.finish(sorted::add);
+        }
+        assertEquals(0, files());
+        assertEquals(rows, sorted.size());
+        int previous = -1;
+        int previousKey = -1;
+        for (String[] row : sorted) {
+            int i = Integer.parseInt(row[0]);
+            int key = i * 7 % 10;
+            assertTrue(key > previousKey || key == previousKey && i > previous, "wiersz " + i);
+            assertArrayEquals(new String[]{row[0], i % 3 == 0 ? null : "a,\"b\"\r\nc" + i, ""}, row);
+            previous = i;
+            previousKey = key;
+        }
+    }
+
+    /**
+     * Sortowanie pliku przez serie daje tę samą kolejność co sortowanie w pamięci modelu,
+     * także w kolumnie z liczbami, tekstem i pustymi polami.
+     */
+    @Test
+    void sortCSVMatchesInMemorySort() throws IOException {
+        Random random = new Random(7);
+        String[] words = {"zolw", "Ala", "ala", "\"wiele\nlinii\"", "10a", "ćma", "beta"};
+        StringBuilder text = new StringBuilder("a;b;n\n");
+        for (int i = 0; i < 3000; i++) {
+            String a = switch (random.nextInt(4)) {
+                case 0 -> "";
+                case 1 -> words[random.nextInt(words.length)];
+                case 2 -> String.valueOf(random.nextInt(200) - 100);
+                default -> random.nextInt(100) + "," + random.nextInt(10);
+            };
+            text.append(a).append(';').append(random.nextInt(5)).append(';').append(i).append('\n');
+        }
+        File input = dir.resolve("in.csv").toFile();
+        File output = dir.resolve("out.csv").toFile();
+        Files.writeString(input.toPath(), text);
+        List<String[]> data = CSVUtils.readCSV(input, ";");
+        CSVModel model = new CSVModel();
+        model.setData(new ArrayList<>(data.subList(1, data.size())));
+
+        for (List<SortKey> keys : List.of(List.of(new SortKey(0, true)), List.of(new SortKey(0, false)),
+                List.of(new SortKey(1, false), new SortKey(0, true)))) {
+            CSVUtils.sortCSV(input, output, ";", true, new SortKeyEncoder(keys), 16 << 10, dir.toFile());
+            List<String[]> external = CSVUtils.readCSV(output, ";");
+            int[] order = model.sort(null, keys);
+            assertEquals(order.length + 1, external.size());
+            for (int i = 0; i < order.length; i++) {
+                assertEquals(model.getValueAt(order[i], 2), external.get(i + 1)[2], keys + ", wiersz " + i);
+            }
+        }
+        assertEquals(2, files());
+    }
+}
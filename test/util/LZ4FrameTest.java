@@ -0,0 +1,115 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testy formatu ramek LZ4 na ramkach zbudowanych bajt po bajcie według specyfikacji formatu.
+ * Sumy kontrolne w ramkach pochodzą z referencyjnej implementacji XXH32.
+ */
+class LZ4FrameTest {
+    /** Pusta ramka w postaci zapisywanej przez narzędzie lz4: bloki do 64 KB, suma kontrolna zawartości. */
+    private static final String EMPTY = "04224d186440a7" + "00000000" + "055dcc02";
+    /** Blok zapisany bez kompresji (najstarszy bit rozmiaru). */
+    private static final String STORED = "04224d186440a7" + "05000080" + "68656c6c6f" + "00000000" + "f97700fb";
+    /** Odwołanie nachodzące na kopiowane dane: "abc", potem 12 bajtów z odległości 3, potem literały. */
+    private static final String OVERLAP = "04224d186440a7" + "0c000000" + "3861626303005078797a7a79"
+            + "00000000" + "344175e4";
+    /** Rozszerzone długości: odwołanie o długości 294 (15 + 255 + 20 + 4) i 20 literałów (15 + 5) w drugim bloku. */
+    private static final String LONG = "04224d186440a7" + "0c000000" + "1f610100ff14506262626262"
+            + "16000000" + "f005303132333435363738396162636465666768696a" + "00000000" + "67f6ef95";
+    /**
+     * Bloki zależne z sumami kontrolnymi bloków i rozmiarem zawartości w nagłówku:
+     * drugi blok odwołuje się do danych pierwszego.
+     */
+    private static final String LINKED = "04224d185c401c000000000000007d"
+            + "0c000080" + "68656c6c6f20776f726c6420" + "0371a1a4"
+            + "09000000" + "070c00502121212121" + "a48e1318"
+            + "00000000" + "bd3d65c5";
+    /** Ramka pomijalna z trzema bajtami danych. */
+    private static final String SKIPPABLE = "502a4d18" + "03000000" + "010203";
+
+    private static byte[] decode(String hex) throws IOException {
+        try (InputStream in = new LZ4FrameInputStream(new ByteArrayInputStream(HexFormat.of().parseHex(hex)))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] encode(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (LZ4FrameOutputStream out = new LZ4FrameOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void decodesReferenceFrames() throws IOException {
+        assertEquals("", text(decode(EMPTY)));
+        assertEquals("hello", text(decode(STORED)));
+        assertEquals("abcabcabcabcabcxyzzy", text(decode(OVERLAP)));
+        assertEquals("a".repeat(295) + "bbbbb0123456789abcdefghij", text(decode(LONG)));
+        assertEquals("hello world hello world!!!!!", text(decode(LINKED)));
+    }
+
+    @Test
+    void skipsSkippableFramesAndJoinsConcatenatedFrames() throws IOException {
+        assertEquals("hellohello world hello world!!!!!", text(decode(SKIPPABLE + STORED + EMPTY + SKIPPABLE + LINKED)));
+    }
+
+    @Test
+    void rejectsCorruptedFrames() {
+        assertThrows(IOException.class, () -> decode(STORED.substring(0, STORED.length() - 2) + "fc"));
+        assertThrows(IOException.class, () -> decode("04224d186440a8" + STORED.substring(14)));
+        assertThrows(IOException.class, () -> decode(LINKED.replace("0371a1a4", "0371a1a5")));
+        assertThrows(IOException.class, () -> decode("05224d186440a7" + STORED.substring(14)));
+        assertThrows(IOException.class, () -> decode(STORED.substring(0, STORED.length() - 10)));
+    }
+
+    /**
+     * Zapis daje ramki zgodne ze specyfikacją: nagłówek z blokami do 4 MB, blok bez kompresji,
+     * gdy kompresja go nie zmniejsza, i sumę kontrolną zawartości.
+     */
+    @Test
+    void encodesReferenceFrames() throws IOException {
+        assertArrayEquals(HexFormat.of().parseHex("04224d186470b9" + "00000000" + "055dcc02"), encode(new byte[0]));
+        assertArrayEquals(HexFormat.of().parseHex("04224d186470b9" + STORED.substring(14)),
+                encode("hello".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void roundTripsSeveralBlocks() throws IOException {
+        Random random = new Random(11);
+        byte[] data = new byte[9 << 20];
+        for (int i = 0; i < data.length; ) {
+            if (random.nextBoolean()) {
+                data[i++] = (byte) random.nextInt();
+            } else {
+                int length = Math.min(random.nextInt(300), data.length - i);
+                int distance = Math.min(1 + random.nextInt(70_000), i);
+                for (int k = 0; k < length; k++, i++) data[i] = distance == 0 ? 7 : data[i - distance];
+            }
+        }
+        byte[] encoded = encode(data);
+        assertTrue(encoded.length < data.length, "dane powinny zostac skompresowane");
+        try (InputStream in = new LZ4FrameInputStream(new ByteArrayInputStream(encoded))) {
+            assertArrayEquals(data, in.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testy czytników CSV opartych na tokenizerze bajtów: zmapowanego pliku i strumienia.
+ */
+class MappedCSVReaderTest {
+    @TempDir
+    Path dir;
+
+    private File write(String name, byte[] bytes) throws IOException {
+        Path file = dir.resolve(name);
+        Files.write(file, bytes);
+        return file.toFile();
+    }
+
+    private static List<String[]> readStream(byte[] bytes, String delimiter) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        new StreamCSVReader(new ByteArrayInputStream(bytes), delimiter).read(rows::add);
+        return rows;
+    }
+
+    private static void assertSameRows(List<String[]> expected, List<String[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) assertArrayEquals(expected.get(i), actual.get(i), "wiersz " + i);
+    }
+
+    @Test
+    void readsQuotedLineBreaksEmptyFieldsAndCrlf() throws IOException {
+        byte[] bytes = "id;opis\r\n1;\"a\r\nb\"\r\n\r\n2;\r\n;\"x;\"\"y\"\"\"".getBytes(StandardCharsets.UTF_8);
+        List<String[]> rows = new MappedCSVReader(write("a.csv", bytes), ";").readAll();
+        assertSameRows(List.of(new String[]{"id", "opis"}, new String[]{"1", "a\r\nb"}, new String[]{"2", ""},
+                new String[]{"", "x;\"y\""}), rows);
+        assertSameRows(rows, readStream(bytes, ";"));
+    }
+
+    @Test
+    void readsRangeAndReportsPosition() throws IOException {
+        byte[] bytes = "a\n\"b\nc\"\nd\n".getBytes(StandardCharsets.UTF_8);
+        MappedCSVReader reader = new MappedCSVReader(write("r.csv", bytes), ",");
+        List<String[]> rows = new ArrayList<>();
+        reader.read(2, 3, rows::add);
+        assertSameRows(List.<String[]>of(new String[]{"b\nc"}), rows);
+        assertEquals(8, reader.position());
+    }
+
+    /**
+     * Niezamknięty cudzysłów w dużym pliku nie pochłania reszty pliku ani nie przekracza okna mapowania.
+     */
+    @Test
+    void recoversFromUnclosedQuoteInLargeFile() throws IOException {
+        StringBuilder text = new StringBuilder("1,\"oops\n");
+        int rows = (CSVTokenizer.MAX_QUOTED_SPAN / 16) + 1000;
+        for (int i = 0; i < rows; i++) text.append(i).append(",wartosc\n");
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        List<String[]> read = new MappedCSVReader(write("big.csv", bytes), ",").readAll();
+        assertEquals(rows + 1, read.size());
+        assertArrayEquals(new String[]{"1", "oops"}, read.get(0));
+        assertArrayEquals(new String[]{String.valueOf(rows - 1), "wartosc"}, read.get(rows));
+        assertSameRows(read, readStream(bytes, ","));
+    }
+}
@@ -0,0 +1,136 @@
+package util;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testy równoległego czytnika: wynik musi być taki sam jak przy odczycie sekwencyjnym.
+ */
+class ParallelCSVReaderTest {
+    private static ForkJoinPool pool;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    /**
+     * Tworzy kilka MB danych, w których co któreś pole jest w cudzysłowie z końcami linii,
+     * więc granice fragmentów często wypadają wewnątrz pól.
+     */
+    private File generate(String name, String prefix) throws IOException {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(prefix);
+        while (text.length() < prefix.length() + (6 << 20)) {
+            text.append(random.nextInt(1000)).append(',');
+            switch (random.nextInt(5)) {
+                case 0 -> text.append("\"wiele\nlinii\r\n,\"\"cytat\"\"\n\"");
+                case 1 -> text.append("\"\"");
+                case 2 -> text.append("");
+                default -> text.append("tekst").append(random.nextInt());
+            }
+            text.append(random.nextBoolean() ? "\n" : "\r\n");
+        }
+        Path file = dir.resolve(name);
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+
+    private static void assertSameRows(List<String[]> expected, List<String[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) assertArrayEquals(expected.get(i), actual.get(i), "wiersz " + i);
+    }
+
+    /**
+     * Zwraca pozycje początków wszystkich rekordów, także pustych.
+     */
+    private static Set<Long> recordStarts(File file) throws IOException {
+        Set<Long> starts = new HashSet<>();
+        starts.add(0L);
+        MappedCSVReader reader = new MappedCSVReader(file, ",");
+        reader.scan(0, Long.MAX_VALUE, record -> starts.add(reader.position()));
+        return starts;
+    }
+
+    @Test
+    void splitPointsFallOnRecordStarts() throws IOException {
+        File file = generate("split.csv", "");
+        long[] points = new ParallelCSVReader(file, ",", pool).splitPoints();
+        assertTrue(points.length > 2, "plik powinien zostać podzielony");
+        Set<Long> starts = recordStarts(file);
+        for (int i = 0; i + 1 < points.length; i++) {
+            assertTrue(starts.contains(points[i]), "granica " + points[i] + " nie jest początkiem rekordu");
+            assertTrue(points[i] <= points[i + 1]);
+        }
+        assertEquals(file.length(), points[points.length - 1]);
+    }
+
+    @Test
+    void readsQuotedLineBreaksAcrossChunkBoundaries() throws IOException {
+        File file = generate("quoted.csv", "id,opis\n");
+        assertSameRows(new MappedCSVReader(file, ",").readAll(), new ParallelCSVReader(file, ",", pool).readAll());
+    }
+
+    /**
+     * Niezamknięty cudzysłów odwraca parzystość cudzysłowów w dalszej części pliku,
+     * więc granice wyznaczone za nim muszą zostać poprawione przy łączeniu fragmentów.
+     */
+    @Test
+    void recoversFromUnclosedQuoteBeforeChunkBoundaries() throws IOException {
+        StringBuilder plain = new StringBuilder("1,\"oops\n");
+        for (int i = 0; plain.length() <= CSVTokenizer.MAX_QUOTED_SPAN + (1 << 20); i++) plain.append(i).append(",bez cudzyslowu\n");
+        File file = generate("stray.csv", plain.toString());
+        List<String[]> serial = new MappedCSVReader(file, ",").readAll();
+        assertArrayEquals(new String[]{"1", "oops"}, serial.get(0));
+        Set<Long> starts = recordStarts(file);
+        long[] points = new ParallelCSVReader(file, ",", pool).splitPoints();
+        boolean misplaced = false;
+        for (long point : points) misplaced |= !starts.contains(point) && point < file.length();
+        assertTrue(misplaced, "dane powinny dawać błędne granice z parzystości cudzysłowów");
+        assertSameRows(serial, new ParallelCSVReader(file, ",", pool).readAll());
+    }
+
+    @Test
+    void deliversChunksInOrderWithMonotonicProgress() throws IOException {
+        File file = generate("order.csv", "");
+        List<String[]> rows = new ArrayList<>();
+        List<Long> progress = new ArrayList<>();
+        new ParallelCSVReader(file, ",", pool).read(chunk -> {
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            rows.addAll(chunk);
+        }, progress::add);
+        assertSameRows(new MappedCSVReader(file, ",").readAll(), rows);
+        for (int i = 1; i < progress.size(); i++) assertTrue(progress.get(i - 1) < progress.get(i));
+        assertEquals(file.length(), progress.get(progress.size() - 1));
+    }
+}
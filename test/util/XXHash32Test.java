@@ -0,0 +1,50 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testy sumy XXH32 na wartościach wzorcowych implementacji referencyjnej.
+ */
+class XXHash32Test {
+
+    private static int hash(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        return XXHash32.hash(bytes, 0, bytes.length);
+    }
+
+    @Test
+    void matchesReferenceValues() {
+        assertEquals(0x02CC5D05, hash(""));
+        assertEquals(0x550D7456, hash("a"));
+        assertEquals(0x32D153FF, hash("abc"));
+        assertEquals(0xFB0077F9, hash("hello"));
+        // 39 bajtów: dwa pełne pasy po 16 bajtów, jedno słowo i trzy pojedyncze bajty.
+        assertEquals(0xE2293B2F, hash("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    void hashesFragmentOfArray() {
+        byte[] bytes = "xxNobody inspects the spammish repetitionyy".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(0xE2293B2F, XXHash32.hash(bytes, 2, bytes.length - 4));
+    }
+
+    /**
+     * Wynik nie zależy od podziału danych na porcje, także gdy porcje przecinają pasy po 16 bajtów.
+     */
+    @Test
+    void resultDoesNotDependOnChunks() {
+        byte[] data = new byte[1000];
+        new Random(3).nextBytes(data);
+        int expected = XXHash32.hash(data, 0, data.length);
+        for (int chunk = 1; chunk <= 40; chunk++) {
+            XXHash32 hash = new XXHash32();
+            for (int p = 0; p < data.length; p += chunk) hash.update(data, p, Math.min(chunk, data.length - p));
+            assertEquals(expected, hash.getValue(), "porcje po " + chunk);
+        }
+    }
+}